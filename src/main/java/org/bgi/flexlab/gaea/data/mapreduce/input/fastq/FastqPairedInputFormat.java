@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.input.fastq;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+
+import java.io.IOException;
+
+/**
+ * yields both mates of a read pair as one record, so pair-end processing
+ * can run in the mapper without grouping reads by name. Input paths are the
+ * first fastq files; the second fastq of each is registered with setMate.
+ * Files without a mate are read as interleaved pairs when INTERLEAVED is set,
+ * otherwise as single end reads.
+ */
+public class FastqPairedInputFormat extends FileInputFormat<Text, Text> {
+	public final static String MATE_PREFIX = "fastq.paired.mate.";
+	public final static String INTERLEAVED = "fastq.paired.interleaved";
+
+	public static void setMate(Configuration conf, Path fastq1, Path fastq2) throws IOException {
+		conf.set(MATE_PREFIX + qualify(conf, fastq1), qualify(conf, fastq2));
+	}
+
+	public static Path getMate(Configuration conf, Path fastq1) throws IOException {
+		String mate = conf.get(MATE_PREFIX + qualify(conf, fastq1));
+		return mate == null ? null : new Path(mate);
+	}
+
+	private static String qualify(Configuration conf, Path path) throws IOException {
+		return path.getFileSystem(conf).makeQualified(path).toString();
+	}
+
+	@Override
+	public RecordReader<Text, Text> createRecordReader(InputSplit split,
+			TaskAttemptContext context) throws IOException, InterruptedException {
+		return new FastqPairedRecordReader();
+	}
+
+	/**
+	 * the two files of a pair have no common record offsets, so each pair
+	 * is read by one mapper from start to end
+	 */
+	@Override
+	protected boolean isSplitable(JobContext context, Path file) {
+		return false;
+	}
+}
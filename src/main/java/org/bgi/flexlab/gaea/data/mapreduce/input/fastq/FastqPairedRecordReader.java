@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.input.fastq;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+import java.io.IOException;
+
+/**
+ * key is the read name, value holds the records of the pair separated by '\n',
+ * each record in the same tab separated format as FastqRecordReader
+ */
+public class FastqPairedRecordReader extends RecordReader<Text, Text> {
+	private FastqBasicReader reader1 = null;
+	private FastqBasicReader reader2 = null;
+	private boolean interleaved = false;
+	private Text key = new Text();
+	private Text value = new Text();
+	private Text mateKey = new Text();
+	private Text mateValue = new Text();
+
+	@Override
+	public void initialize(InputSplit split, TaskAttemptContext context)
+			throws IOException, InterruptedException {
+		Configuration conf = context.getConfiguration();
+		FileSplit fileSplit = (FileSplit) split;
+		reader1 = FastqRecordReader.createReader(conf, fileSplit);
+
+		Path mate = FastqPairedInputFormat.getMate(conf, fileSplit.getPath());
+		if (mate != null) {
+			long length = mate.getFileSystem(conf).getFileStatus(mate).getLen();
+			reader2 = FastqRecordReader.createReader(conf, new FileSplit(mate, 0, length, null));
+		} else {
+			interleaved = conf.getBoolean(FastqPairedInputFormat.INTERLEAVED, false);
+			if (interleaved)
+				reader2 = reader1;
+		}
+	}
+
+	@Override
+	public boolean nextKeyValue() throws IOException, InterruptedException {
+		if (!reader1.next(key, value))
+			return false;
+		if (reader2 == null)
+			return true;
+
+		if (!reader2.next(mateKey, mateValue)) {
+			throw new RuntimeException("fastq pair is not synchronized, no mate for read "
+					+ key.toString() + ", run without map only mode.");
+		}
+		if (!key.equals(mateKey)) {
+			throw new RuntimeException("fastq pair is not synchronized at read " + key.toString()
+					+ " and " + mateKey.toString() + ", run without map only mode.");
+		}
+		value.append(new byte[] { '\n' }, 0, 1);
+		value.append(mateValue.getBytes(), 0, mateValue.getLength());
+		return true;
+	}
+
+	@Override
+	public Text getCurrentKey() throws IOException, InterruptedException {
+		return key;
+	}
+
+	@Override
+	public Text getCurrentValue() throws IOException, InterruptedException {
+		return value;
+	}
+
+	@Override
+	public float getProgress() throws IOException {
+		return reader1.getProgress();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (reader1 != null)
+			reader1.close();
+		if (reader2 != null && !interleaved)
+			reader2.close();
+	}
+}
@@ -59,24 +59,30 @@ public class FastqRecordReader extends RecordReader<Text, Text> {
 	@Override
 	public void initialize(InputSplit split, TaskAttemptContext context)
 			throws IOException, InterruptedException {
-		Configuration configuration = context.getConfiguration();
+		reader = createReader(context.getConfiguration(), (FileSplit) split);
+	}
+
+	public static FastqBasicReader createReader(Configuration configuration,
+			FileSplit split) throws IOException {
 		int readNameType = configuration.getInt(READ_NAME_TYPE, 0);
 		byte[] recordDelimiter = null;
 		if (configuration.get("textinputformat.record.delimiter") != null){
 			recordDelimiter = configuration.get(
 					"textinputformat.record.delimiter").getBytes();
 		}
+		FastqBasicReader reader = null;
 		if (readNameType == 0) {// read id format : reads_XX/1
 			reader = new FastqForwardSlashReader(configuration,
-					(FileSplit) split, recordDelimiter);
+					split, recordDelimiter);
 		} else if (readNameType == 1) {// read id format : reads_xx: 1:N:XX
 										// reads_xx: 2:N:XX
-			reader = new FastqSapceReader(configuration, (FileSplit) split,
+			reader = new FastqSapceReader(configuration, split,
 					recordDelimiter);
 		} else if (readNameType == 2) {// read id format : reads_xx
-			reader = new FastqSpecialReader(configuration, (FileSplit) split,
+			reader = new FastqSpecialReader(configuration, split,
 					recordDelimiter);
 		}
+		return reader;
 	}
 
 	@Override
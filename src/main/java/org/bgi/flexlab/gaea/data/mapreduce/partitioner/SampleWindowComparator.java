@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.partitioner;
+
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.SampleWindowWritable;
+
+import java.io.IOException;
+
+/**
+ * compares serialized SampleWindowWritable keys without deserializing them:
+ * sample as Text (vint length and bytes), then chrIndex and winNum
+ */
+public class SampleWindowComparator implements RawComparator<SampleWindowWritable> {
+	@Override
+	public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+		try {
+			int n1 = WritableUtils.decodeVIntSize(b1[s1]);
+			int n2 = WritableUtils.decodeVIntSize(b2[s2]);
+			int len1 = WritableComparator.readVInt(b1, s1);
+			int len2 = WritableComparator.readVInt(b2, s2);
+			int cmp = WritableComparator.compareBytes(b1, s1 + n1, len1, b2, s2 + n2, len2);
+			if (cmp != 0)
+				return cmp;
+			int p1 = s1 + n1 + len1;
+			int p2 = s2 + n2 + len2;
+			cmp = Integer.compare(WritableComparator.readInt(b1, p1), WritableComparator.readInt(b2, p2));
+			if (cmp != 0)
+				return cmp;
+			return Integer.compare(WritableComparator.readInt(b1, p1 + 4), WritableComparator.readInt(b2, p2 + 4));
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	@Override
+	public int compare(SampleWindowWritable o1, SampleWindowWritable o2) {
+		return o1.compareTo(o2);
+	}
+}
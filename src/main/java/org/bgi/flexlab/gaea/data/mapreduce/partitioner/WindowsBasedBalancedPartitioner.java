@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.partitioner;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.WindowsBasedWritable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * window partitioner using a sampled split table, so that high coverage
+ * regions are spread over reducers instead of the chromosome+window hash.
+ */
+public class WindowsBasedBalancedPartitioner<T> extends Partitioner<WindowsBasedWritable, T> implements Configurable {
+	public final static String SPLIT_TABLE_PATH = "windows.split.table.path";
+	public final static String SPLIT_TABLE_CACHE_NAME = "windowsSplitTable";
+
+	private Configuration conf;
+	private WindowsBasedSplitTable table = null;
+
+	@Override
+	public void setConf(Configuration conf) {
+		this.conf = conf;
+		try {
+			File cache = new File(SPLIT_TABLE_CACHE_NAME);
+			if (cache.exists())
+				table = WindowsBasedSplitTable.read(new FileInputStream(cache));
+			else if (conf.get(SPLIT_TABLE_PATH) != null)
+				table = WindowsBasedSplitTable.read(new Path(conf.get(SPLIT_TABLE_PATH)), conf);
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString());
+		}
+	}
+
+	@Override
+	public Configuration getConf() {
+		return conf;
+	}
+
+	@Override
+	public int getPartition(WindowsBasedWritable key, T v, int numPartitioner) {
+		if (table == null || table.getPartitionNumber() != numPartitioner || key.getChromosomeIndex() < 0)
+			return Math.abs(key.partition()) % numPartitioner;
+		return table.getPartition(key.getWindows());
+	}
+}
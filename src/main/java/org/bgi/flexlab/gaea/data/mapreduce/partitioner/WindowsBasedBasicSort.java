@@ -16,29 +16,19 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.data.mapreduce.partitioner;
 
-import org.apache.hadoop.io.DataInputBuffer;
 import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.WindowsBasedBasicWritable;
 
-import java.io.IOException;
-
 public class WindowsBasedBasicSort implements RawComparator<WindowsBasedBasicWritable> {
 
 	@Override
 	public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
-		WindowsBasedBasicWritable key1 = new WindowsBasedBasicWritable();
-		WindowsBasedBasicWritable key2 = new WindowsBasedBasicWritable();
-		DataInputBuffer buffer = new DataInputBuffer();
-		try {
-			buffer.reset(b1, s1, l1);
-			key1.readFields(buffer);
-			buffer.reset(b2, s2, l2);
-			key2.readFields(buffer);
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
-
-		return key1.compareTo(key2);
+		/* skip the vint length prefix of serialized Text */
+		int n1 = WritableUtils.decodeVIntSize(b1[s1]);
+		int n2 = WritableUtils.decodeVIntSize(b2[s2]);
+		return WritableComparator.compareBytes(b1, s1 + n1, l1 - n1, b2, s2 + n2, l2 - n2);
 	}
 
 	@Override
@@ -16,12 +16,9 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.data.mapreduce.partitioner;
 
-import org.apache.hadoop.io.DataInputBuffer;
 import org.apache.hadoop.io.RawComparator;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.WindowsBasedWritable;
 
-import java.io.IOException;
-
 public class WindowsBasedComparator implements RawComparator<WindowsBasedWritable> {
 
 	@Override
@@ -35,17 +32,6 @@ public class WindowsBasedComparator implements RawComparator<WindowsBasedWritabl
 
 	@Override
 	public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
-		WindowsBasedWritable key1 = new WindowsBasedWritable();
-		WindowsBasedWritable key2 = new WindowsBasedWritable();
-		DataInputBuffer buffer = new DataInputBuffer();
-		try {
-			buffer.reset(b1, s1, l1);
-			key1.readFields(buffer);
-			buffer.reset(b2, s2, l2);
-			key2.readFields(buffer);
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
-		return compare(key1, key2);
+		return Long.compare(WindowsBasedWritable.readWindows(b1, s1), WindowsBasedWritable.readWindows(b2, s2));
 	}
 }
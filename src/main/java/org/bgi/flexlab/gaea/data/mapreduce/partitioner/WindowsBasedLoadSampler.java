@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.partitioner;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.WindowsBasedWritable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * estimate per window load before the job is submitted, either by sampling
+ * records of the input splits or from a depth profile of a previous run.
+ * Window keys always use sample 0, so every sample of a window goes to the
+ * same reducer.
+ */
+public class WindowsBasedLoadSampler {
+	/* default number of input splits sampled */
+	public final static int DEFAULT_MAX_SPLITS = 100;
+	/* default number of mapped records read from each sampled split */
+	public final static int DEFAULT_RECORDS_PER_SPLIT = 10000;
+
+	private final int windowsSize;
+	private final SortedMap<Long, Long> windowWeights = new TreeMap<Long, Long>();
+	private final WindowsBasedWritable key = new WindowsBasedWritable();
+
+	public WindowsBasedLoadSampler(int windowsSize) {
+		this.windowsSize = windowsSize;
+	}
+
+	private void add(int chrIndex, int winNum, long weight) {
+		key.set(chrIndex, winNum, 0);
+		Long old = windowWeights.get(key.getWindows());
+		windowWeights.put(key.getWindows(), old == null ? weight : old + weight);
+	}
+
+	/**
+	 * read up to recordsPerSplit mapped records from at most maxSplits evenly
+	 * spaced splits. Each sampled record is weighted by the bytes of input it
+	 * stands for.
+	 */
+	public void sampleInput(InputFormat<LongWritable, SamRecordWritable> inputFormat, JobContext job,
+			int maxSplits, int recordsPerSplit) throws IOException, InterruptedException {
+		List<InputSplit> splits = inputFormat.getSplits(job);
+		if (splits.isEmpty())
+			return;
+		int step = Math.max(1, splits.size() / maxSplits);
+		Map<Long, Long> counts = new TreeMap<Long, Long>();
+
+		for (int i = 0; i < splits.size(); i += step) {
+			InputSplit split = splits.get(i);
+			TaskAttemptContext context = new TaskAttemptContextImpl(job.getConfiguration(), new TaskAttemptID());
+			RecordReader<LongWritable, SamRecordWritable> reader = inputFormat.createRecordReader(split, context);
+			reader.initialize(split, context);
+
+			counts.clear();
+			int sampled = 0;
+			while (sampled < recordsPerSplit && reader.nextKeyValue()) {
+				SAMRecord sam = reader.getCurrentValue().get();
+				if (sam.getReadUnmappedFlag() || sam.getReferenceIndex() < 0)
+					continue;
+				key.set(sam.getReferenceIndex(), sam.getAlignmentStart() / windowsSize, 0);
+				Long old = counts.get(key.getWindows());
+				counts.put(key.getWindows(), old == null ? 1 : old + 1);
+				sampled++;
+			}
+			reader.close();
+
+			if (sampled == 0)
+				continue;
+			long weight = Math.max(1, split.getLength() * step / sampled);
+			for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+				Long old = windowWeights.get(entry.getKey());
+				long value = entry.getValue() * weight;
+				windowWeights.put(entry.getKey(), old == null ? value : old + value);
+			}
+		}
+	}
+
+	/**
+	 * load a bedGraph like depth profile : chr start(0-based) end depth
+	 */
+	public void loadDepthProfile(Path profile, Configuration conf, SAMFileHeader header) throws IOException {
+		BufferedReader reader = new BufferedReader(
+				new InputStreamReader(profile.getFileSystem(conf).open(profile)));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty() || line.startsWith("#") || line.startsWith("track"))
+				continue;
+			String[] fields = line.split("\t");
+			int chrIndex = header.getSequenceIndex(fields[0]);
+			if (chrIndex < 0)
+				continue;
+			int start = Integer.parseInt(fields[1]) + 1;
+			int end = Integer.parseInt(fields[2]);
+			long depth = (long) Double.parseDouble(fields[3]);
+			if (depth <= 0)
+				continue;
+
+			for (int winNum = start / windowsSize; winNum <= end / windowsSize; winNum++) {
+				int overlapStart = Math.max(start, winNum * windowsSize);
+				int overlapEnd = Math.min(end, (winNum + 1) * windowsSize - 1);
+				if (overlapEnd >= overlapStart)
+					add(chrIndex, winNum, (overlapEnd - overlapStart + 1) * depth);
+			}
+		}
+		reader.close();
+	}
+
+	public WindowsBasedSplitTable build(int numPartitions) {
+		return WindowsBasedSplitTable.build(windowWeights, numPartitions);
+	}
+}
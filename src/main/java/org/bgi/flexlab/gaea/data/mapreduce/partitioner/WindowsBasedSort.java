@@ -16,37 +16,23 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.data.mapreduce.partitioner;
 
-import org.apache.hadoop.io.DataInputBuffer;
 import org.apache.hadoop.io.RawComparator;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.WindowsBasedWritable;
 
-import java.io.IOException;
-
 public class WindowsBasedSort implements RawComparator<WindowsBasedWritable> {
 	@Override
 	public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
-		WindowsBasedWritable key1 = new WindowsBasedWritable();
-		WindowsBasedWritable key2 = new WindowsBasedWritable();
-		DataInputBuffer buffer = new DataInputBuffer();
-		try {
-			buffer.reset(b1, s1, l1);
-			key1.readFields(buffer);
-			buffer.reset(b2, s2, l2);
-			key2.readFields(buffer);
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
-
-		return key1.compareTo(key2);
+		int cmp = Long.compare(WindowsBasedWritable.readWindows(b1, s1), WindowsBasedWritable.readWindows(b2, s2));
+		if (cmp != 0)
+			return cmp;
+		return Integer.compare(WindowsBasedWritable.readPosition(b1, s1), WindowsBasedWritable.readPosition(b2, s2));
 	}
 
 	@Override
 	public int compare(WindowsBasedWritable o1, WindowsBasedWritable o2) {
-		int ii = (int) ((o1.getWindows() - o2.getWindows()) & 0xffffffff);
-		if (ii != 0) {
-			return ii;
-		} else {
-			return o1.getPosition().compareTo(o2.getPosition());
-		}
+		int cmp = Long.compare(o1.getWindows(), o2.getWindows());
+		if (cmp != 0)
+			return cmp;
+		return Integer.compare(o1.getPosition().get(), o2.getPosition().get());
 	}
 }
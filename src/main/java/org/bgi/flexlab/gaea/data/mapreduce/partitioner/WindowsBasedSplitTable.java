@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.partitioner;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * total order split table of window keys. Reducer i receives the windows
+ * whose key is in [start[i], start[i+1]), each line of the table file is
+ * "startKey\texpectedLoad".
+ */
+public class WindowsBasedSplitTable {
+	private long[] starts;
+	private long[] expectedLoads;
+
+	private WindowsBasedSplitTable(long[] starts, long[] expectedLoads) {
+		this.starts = starts;
+		this.expectedLoads = expectedLoads;
+	}
+
+	/**
+	 * build split table so that every reducer gets about the same weight
+	 * 
+	 * @param windowWeights
+	 *            weight of each window, keyed by window key with sample 0
+	 */
+	public static WindowsBasedSplitTable build(SortedMap<Long, Long> windowWeights, int numPartitions) {
+		long[] starts = new long[numPartitions];
+		long[] loads = new long[numPartitions];
+		Arrays.fill(starts, Long.MAX_VALUE);
+		starts[0] = Long.MIN_VALUE;
+
+		long total = 0;
+		for (long weight : windowWeights.values())
+			total += weight;
+		double target = (double) total / numPartitions;
+
+		int partition = 0;
+		long accumulate = 0;
+		for (Map.Entry<Long, Long> entry : windowWeights.entrySet()) {
+			if (partition < numPartitions - 1 && accumulate >= target * (partition + 1)) {
+				partition++;
+				starts[partition] = entry.getKey();
+			}
+			accumulate += entry.getValue();
+			loads[partition] += entry.getValue();
+		}
+
+		return new WindowsBasedSplitTable(starts, loads);
+	}
+
+	public int getPartition(long windowsKey) {
+		int index = Arrays.binarySearch(starts, windowsKey);
+		if (index < 0)
+			index = -index - 2;
+		/* empty partitions share Long.MAX_VALUE, go to the first of them */
+		while (index > 0 && starts[index] == starts[index - 1])
+			index--;
+		return index;
+	}
+
+	public int getPartitionNumber() {
+		return starts.length;
+	}
+
+	public long[] getExpectedLoads() {
+		return expectedLoads;
+	}
+
+	public void write(Path path, Configuration conf) throws IOException {
+		FileSystem fs = path.getFileSystem(conf);
+		FSDataOutputStream out = fs.create(path, true);
+		for (int i = 0; i < starts.length; i++) {
+			out.write((starts[i] + "\t" + expectedLoads[i] + "\n").getBytes());
+		}
+		out.close();
+	}
+
+	public static WindowsBasedSplitTable read(InputStream input) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input));
+		long[] starts = new long[16];
+		long[] loads = new long[16];
+		int size = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty())
+				continue;
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				loads = Arrays.copyOf(loads, size * 2);
+			}
+			String[] fields = line.split("\t");
+			starts[size] = Long.parseLong(fields[0]);
+			loads[size] = Long.parseLong(fields[1]);
+			size++;
+		}
+		reader.close();
+		return new WindowsBasedSplitTable(Arrays.copyOf(starts, size), Arrays.copyOf(loads, size));
+	}
+
+	public static WindowsBasedSplitTable read(Path path, Configuration conf) throws IOException {
+		FileSystem fs = path.getFileSystem(conf);
+		return read(fs.open(path));
+	}
+}
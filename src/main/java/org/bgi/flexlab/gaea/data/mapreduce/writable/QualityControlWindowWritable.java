@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.writable;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.bgi.flexlab.gaea.data.structure.positioninformation.depth.PositionDepth;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * statistics of one window folded on the map side for bam quality control:
+ * depth arrays over the covered range [from, to), read counters of basic and
+ * target region reports, and insert size histograms.
+ * a record with unmappedCount > 0 only carries the number of unmapped reads.
+ */
+public class QualityControlWindowWritable implements Writable {
+	private long unmappedCount;
+	private int from;
+	private int to;
+	private PositionDepth depth;
+	private String basicReport;
+	private String regionReport;
+	private int[] insertSize;
+	private int[] insertSizeWithoutDup;
+
+	public void setUnmapped(long count) {
+		unmappedCount = count;
+	}
+
+	public void set(PositionDepth depth, int from, int to, String basicReport, String regionReport,
+			int[] insertSize, int[] insertSizeWithoutDup) {
+		this.unmappedCount = 0;
+		this.depth = depth;
+		this.from = from;
+		this.to = to;
+		this.basicReport = basicReport;
+		this.regionReport = regionReport;
+		this.insertSize = insertSize;
+		this.insertSizeWithoutDup = insertSizeWithoutDup;
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVLong(out, unmappedCount);
+		if (unmappedCount > 0)
+			return;
+		WritableUtils.writeVInt(out, depth.getWindowSize());
+		out.writeBoolean(depth.isGenderDepth());
+		WritableUtils.writeVInt(out, depth.getLaneSize());
+		WritableUtils.writeVInt(out, from);
+		WritableUtils.writeVInt(out, to);
+		depth.write(out, from, to);
+		WritableUtils.writeString(out, basicReport);
+		WritableUtils.writeString(out, regionReport);
+		writeHistogram(out, insertSize);
+		writeHistogram(out, insertSizeWithoutDup);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		unmappedCount = WritableUtils.readVLong(in);
+		if (unmappedCount > 0)
+			return;
+		int winSize = WritableUtils.readVInt(in);
+		boolean genderDepth = in.readBoolean();
+		int laneSize = WritableUtils.readVInt(in);
+		if (depth == null || depth.getWindowSize() != winSize || depth.isGenderDepth() != genderDepth
+				|| depth.getLaneSize() != laneSize)
+			depth = new PositionDepth(winSize, genderDepth, laneSize);
+		from = WritableUtils.readVInt(in);
+		to = WritableUtils.readVInt(in);
+		depth.readFields(in, from, to);
+		basicReport = WritableUtils.readString(in);
+		regionReport = WritableUtils.readString(in);
+		insertSize = readHistogram(in, insertSize);
+		insertSizeWithoutDup = readHistogram(in, insertSizeWithoutDup);
+	}
+
+	/**
+	 * only non-zero bins are written
+	 */
+	private static void writeHistogram(DataOutput out, int[] histogram) throws IOException {
+		int count = 0;
+		for (int value : histogram)
+			if (value != 0)
+				count++;
+		WritableUtils.writeVInt(out, histogram.length);
+		WritableUtils.writeVInt(out, count);
+		for (int i = 0; i < histogram.length; i++) {
+			if (histogram[i] != 0) {
+				WritableUtils.writeVInt(out, i);
+				WritableUtils.writeVInt(out, histogram[i]);
+			}
+		}
+	}
+
+	private static int[] readHistogram(DataInput in, int[] histogram) throws IOException {
+		int length = WritableUtils.readVInt(in);
+		if (histogram == null || histogram.length != length)
+			histogram = new int[length];
+		else
+			Arrays.fill(histogram, 0);
+		int count = WritableUtils.readVInt(in);
+		for (int i = 0; i < count; i++) {
+			int index = WritableUtils.readVInt(in);
+			histogram[index] = WritableUtils.readVInt(in);
+		}
+		return histogram;
+	}
+
+	public long getUnmappedCount() {
+		return unmappedCount;
+	}
+
+	public PositionDepth getDepth() {
+		return depth;
+	}
+
+	public int getFrom() {
+		return from;
+	}
+
+	public int getTo() {
+		return to;
+	}
+
+	public String getBasicReport() {
+		return basicReport;
+	}
+
+	public String getRegionReport() {
+		return regionReport;
+	}
+
+	public int[] getInsertSize() {
+		return insertSize;
+	}
+
+	public int[] getInsertSizeWithoutDup() {
+		return insertSizeWithoutDup;
+	}
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.mapreduce.writable;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * sample/chromosome/window key, chrIndex and winNum are -1 for unmapped reads
+ */
+public class SampleWindowWritable implements WritableComparable<SampleWindowWritable> {
+	private Text sample;
+	private int chrIndex;
+	private int winNum;
+
+	public SampleWindowWritable() {
+		sample = new Text();
+	}
+
+	public void set(String sample, int chrIndex, int winNum) {
+		this.sample.set(sample);
+		this.chrIndex = chrIndex;
+		this.winNum = winNum;
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		sample.readFields(in);
+		chrIndex = in.readInt();
+		winNum = in.readInt();
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		sample.write(out);
+		out.writeInt(chrIndex);
+		out.writeInt(winNum);
+	}
+
+	@Override
+	public int compareTo(SampleWindowWritable key) {
+		int v = sample.compareTo(key.sample);
+		if (v != 0)
+			return v;
+		if (chrIndex != key.chrIndex)
+			return chrIndex < key.chrIndex ? -1 : 1;
+		if (winNum != key.winNum)
+			return winNum < key.winNum ? -1 : 1;
+		return 0;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = sample.hashCode();
+		result = 31 * result + chrIndex;
+		result = 31 * result + winNum;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof SampleWindowWritable))
+			return false;
+		return compareTo((SampleWindowWritable) obj) == 0;
+	}
+
+	public String getSample() {
+		return sample.toString();
+	}
+
+	public int getChrIndex() {
+		return chrIndex;
+	}
+
+	public int getWinNum() {
+		return winNum;
+	}
+
+	public boolean isUnmapped() {
+		return chrIndex < 0 || winNum < 0;
+	}
+}
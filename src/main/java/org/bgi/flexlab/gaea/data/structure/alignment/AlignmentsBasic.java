@@ -42,11 +42,27 @@ public class AlignmentsBasic extends SAMCompressionInformationBasic implements C
 	public static void initIdSampleHash(List<SAMReadGroupRecord> samReadGroupRecords) {
 		int i = 0;
 		for(SAMReadGroupRecord samReadGroupRecord : samReadGroupRecords) {
-			Id2Sample.put(i, samReadGroupRecord.getSample());
-			Sample2Id.put(samReadGroupRecord.getSample(), i);
+			String sample = samReadGroupRecord.getSample();
+			if(Sample2Id.containsKey(sample))
+				continue;
+			Id2Sample.put(i, sample);
+			Sample2Id.put(sample, i);
+			i++;
 		}
 	}
 
+	public static String getSampleName(int sampleIndex) {
+		return Id2Sample.get(sampleIndex);
+	}
+
+	/**
+	 * @return sample index, -1 if sample is unknown
+	 */
+	public static int getSampleIndex(String sample) {
+		Integer index = Sample2Id.get(sample);
+		return index == null ? -1 : index;
+	}
+
 	public String getSample() {
 		return Id2Sample.get(sampleIndex);
 	}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.structure.dbsnp;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import org.bgi.flexlab.gaea.data.structure.memoryshare.BioMemoryShare;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * memory mapped known sites of one chromosome written by KnownSitesBuilder.
+ * Sites are sorted by start, lookups are a binary search on the start column.
+ */
+public class ChromosomeKnownSitesShare extends BioMemoryShare {
+	private final static String SOURCE = "knownSites";
+	private final static String MONOMORPHIC_SAMPLE = "monomorphic";
+
+	private int count;
+	private int maxSpan;
+	private long startsOffset;
+	private long endsOffset;
+	private long typesOffset;
+	private long textOffsets;
+	private long textOffset;
+
+	public ChromosomeKnownSitesShare() {
+		super(1);
+	}
+
+	@Override
+	public void loadChromosome(String path) {
+		super.loadChromosome(path);
+		count = getInt(0);
+		maxSpan = getInt(Integer.BYTES);
+		startsOffset = 2 * Integer.BYTES;
+		endsOffset = startsOffset + (long) count * Integer.BYTES;
+		typesOffset = endsOffset + (long) count * Integer.BYTES;
+		textOffsets = typesOffset + count;
+		textOffset = textOffsets + (long) (count + 1) * Integer.BYTES;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public int getStart(int index) {
+		return getInt(startsOffset + (long) index * Integer.BYTES);
+	}
+
+	public int getEnd(int index) {
+		return getInt(endsOffset + (long) index * Integer.BYTES);
+	}
+
+	public VariantContext.Type getType(int index) {
+		return VariantContext.Type.values()[getByte(typesOffset + index) & 0xFF & ~KnownSitesBuilder.MONOMORPHIC_FLAG];
+	}
+
+	/**
+	 * site has genotypes and none of them carries an alternate allele
+	 */
+	public boolean isMonomorphicInSamples(int index) {
+		return (getByte(typesOffset + index) & KnownSitesBuilder.MONOMORPHIC_FLAG) != 0;
+	}
+
+	/**
+	 * index of the first site whose start is not less than position
+	 */
+	public int lowerBound(int position) {
+		int low = 0, high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (getStart(mid) < position)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * sites overlapping [start, end], 1-based closed
+	 */
+	public ArrayList<VariantContext> query(int start, int end) {
+		ArrayList<VariantContext> contexts = new ArrayList<VariantContext>();
+		for (int i = lowerBound(start - maxSpan); i < count; i++) {
+			int siteStart = getStart(i);
+			if (siteStart > end)
+				break;
+			if (getEnd(i) < start)
+				continue;
+			contexts.add(getVariantContext(i));
+		}
+		return contexts;
+	}
+
+	public VariantContext getVariantContext(int index) {
+		long from = textOffset + getInt(textOffsets + (long) index * Integer.BYTES);
+		long to = textOffset + getInt(textOffsets + (long) (index + 1) * Integer.BYTES);
+		byte[] bytes = new byte[(int) (to - from)];
+		getBytes(from, bytes, 0, bytes.length);
+		String[] fields = new String(bytes, StandardCharsets.US_ASCII).split("\t");
+
+		String[] bases = fields[2].split(",");
+		ArrayList<Allele> alleles = new ArrayList<Allele>(bases.length);
+		for (int i = 0; i < bases.length; i++)
+			alleles.add(Allele.create(bases[i], i == 0));
+
+		VariantContextBuilder builder = new VariantContextBuilder(SOURCE, chrName, getStart(index), getEnd(index),
+				alleles);
+		builder.id(fields[0]);
+		if (fields[1].equals("PASS"))
+			builder.passFilters();
+		else if (fields[1].equals("."))
+			builder.unfiltered();
+		else
+			builder.filters(new HashSet<String>(Arrays.asList(fields[1].split(";"))));
+		// genotypes are not stored, a single reference genotype keeps
+		// hasGenotypes() and isPolymorphicInSamples() as in the source VCF
+		if (isMonomorphicInSamples(index))
+			builder.genotypes(GenotypeBuilder.create(MONOMORPHIC_SAMPLE, Arrays.asList(alleles.get(0), alleles.get(0))));
+		return builder.make();
+	}
+}
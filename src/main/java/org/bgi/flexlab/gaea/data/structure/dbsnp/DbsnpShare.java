@@ -16,22 +16,30 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.data.structure.dbsnp;
 
+import htsjdk.variant.variantcontext.VariantContext;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.util.LineReader;
 import org.bgi.flexlab.gaea.data.structure.memoryshare.WholeGenomeShare;
 import org.bgi.flexlab.gaea.data.structure.reference.index.VcfIndex;
 import org.bgi.flexlab.gaea.util.ChromosomeUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class DbsnpShare extends WholeGenomeShare {
 	private static final String CACHE_NAME = "dbsnpList";
+	private static final String DBSNP_SUFFIX = ".dbsnp.bn";
 
 	private Map<String, ChromosomeDbsnpShare> dbsnpInfo = new ConcurrentHashMap<String, ChromosomeDbsnpShare>();
+	private Map<String, ChromosomeKnownSitesShare> sitesInfo = new ConcurrentHashMap<String, ChromosomeKnownSitesShare>();
 	
 	public DbsnpShare(String dbsnpPath,String refPath){
 		indexExist(dbsnpPath,refPath);
@@ -51,7 +59,7 @@ public class DbsnpShare extends WholeGenomeShare {
 
 	public static boolean distributeCache(String chrList, Job job) {
 		try {
-			return distributeCache(chrList, job, CACHE_NAME);
+			return distributeCache(chrList, job, CACHE_NAME) && distributeKnownSites(chrList, job);
 		} catch (IOException e) {
 			throw new RuntimeException(e.toString());
 		} catch (URISyntaxException e) {
@@ -59,6 +67,34 @@ public class DbsnpShare extends WholeGenomeShare {
 		}
 	}
 
+	/**
+	 * adds the known sites store of each chromosome to the cache, linked as
+	 * chrName + KnownSitesBuilder.SUFFIX
+	 */
+	private static boolean distributeKnownSites(String chrList, Job job) throws IOException, URISyntaxException {
+		Path listPath = new Path(chrList);
+		FileSystem fs = listPath.getFileSystem(job.getConfiguration());
+		LineReader in = new LineReader(fs.open(listPath));
+		Text line = new Text();
+		while (in.readLine(line) != 0) {
+			String[] chrs = line.toString().split("\t");
+			String sitesPath = chrs[1].replace(DBSNP_SUFFIX, KnownSitesBuilder.SUFFIX);
+			if (sitesPath.equals(chrs[1]))
+				continue;
+			if (new File(sitesPath).isFile())
+				sitesPath = "file://" + sitesPath;
+			Path path = new Path(sitesPath);
+			if (path.getFileSystem(job.getConfiguration()).exists(path))
+				job.addCacheFile(new URI(sitesPath + "#" + sitesCacheName(chrs[0])));
+		}
+		in.close();
+		return true;
+	}
+
+	private static String sitesCacheName(String chrName) {
+		return chrName + KnownSitesBuilder.SUFFIX;
+	}
+
 	public void loadChromosomeList() {
 		loadChromosomeList(CACHE_NAME);
 	}
@@ -116,6 +152,20 @@ public class DbsnpShare extends WholeGenomeShare {
 		return getStartPosition(chrName, winNum, 0);
 	}
 
+	/**
+	 * known sites overlapping [start, end] from the binary site store, or null
+	 * if the index was built without one and the caller should fall back to
+	 * the vcf
+	 */
+	public ArrayList<VariantContext> query(String chrName, int start, int end) {
+		chrName = ChromosomeUtils.formatChrName(chrName);
+		if (!dbsnpInfo.containsKey(chrName))
+			return new ArrayList<VariantContext>();
+		if (!sitesInfo.containsKey(chrName))
+			return null;
+		return sitesInfo.get(chrName).query(start, end);
+	}
+
 	public Map<String, ChromosomeDbsnpShare> getDbsnpMap() {
 		return this.dbsnpInfo;
 	}
@@ -126,6 +176,22 @@ public class DbsnpShare extends WholeGenomeShare {
 			dbsnpInfo.get(chrName).loadChromosome(path);
 			dbsnpInfo.get(chrName).setLength(length);
 			dbsnpInfo.get(chrName).setChromosomeName(chrName);
+
+			// a distributed cache link is named after the chromosome
+			String sitesPath = path.endsWith(DBSNP_SUFFIX) ? path.replace(DBSNP_SUFFIX, KnownSitesBuilder.SUFFIX)
+					: sitesCacheName(chrName);
+			if (sitesPath.startsWith("file://"))
+				sitesPath = sitesPath.substring("file://".length());
+			if (!new File(sitesPath).exists()) {
+				System.err.println("> no known sites store " + sitesPath + ", known sites of " + chrName
+						+ " are read from the vcf.");
+			} else {
+				ChromosomeKnownSitesShare sites = new ChromosomeKnownSitesShare();
+				sites.loadChromosome(sitesPath);
+				sites.setLength(length);
+				sites.setChromosomeName(chrName);
+				sitesInfo.put(chrName, sites);
+			}
 		}
 	}
 
@@ -139,5 +205,12 @@ public class DbsnpShare extends WholeGenomeShare {
 				throw new RuntimeException(e.toString());
 			}
 		}
+		for (ChromosomeKnownSitesShare share : sitesInfo.values()) {
+			try {
+				share.clean();
+			} catch (Exception e) {
+				throw new RuntimeException(e.toString());
+			}
+		}
 	}
 }
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.structure.dbsnp;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * collects the known sites of one chromosome in columns and writes them in
+ * the layout read by ChromosomeKnownSitesShare:
+ * count, max span, starts[count], ends[count], types[count],
+ * text offsets[count + 1], text ("id\tfilter\tREF,ALT,...").
+ * The high bit of a type marks a site whose genotypes are all reference or
+ * no-call, VQSR skips such training sites.
+ */
+public class KnownSitesBuilder {
+	public final static String SUFFIX = ".sites.bn";
+	public final static int MONOMORPHIC_FLAG = 0x80;
+
+	private int count = 0;
+	private int maxSpan = 0;
+	private int[] starts = new int[1024];
+	private int[] ends = new int[1024];
+	private byte[] types = new byte[1024];
+	private int[] offsets = new int[1025];
+	private ByteArrayOutputStream text = new ByteArrayOutputStream();
+
+	public void add(VariantContext context) {
+		if (count == starts.length) {
+			starts = Arrays.copyOf(starts, count << 1);
+			ends = Arrays.copyOf(ends, count << 1);
+			types = Arrays.copyOf(types, count << 1);
+			offsets = Arrays.copyOf(offsets, (count << 1) + 1);
+		}
+		starts[count] = context.getStart();
+		ends[count] = context.getEnd();
+		types[count] = (byte) context.getType().ordinal();
+		if (context.hasGenotypes() && !context.isPolymorphicInSamples())
+			types[count] |= MONOMORPHIC_FLAG;
+		maxSpan = Math.max(maxSpan, context.getEnd() - context.getStart());
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(context.getID());
+		sb.append("\t");
+		sb.append(context.filtersWereApplied() ? (context.isFiltered() ? String.join(";", context.getFilters()) : "PASS") : ".");
+		sb.append("\t");
+		boolean first = true;
+		for (Allele allele : context.getAlleles()) {
+			if (!first)
+				sb.append(",");
+			sb.append(allele.getDisplayString());
+			first = false;
+		}
+		byte[] bytes = sb.toString().getBytes(StandardCharsets.US_ASCII);
+		text.write(bytes, 0, bytes.length);
+		count++;
+		offsets[count] = text.size();
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public void write(String path) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+		out.writeInt(count);
+		out.writeInt(maxSpan);
+		for (int i = 0; i < count; i++)
+			out.writeInt(starts[i]);
+		for (int i = 0; i < count; i++)
+			out.writeInt(ends[i]);
+		out.write(types, 0, count);
+		for (int i = 0; i <= count; i++)
+			out.writeInt(offsets[i]);
+		text.writeTo(out);
+		out.close();
+	}
+
+	public void clear() {
+		count = 0;
+		maxSpan = 0;
+		text.reset();
+	}
+}
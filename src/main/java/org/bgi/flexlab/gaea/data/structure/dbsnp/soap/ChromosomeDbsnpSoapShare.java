@@ -136,10 +136,9 @@ public class ChromosomeDbsnpSoapShare extends BioMemoryShare {
 			return null;
 		}
 
-		byteBuffer[0].position(index * dbsnpSize);
-		snpBasicInfo = byteBuffer[0].get();
-		alleleFreq = byteBuffer[0].getFloat();
-		byteBuffer[0].position(0);
+		long offset = (long) index * dbsnpSize;
+		snpBasicInfo = getByte(offset);
+		alleleFreq = getFloat(offset + 1);
 
 		snpinfo.setSnpBasicInformation(snpBasicInfo);
 		snpinfo.setAlleleFreq(alleleFreq);
@@ -21,6 +21,7 @@ import org.bgi.flexlab.gaea.data.exception.OutOfBoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
@@ -28,11 +29,16 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 
 public class BioMemoryShare {
+	/* mapped segment size, a power of two so index split is shift and mask */
+	private final static int SEGMENT_SHIFT = 30;
+	private final static long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+	private final static long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
 	protected int capacity = Byte.SIZE / 4;
 	protected String chrName;
 	protected int length;
 	protected MappedByteBuffer[] byteBuffer = null;
-	protected int fcSize = 0;
+	protected long fcSize = 0;
 
 	protected BioMemoryShare(int capacity) {
 		this.capacity = capacity;
@@ -43,22 +49,20 @@ public class BioMemoryShare {
 
 	/**
 	 * load bio information;egg : chromosome or dbsnp
+	 * 
+	 * file is mapped as several read only segments, so files larger than 2G
+	 * can be accessed by long index
 	 */
 	protected void loadInformation(String path) throws IOException {
 		RandomAccessFile raf = new RandomAccessFile(path, "r");
 		FileChannel fc = raf.getChannel();
-		fcSize = (int) (fc.size() & 0xffffffff);
-		int blocks = (int) ((fcSize / Integer.MAX_VALUE) + 1);
+		fcSize = fc.size();
+		int blocks = (int) Math.max(1, (fcSize + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
 		byteBuffer = new MappedByteBuffer[blocks];
-		int start = 0;
-		long remain = 0;
-		int size = 0;
 		for (int i = 0; i < blocks; i++) {
-			start = Integer.MAX_VALUE * i;
-			remain = (long) (fc.size() - start);
-			size = (int) ((remain > Integer.MAX_VALUE) ? Integer.MAX_VALUE : remain);
-			MappedByteBuffer mapedBB = fc.map(MapMode.READ_ONLY, start, size);
-			byteBuffer[i] = mapedBB;
+			long start = (long) i << SEGMENT_SHIFT;
+			long size = Math.min(SEGMENT_SIZE, fcSize - start);
+			byteBuffer[i] = fc.map(MapMode.READ_ONLY, start, size);
 		}
 		raf.close();
 	}
@@ -91,23 +95,103 @@ public class BioMemoryShare {
 		if (start >= length)
 			throw new OutOfBoundException(length, start);
 
-		byte[] bases;
+		if (end >= length)
+			end = length - 1;
 
-		int posi = start / capacity;
-		int pose;
-		if (end >= length) {
-			pose = (length - 1) / capacity;
-		} else {
-			pose = end / capacity;
-		}
-		bases = new byte[pose - posi + 1];
-		byteBuffer[0].position(posi);
-		byteBuffer[0].get(bases, 0, pose - posi + 1);
-		byteBuffer[0].position(0);
+		byte[] bases = new byte[end / capacity - start / capacity + 1];
+		getBytes(start, end, bases, 0);
 
 		return bases;
 	}
 
+	/**
+	 * copy packed bytes covering [start,end] into caller buffer. Only
+	 * absolute reads are used, so the shared buffer position is never moved
+	 * and this is safe to call from multiple threads.
+	 * 
+	 * @return number of bytes copied
+	 */
+	public int getBytes(int start, int end, byte[] dst, int offset) {
+		if (start >= length)
+			throw new OutOfBoundException(length, start);
+
+		if (end >= length)
+			end = length - 1;
+
+		long posi = start / capacity;
+		long pose = end / capacity;
+		for (long i = posi; i <= pose; i++) {
+			dst[offset++] = getByte(i);
+		}
+
+		return (int) (pose - posi + 1);
+	}
+
+	/**
+	 * absolute read of the packed byte at index, without moving buffer
+	 * position
+	 */
+	public byte getByte(long index) {
+		if (index < 0 || index >= fcSize)
+			throw new OutOfBoundException(String.format("Offset %d out of mapped size %d", index, fcSize));
+		return byteBuffer[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+	}
+
+	/**
+	 * bulk absolute read of count bytes from index into dst, may span
+	 * segments; buffer positions are not moved
+	 */
+	public void getBytes(long index, byte[] dst, int offset, int count) {
+		if (index < 0 || index + count > fcSize)
+			throw new OutOfBoundException(String.format("Range %d+%d out of mapped size %d", index, count, fcSize));
+		while (count > 0) {
+			int segmentOffset = (int) (index & SEGMENT_MASK);
+			int n = (int) Math.min(count, SEGMENT_SIZE - segmentOffset);
+			ByteBuffer segment = byteBuffer[(int) (index >>> SEGMENT_SHIFT)].duplicate();
+			segment.position(segmentOffset);
+			segment.get(dst, offset, n);
+			index += n;
+			offset += n;
+			count -= n;
+		}
+	}
+
+	/**
+	 * absolute big-endian read of int at index, may span two segments
+	 */
+	public int getInt(long index) {
+		int offset = (int) (index & SEGMENT_MASK);
+		if (index >= 0 && index + Integer.BYTES <= fcSize && offset + Integer.BYTES <= SEGMENT_SIZE)
+			return byteBuffer[(int) (index >>> SEGMENT_SHIFT)].getInt(offset);
+
+		int value = 0;
+		for (int i = 0; i < Integer.BYTES; i++)
+			value = (value << Byte.SIZE) | (getByte(index + i) & 0xff);
+		return value;
+	}
+
+	/**
+	 * absolute big-endian read of long at index, may span two segments
+	 */
+	public long getLong(long index) {
+		int offset = (int) (index & SEGMENT_MASK);
+		if (index >= 0 && index + Long.BYTES <= fcSize && offset + Long.BYTES <= SEGMENT_SIZE)
+			return byteBuffer[(int) (index >>> SEGMENT_SHIFT)].getLong(offset);
+
+		long value = 0;
+		for (int i = 0; i < Long.BYTES; i++)
+			value = (value << Byte.SIZE) | (getByte(index + i) & 0xff);
+		return value;
+	}
+
+	public float getFloat(long index) {
+		return Float.intBitsToFloat(getInt(index));
+	}
+
+	public long getMappedSize() {
+		return fcSize;
+	}
+
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public void clean() throws Exception {
 		for (MappedByteBuffer buffer : byteBuffer) {
@@ -19,9 +19,14 @@ package org.bgi.flexlab.gaea.data.structure.pileup;
 import org.bgi.flexlab.gaea.data.structure.alignment.AlignmentsBasic;
 import org.bgi.flexlab.gaea.data.structure.pileup.filter.PileupFilter;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 public class Mpileup implements MpileupInterface<Pileup>{
 
@@ -31,9 +36,29 @@ public class Mpileup implements MpileupInterface<Pileup>{
 	private ReadsPool readsPool;
 
 	/**
-	 * sample -> pileup
+	 * sample index -> pileup, pileups are kept and reused when a sample becomes empty
 	 */
-	private Map<String, Pileup> pileups = new HashMap<>();
+	private Pileup[] pileups = new Pileup[16];
+
+	/**
+	 * samples with non-empty pileup
+	 */
+	private BitSet activeSamples = new BitSet();
+
+	/**
+	 * samples synchronized to current position
+	 */
+	private BitSet positionSamples = new BitSet();
+
+	/**
+	 * sample name view of active pileups
+	 */
+	private final SamplePileupMap currentPileups = new SamplePileupMap(activeSamples);
+
+	/**
+	 * sample name view of pileups at current position
+	 */
+	private final SamplePileupMap positionPileups = new SamplePileupMap(positionSamples);
 
 	/**
 	 * end of pileup position
@@ -74,11 +99,18 @@ public class Mpileup implements MpileupInterface<Pileup>{
 	 * @param pos position
 	 */
 	protected void addReads2Pileup(AlignmentsBasic read, int pos) {
-		Pileup pileup = pileups.get(read.getSample());
+		int sampleIndex = read.getSampleIndex();
+		if (sampleIndex >= pileups.length)
+			pileups = Arrays.copyOf(pileups, Math.max(sampleIndex + 1, pileups.length * 2));
+
+		Pileup pileup = pileups[sampleIndex];
 		if (pileup == null) {
 			pileup = new Pileup();
+			pileups[sampleIndex] = pileup;
+		}
+		if (!activeSamples.get(sampleIndex)) {
 			pileup.setPosition(pos);
-			pileups.put(read.getSample(), pileup);
+			activeSamples.set(sampleIndex);
 		}
 		pileup.addReads(read);
 	}
@@ -88,16 +120,7 @@ public class Mpileup implements MpileupInterface<Pileup>{
 	 * @return is Empty of all sample pileup
 	 */
 	public boolean allEmpty() {
-		boolean allEmpty = true;
-		for (String sample : pileups.keySet()) {
-			Pileup pileup = pileups.get(sample);
-			if (!pileup.isEmpty()) {
-				allEmpty = false;
-				break;
-			}
-		}
-
-		return allEmpty;
+		return activeSamples.isEmpty();
 	}
 
 	/**
@@ -109,21 +132,16 @@ public class Mpileup implements MpileupInterface<Pileup>{
 	public int forwardPosition(int minPosition, int size) {
 		int minimumPosition = Integer.MAX_VALUE;
 		// forward position
-		@SuppressWarnings("rawtypes")
-		java.util.Iterator it = pileups.entrySet().iterator();
-		while(it.hasNext()){
-			@SuppressWarnings("rawtypes")
-			java.util.Map.Entry entry = (java.util.Map.Entry) it.next();
-			Pileup pileup = (Pileup)entry.getValue();
+		for (int i = activeSamples.nextSetBit(0); i >= 0; i = activeSamples.nextSetBit(i + 1)) {
+			Pileup pileup = pileups[i];
 			if (pileup.getPosition() == minPosition) {
 				pileup.forwardPosition(size);
 			}
 
-			if(pileup.getPosition() < minimumPosition && !pileup.isEmpty())
+			if (pileup.isEmpty())
+				activeSamples.clear(i);
+			else if (pileup.getPosition() < minimumPosition)
 				minimumPosition = pileup.getPosition();
-			else if(pileup.isEmpty()){
-				it.remove();
-			}
 		}
 
 		return minimumPosition;
@@ -161,55 +179,47 @@ public class Mpileup implements MpileupInterface<Pileup>{
 	}
 
 	/**
-	 *
+	 * calculate base info of pileups at minPosition
 	 * @param minPosition
-	 * @param posPlps
-	 */
-	public void syn(int minPosition,Map<String, Pileup> posPlps) {
-		@SuppressWarnings("rawtypes")
-		Iterator it = pileups.entrySet().iterator();
-		while(it.hasNext()){
-			@SuppressWarnings("rawtypes")
-			java.util.Map.Entry entry = (java.util.Map.Entry) it.next();
-			Pileup plp = (Pileup)entry.getValue();
+	 */
+	public void syn(int minPosition) {
+		positionSamples.clear();
+		for (int i = activeSamples.nextSetBit(0); i >= 0; i = activeSamples.nextSetBit(i + 1)) {
+			Pileup plp = pileups[i];
 			if (plp.getPosition() == minPosition) {
 				plp.calculateBaseInfo();
 				if(filter != null) {
-					plp.setFilterPileup(filter.filter(plp));
+					filter.filter(plp.getColumns());
 				}
-				String sample = (String)entry.getKey();
-				posPlps.put(sample, plp);
+				positionSamples.set(i);
 			}
 		}
 	}
 
-
+	/**
+	 * @return pileups at next position, the map is a view reused across positions
+	 */
 	public Map<String, Pileup> getNextPosPileup() {
 		if (position > end)
 			return null;
-		//System.err.println("forward position:" + position);
 		int minPosition = forwardPosition(position, 1);
-		//System.err.println("add reads:" + minPosition);
 		position = addReads(minPosition);
 
 		if (minPosition != Integer.MAX_VALUE && position != minPosition)
 			throw new RuntimeException("error in" + position + "\t" + minPosition);
 		if (position > end || allEmpty())
 			return null;
-		//System.err.println("syn pileups:" + position);
-		Map<String, Pileup> posPlps = new HashMap<String, Pileup>();
-		syn(position, posPlps);
+		syn(position);
 
-		return posPlps;
+		return positionPileups;
 	}
 
 	public int getMinPositionInPlp() {
 		int minPosition = Integer.MAX_VALUE;
 
-		for (String sample : pileups.keySet()) {
-			Pileup pileup = pileups.get(sample);
-			if (minPosition > pileup.getPosition() && !pileup.isEmpty()) {
-				minPosition = pileup.getPosition();
+		for (int i = activeSamples.nextSetBit(0); i >= 0; i = activeSamples.nextSetBit(i + 1)) {
+			if (minPosition > pileups[i].getPosition()) {
+				minPosition = pileups[i].getPosition();
 			}
 		}
 
@@ -219,7 +229,8 @@ public class Mpileup implements MpileupInterface<Pileup>{
 	public Pileup joinPileups() {
 		Pileup joinedPileup = new Pileup();
 		joinedPileup.setPosition(position);
-		for(Pileup pileup : pileups.values()) {
+		for (int i = activeSamples.nextSetBit(0); i >= 0; i = activeSamples.nextSetBit(i + 1)) {
+			Pileup pileup = pileups[i];
 			if(joinedPileup.getFilteredPileup() != null)
 				joinedPileup.getFilteredPileup().addAll(pileup.getFilteredPileup());
 			joinedPileup.getTotalPileup().addAll(pileup.getTotalPileup());
@@ -227,8 +238,24 @@ public class Mpileup implements MpileupInterface<Pileup>{
 		return joinedPileup;
 	}
 
+	/**
+	 * @return sample name view of active pileups
+	 */
 	public Map<String, Pileup> getCurrentPosPileup() {
-		return pileups;
+		return currentPileups;
+	}
+
+	/**
+	 * @return pileup of sample index, null if the sample has no reads here
+	 */
+	public Pileup getPileup(int sampleIndex) {
+		if (!activeSamples.get(sampleIndex))
+			return null;
+		return pileups[sampleIndex];
+	}
+
+	public BitSet getActiveSamples() {
+		return activeSamples;
 	}
 
 	public int getPosition() {
@@ -236,19 +263,90 @@ public class Mpileup implements MpileupInterface<Pileup>{
 	}
 
 	public int getSize() {
-		return pileups.size();
+		return activeSamples.cardinality();
 	}
 	
 	public void clear(){
-		pileups.clear();
+		activeSamples.clear();
+		positionSamples.clear();
+		Arrays.fill(pileups, null);
 	}
 
 	public int totalDepth(boolean isFiltered) {
 		int depth = 0;
-		for(String sample : pileups.keySet()) {
-			depth += pileups.get(sample).depthOfCoverage(isFiltered);
+		for (int i = activeSamples.nextSetBit(0); i >= 0; i = activeSamples.nextSetBit(i + 1)) {
+			depth += pileups[i].depthOfCoverage(isFiltered);
 		}
 		return depth;
 	}
-}
 
+	/**
+	 * read only sample name -> pileup view over a sample bitset, names are
+	 * only resolved when callers use the map
+	 */
+	private class SamplePileupMap extends AbstractMap<String, Pileup> {
+		private final BitSet samples;
+
+		private final Set<Map.Entry<String, Pileup>> entrySet = new AbstractSet<Map.Entry<String, Pileup>>() {
+			@Override
+			public Iterator<Map.Entry<String, Pileup>> iterator() {
+				return new Iterator<Map.Entry<String, Pileup>>() {
+					private int next = samples.nextSetBit(0);
+
+					@Override
+					public boolean hasNext() {
+						return next >= 0;
+					}
+
+					@Override
+					public Map.Entry<String, Pileup> next() {
+						if (next < 0)
+							throw new NoSuchElementException();
+						int index = next;
+						next = samples.nextSetBit(next + 1);
+						return new AbstractMap.SimpleImmutableEntry<>(AlignmentsBasic.getSampleName(index), pileups[index]);
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return samples.cardinality();
+			}
+		};
+
+		SamplePileupMap(BitSet samples) {
+			this.samples = samples;
+		}
+
+		@Override
+		public Set<Map.Entry<String, Pileup>> entrySet() {
+			return entrySet;
+		}
+
+		@Override
+		public Pileup get(Object sample) {
+			if (!(sample instanceof String))
+				return null;
+			int index = AlignmentsBasic.getSampleIndex((String) sample);
+			if (index < 0 || !samples.get(index))
+				return null;
+			return pileups[index];
+		}
+
+		@Override
+		public boolean containsKey(Object sample) {
+			return get(sample) != null;
+		}
+
+		@Override
+		public int size() {
+			return samples.cardinality();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return samples.isEmpty();
+		}
+	}
+}
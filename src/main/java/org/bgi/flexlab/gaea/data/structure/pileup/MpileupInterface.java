@@ -28,7 +28,7 @@ public interface MpileupInterface<T extends PileupInterface<PileupReadInfo>>{
 
     int forwardPosition(int minPosition, int size);
 
-    void syn(int minPosition,Map<String, T> posPlps);
+    void syn(int minPosition);
 
     int addReads(int minPosition);
 
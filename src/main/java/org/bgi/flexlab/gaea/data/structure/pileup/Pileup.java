@@ -31,10 +31,15 @@ public class Pileup implements PileupInterface<PileupReadInfo> {
 	private ArrayList<PileupReadInfo> plp;
 
 	/**
-	 * filtered pileup
+	 * filtered pileup, built from the columns filter mask when asked for
 	 */
 	private ArrayList<PileupReadInfo> filterPileup;
 
+	/**
+	 * primitive columns of current position, reused across positions
+	 */
+	private PileupColumns columns = new PileupColumns();
+
 	/**
 	 * position
 	 */
@@ -90,14 +95,18 @@ public class Pileup implements PileupInterface<PileupReadInfo> {
 	 * remove proccessed reads
 	 */
 	public void remove() {
+		int kept = 0;
 		for (int i = 0; i < plp.size(); i++) {
 			PileupReadInfo posRead = plp.get(i);
 
-			if (position > posRead.getEnd()) {
-				plp.remove(i);
-				i--;
+			if (position <= posRead.getEnd()) {
+				if (kept != i)
+					plp.set(kept, posRead);
+				kept++;
 			}
 		}
+		for (int i = plp.size() - 1; i >= kept; i--)
+			plp.remove(i);
 	}
 
 	/**
@@ -121,18 +130,23 @@ public class Pileup implements PileupInterface<PileupReadInfo> {
 		deletionCount = 0;
 		nextDeletionCount = 0;
 		nextInsertionCount = 0;
+		nextMatchCount = 0;
 		if (position != Integer.MAX_VALUE) {
-			filterPileup = new ArrayList<>();
+			filterPileup = null;
+			columns.reset(plp.size());
 			for (int i = 0; i < plp.size(); i++) {
 				PileupReadInfo posRead = plp.get(i);
 				posRead.calculateQueryPosition(position);
-				if (posRead.isDeletionBase())
+				columns.set(i, posRead);
+
+				byte flags = columns.getFlags(i);
+				if ((flags & PileupColumns.DELETION) != 0)
 					deletionCount++;
-				if (posRead.isNextDeletionBase())
+				if ((flags & PileupColumns.NEXT_DELETION) != 0)
 					nextDeletionCount++;
-				if (posRead.isNextInsertBase())
+				if ((flags & PileupColumns.NEXT_INSERTION) != 0)
 					nextInsertionCount++;
-				if (posRead.isNextMatchBase())
+				if ((flags & PileupColumns.NEXT_MATCH) != 0)
 					nextMatchCount++;
 			}
 		}
@@ -158,6 +172,9 @@ public class Pileup implements PileupInterface<PileupReadInfo> {
 	 * @return coverage depth
 	 */
 	public int depthOfCoverage(boolean isFiltered) {
+		if(isFiltered && filterPileup == null)
+			return columns.getFilteredCount();
+
 		ArrayList<PileupReadInfo> pileupElements = plp;
 		if(isFiltered)
 			pileupElements = filterPileup;
@@ -212,9 +229,20 @@ public class Pileup implements PileupInterface<PileupReadInfo> {
 
 
 	public ArrayList<PileupReadInfo> getFilteredPileup() {
+		if (filterPileup == null) {
+			filterPileup = new ArrayList<>(columns.getFilteredCount());
+			for (int i = 0; i < columns.size(); i++) {
+				if (columns.isPassFilter(i))
+					filterPileup.add(plp.get(i));
+			}
+		}
 		return filterPileup;
 	}
 
+	public PileupColumns getColumns() {
+		return columns;
+	}
+
 	public void setFilterPileup(ArrayList<PileupReadInfo> filterPileup) {
 		this.filterPileup = filterPileup;
 	}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.structure.pileup;
+
+import java.util.Arrays;
+
+/**
+ * primitive column view of a pileup at its current position. Arrays are
+ * reused across positions and only grow, element i describes the i-th read of
+ * the pileup's total read list.
+ */
+public class PileupColumns {
+	public final static byte DELETION = 0x1;
+	public final static byte NEXT_DELETION = 0x2;
+	public final static byte NEXT_INSERTION = 0x4;
+	public final static byte NEXT_MATCH = 0x8;
+	public final static byte REVERSE_STRAND = 0x10;
+
+	private int size = 0;
+
+	/* binary 4bits base, -1 for no base */
+	private byte[] bases;
+
+	private byte[] qualities;
+
+	private short[] mappingQualities;
+
+	/* query position on read */
+	private int[] offsets;
+
+	private byte[] flags;
+
+	/* bit i set : read i passed pileup filter */
+	private long[] filterMask;
+
+	private int filteredCount;
+
+	public PileupColumns() {
+		allocate(64);
+	}
+
+	private void allocate(int capacity) {
+		bases = new byte[capacity];
+		qualities = new byte[capacity];
+		mappingQualities = new short[capacity];
+		offsets = new int[capacity];
+		flags = new byte[capacity];
+		filterMask = new long[(capacity + 63) >>> 6];
+	}
+
+	/**
+	 * reset for a new position with size reads, all reads pass filter
+	 */
+	public void reset(int size) {
+		if (size > bases.length)
+			allocate(Math.max(size, bases.length * 2));
+		this.size = size;
+		int words = (size + 63) >>> 6;
+		Arrays.fill(filterMask, 0, words, -1L);
+		if (size % 64 != 0)
+			filterMask[words - 1] = (1L << size) - 1;
+		filteredCount = size;
+	}
+
+	public void set(int i, PileupReadInfo read) {
+		bases[i] = read.getBinaryBase();
+		qualities[i] = read.getBaseQuality();
+		mappingQualities[i] = (short) read.getMappingQuality();
+		offsets[i] = read.getQpos();
+
+		byte flag = 0;
+		if (read.isDeletionBase())
+			flag |= DELETION;
+		if (read.isNextDeletionBase())
+			flag |= NEXT_DELETION;
+		if (read.isNextInsertBase())
+			flag |= NEXT_INSERTION;
+		if (read.isNextMatchBase())
+			flag |= NEXT_MATCH;
+		if (read.getReadInfo().isReverse())
+			flag |= REVERSE_STRAND;
+		flags[i] = flag;
+	}
+
+	public void filterOut(int i) {
+		long bit = 1L << i;
+		if ((filterMask[i >>> 6] & bit) != 0) {
+			filterMask[i >>> 6] &= ~bit;
+			filteredCount--;
+		}
+	}
+
+	public boolean isPassFilter(int i) {
+		return (filterMask[i >>> 6] & (1L << i)) != 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getFilteredCount() {
+		return filteredCount;
+	}
+
+	public byte getBinaryBase(int i) {
+		return bases[i];
+	}
+
+	public byte getBaseQuality(int i) {
+		return qualities[i];
+	}
+
+	public short getMappingQuality(int i) {
+		return mappingQualities[i];
+	}
+
+	public int getOffset(int i) {
+		return offsets[i];
+	}
+
+	public boolean isDeletionBase(int i) {
+		return (flags[i] & DELETION) != 0;
+	}
+
+	public boolean isReverseStrand(int i) {
+		return (flags[i] & REVERSE_STRAND) != 0;
+	}
+
+	public byte getFlags(int i) {
+		return flags[i];
+	}
+}
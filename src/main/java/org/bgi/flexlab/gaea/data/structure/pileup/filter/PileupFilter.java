@@ -1,6 +1,7 @@
 package org.bgi.flexlab.gaea.data.structure.pileup.filter;
 
 import org.bgi.flexlab.gaea.data.structure.pileup.Pileup;
+import org.bgi.flexlab.gaea.data.structure.pileup.PileupColumns;
 import org.bgi.flexlab.gaea.data.structure.pileup.PileupReadInfo;
 
 import java.util.ArrayList;
@@ -10,4 +11,9 @@ import java.util.ArrayList;
  */
 public interface PileupFilter {
     ArrayList<PileupReadInfo> filter(Pileup pileup);
+
+    /**
+     * clear the filter mask bit of reads that do not pass
+     */
+    void filter(PileupColumns columns);
 }
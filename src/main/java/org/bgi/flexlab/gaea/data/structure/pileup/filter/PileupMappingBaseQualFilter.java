@@ -1,6 +1,7 @@
 package org.bgi.flexlab.gaea.data.structure.pileup.filter;
 
 import org.bgi.flexlab.gaea.data.structure.pileup.Pileup;
+import org.bgi.flexlab.gaea.data.structure.pileup.PileupColumns;
 import org.bgi.flexlab.gaea.data.structure.pileup.PileupReadInfo;
 
 import java.util.ArrayList;
@@ -31,4 +32,13 @@ public class PileupMappingBaseQualFilter implements PileupFilter{
         }
         return filterPileup;
     }
+
+    @Override
+    public void filter(PileupColumns columns) {
+        for(int i = 0; i < columns.size(); i++) {
+            if(columns.getMappingQuality(i) < minMappingQuality || (!columns.isDeletionBase(i) && columns.getBaseQuality(i) < minBaseQuality)) {
+                columns.filterOut(i);
+            }
+        }
+    }
 }
@@ -16,6 +16,11 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.data.structure.positioninformation;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
 public class BooleanPositionInformation {
 	protected boolean info[];
 	
@@ -26,4 +31,35 @@ public class BooleanPositionInformation {
 	public boolean get(int i) {
 		return info[i];
 	}
+	
+	public void merge(BooleanPositionInformation other, int from, int to) {
+		for(int i = from; i < to; i++)
+			info[i] |= other.info[i];
+	}
+	
+	public void clear(int from, int to) {
+		Arrays.fill(info, from, to, false);
+	}
+	
+	/**
+	 * write values of [from, to) packed 8 per byte
+	 */
+	public void write(DataOutput out, int from, int to) throws IOException {
+		for(int i = from; i < to; i += 8) {
+			int b = 0;
+			for(int j = 0; j < 8 && i + j < to; j++) {
+				if(info[i + j])
+					b |= 1 << j;
+			}
+			out.writeByte(b);
+		}
+	}
+	
+	public void readFields(DataInput in, int from, int to) throws IOException {
+		for(int i = from; i < to; i += 8) {
+			int b = in.readUnsignedByte();
+			for(int j = 0; j < 8 && i + j < to; j++)
+				info[i + j] = (b & (1 << j)) != 0;
+		}
+	}
 }
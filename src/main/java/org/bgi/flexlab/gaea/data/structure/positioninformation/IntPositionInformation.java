@@ -16,6 +16,13 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.data.structure.positioninformation;
 
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
 public class IntPositionInformation {
 	protected int info[];
 	
@@ -26,4 +33,26 @@ public class IntPositionInformation {
 	public int get(int i) {
 		return info[i];
 	}
+	
+	public void merge(IntPositionInformation other, int from, int to) {
+		for(int i = from; i < to; i++)
+			info[i] += other.info[i];
+	}
+	
+	public void clear(int from, int to) {
+		Arrays.fill(info, from, to, 0);
+	}
+	
+	/**
+	 * write values of [from, to) as vint, depth is small so mostly one byte
+	 */
+	public void write(DataOutput out, int from, int to) throws IOException {
+		for(int i = from; i < to; i++)
+			WritableUtils.writeVInt(out, info[i]);
+	}
+	
+	public void readFields(DataInput in, int from, int to) throws IOException {
+		for(int i = from; i < to; i++)
+			info[i] = WritableUtils.readVInt(in);
+	}
 }
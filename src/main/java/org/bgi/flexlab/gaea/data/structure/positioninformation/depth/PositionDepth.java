@@ -25,6 +25,10 @@ import org.bgi.flexlab.gaea.data.structure.positioninformation.other.PositionMis
 import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
 import org.bgi.flexlab.gaea.util.SamRecordDatum;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class PositionDepth implements CalculateWindowInformationInterface<SamRecordDatum>{
 	
 	private PositionDepthSamtools[] depths = null;
@@ -43,7 +47,10 @@ public class PositionDepth implements CalculateWindowInformationInterface<SamRec
 	
 	private PositionDeletionBaseInformation deletionBaseWithNOCover = null;
 	
+	private int windowSize;
+	
 	public PositionDepth(int windowSize) {
+		this.windowSize = windowSize;
 		posDepth = new PositionDepthNormal(windowSize);
 		isIndel = new PositionIndelInformation(windowSize);
 		isMismatch = new PositionMismatchInformation(windowSize);
@@ -110,6 +117,81 @@ public class PositionDepth implements CalculateWindowInformationInterface<SamRec
 		return true;
 	}
 	
+	/**
+	 * add depth of another window over [from, to), windows built on the map
+	 * side are merged in reducer
+	 * 
+	 * deletion base without cover is or-ed, it is only read where the merged
+	 * depth is zero, so every part had zero depth there as well.
+	 */
+	public void merge(PositionDepth other, int from, int to) {
+		posDepth.merge(other.posDepth, from, to);
+		if(posRMDupDepth != null && other.posRMDupDepth != null)
+			posRMDupDepth.merge(other.posRMDupDepth, from, to);
+		if(genderUesdDepth != null && other.genderUesdDepth != null)
+			genderUesdDepth.merge(other.genderUesdDepth, from, to);
+		if(cnvUsedDepth != null && other.cnvUsedDepth != null)
+			cnvUsedDepth.merge(other.cnvUsedDepth, from, to);
+		isIndel.merge(other.isIndel, from, to);
+		isMismatch.merge(other.isMismatch, from, to);
+		deletionBaseWithNOCover.merge(other.deletionBaseWithNOCover, from, to);
+	}
+	
+	public void clear(int from, int to) {
+		posDepth.clear(from, to);
+		if(posRMDupDepth != null)
+			posRMDupDepth.clear(from, to);
+		if(genderUesdDepth != null)
+			genderUesdDepth.clear(from, to);
+		if(cnvUsedDepth != null)
+			cnvUsedDepth.clear(from, to);
+		isIndel.clear(from, to);
+		isMismatch.clear(from, to);
+		deletionBaseWithNOCover.clear(from, to);
+	}
+	
+	/**
+	 * write [from, to) of all depth arrays, the reader must be created with
+	 * the same window size, gender depth and lane size
+	 */
+	public void write(DataOutput out, int from, int to) throws IOException {
+		posDepth.write(out, from, to);
+		if(posRMDupDepth != null)
+			posRMDupDepth.write(out, from, to);
+		if(genderUesdDepth != null)
+			genderUesdDepth.write(out, from, to);
+		if(cnvUsedDepth != null)
+			cnvUsedDepth.write(out, from, to);
+		isIndel.write(out, from, to);
+		isMismatch.write(out, from, to);
+		deletionBaseWithNOCover.write(out, from, to);
+	}
+	
+	public void readFields(DataInput in, int from, int to) throws IOException {
+		posDepth.readFields(in, from, to);
+		if(posRMDupDepth != null)
+			posRMDupDepth.readFields(in, from, to);
+		if(genderUesdDepth != null)
+			genderUesdDepth.readFields(in, from, to);
+		if(cnvUsedDepth != null)
+			cnvUsedDepth.readFields(in, from, to);
+		isIndel.readFields(in, from, to);
+		isMismatch.readFields(in, from, to);
+		deletionBaseWithNOCover.readFields(in, from, to);
+	}
+	
+	public int getWindowSize() {
+		return windowSize;
+	}
+	
+	public boolean isGenderDepth() {
+		return genderUesdDepth != null;
+	}
+	
+	public int getLaneSize() {
+		return cnvUsedDepth == null ? 0 : cnvUsedDepth.getLaneSize();
+	}
+	
 	public int getPosDepth(int i) {
 		return posDepth.get(i);
 	}
@@ -20,6 +20,9 @@ import org.bgi.flexlab.gaea.data.structure.positioninformation.CalculatePosition
 import org.bgi.flexlab.gaea.data.structure.positioninformation.CompoundInformation;
 import org.bgi.flexlab.gaea.util.SamRecordDatum;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -42,21 +45,56 @@ public class PositionDepthCNV implements CalculatePositionInforamtionInterface<S
 	public void add(CompoundInformation<SamRecordDatum> posInfo) {
 		if(posInfo.eligiblePos() ) {
 				//readInfo.getMappingQual() >= 10 && readInfo.getQualValue(readPosition) >= 15) {
-			int depthIndex = 0;
-			if(rgIndex2depthIndex.containsKey(posInfo.getRgIndex())) {
-				depthIndex = rgIndex2depthIndex.get(posInfo.getRgIndex());
-			} else {
-				depthIndex = cnvDepthIndex;
-				if(cnvDepthIndex >= laneSize){
-					throw new RuntimeException("input data has more lane than BAM header!");
-				}
-				rgIndex2depthIndex.put(posInfo.getRgIndex(), cnvDepthIndex++);
-			}
-			PositionDepthCNVLane cnvLaneDepth = cnvUsedDepth.get(depthIndex);
+			PositionDepthCNVLane cnvLaneDepth = cnvUsedDepth.get(getDepthIndex(posInfo.getRgIndex()));
 			cnvLaneDepth.add(posInfo.distBetweenRefPosAndWinStart());
 		}
 	}
 	
+	private int getDepthIndex(int rgIndex) {
+		Integer depthIndex = rgIndex2depthIndex.get(rgIndex);
+		if(depthIndex == null) {
+			if(cnvDepthIndex >= laneSize){
+				throw new RuntimeException("input data has more lane than BAM header!");
+			}
+			depthIndex = cnvDepthIndex++;
+			rgIndex2depthIndex.put(rgIndex, depthIndex);
+		}
+		return depthIndex;
+	}
+	
+	/**
+	 * lanes are matched by read group index, the lane order of two windows may differ
+	 */
+	public void merge(PositionDepthCNV other, int from, int to) {
+		for(Map.Entry<Integer, Integer> entry : other.rgIndex2depthIndex.entrySet()) {
+			cnvUsedDepth.get(getDepthIndex(entry.getKey())).merge(other.cnvUsedDepth.get(entry.getValue()), from, to);
+		}
+	}
+	
+	public void clear(int from, int to) {
+		for(int i = 0; i < cnvDepthIndex; i++)
+			cnvUsedDepth.get(i).clear(from, to);
+		rgIndex2depthIndex.clear();
+		cnvDepthIndex = 0;
+	}
+	
+	public void write(DataOutput out, int from, int to) throws IOException {
+		out.writeInt(rgIndex2depthIndex.size());
+		for(Map.Entry<Integer, Integer> entry : rgIndex2depthIndex.entrySet()) {
+			out.writeInt(entry.getKey());
+			cnvUsedDepth.get(entry.getValue()).write(out, from, to);
+		}
+	}
+	
+	public void readFields(DataInput in, int from, int to) throws IOException {
+		rgIndex2depthIndex.clear();
+		cnvDepthIndex = 0;
+		int size = in.readInt();
+		for(int i = 0; i < size; i++) {
+			cnvUsedDepth.get(getDepthIndex(in.readInt())).readFields(in, from, to);
+		}
+	}
+	
 	public int getLaneSize() {
 		return laneSize;
 	}
@@ -36,10 +36,9 @@ public class BaseAndSNPInformation {
 		_end--;
 
 		this.start = _start;
-		byte[] bases = chrInfo.getBytes(_start, _end);
 
-		sequences = chrInfo.getBaseSequence(bases, _start, _end);
-		snps = chrInfo.isSNPs(bases, _start, _end);
+		sequences = chrInfo.getBaseSequence(_start, _end);
+		snps = chrInfo.isSNPs(_start, _end);
 	}
 
 	public boolean[] getSNPs() {
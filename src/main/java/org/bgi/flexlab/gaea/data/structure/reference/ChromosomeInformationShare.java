@@ -16,9 +16,12 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.data.structure.reference;
 
+import org.bgi.flexlab.gaea.data.exception.OutOfBoundException;
 import org.bgi.flexlab.gaea.data.structure.memoryshare.BioMemoryShare;
 import org.bgi.flexlab.gaea.util.SystemConfiguration;
 
+import java.util.BitSet;
+
 /**
  * 染色体信息共享内存
  * 
@@ -38,13 +41,73 @@ public class ChromosomeInformationShare extends BioMemoryShare {
 	 * @return base
 	 */
 	public byte getBinaryBase(int pos) {
-		byte curr = getBytes(pos, pos)[0];
+		if (pos < 0 || pos >= length)
+			throw new OutOfBoundException(length, pos);
+
+		return decode(getByte(pos / capacity), pos);
+	}
 
+	private static byte decode(byte curr, int pos) {
 		if ((pos & 0x1) == 0)
 			return (byte) (curr & 0x0f);
 		return (byte) ((curr >> 4) & 0x0f);
 	}
 
+	/**
+	 * fill binary bases (with snp flag bit) of [start,end] into caller buffer
+	 * 
+	 * @return number of bases filled
+	 */
+	public int getBinaryBases(int start, int end, byte[] dst, int offset) {
+		if (start < 0 || start >= length)
+			throw new OutOfBoundException(length, start);
+		if (end >= length)
+			end = length - 1;
+
+		for (int i = start; i <= end; i++)
+			dst[offset++] = decode(getByte(i / capacity), i);
+
+		return end - start + 1;
+	}
+
+	/**
+	 * fill fasta bases of [start,end] into caller buffer
+	 * 
+	 * @return number of bases filled
+	 */
+	public int getBaseBytes(int start, int end, byte[] dst, int offset) {
+		if (start < 0 || start >= length)
+			throw new OutOfBoundException(length, start);
+		if (end >= length)
+			end = length - 1;
+
+		for (int i = start; i <= end; i++)
+			dst[offset++] = (byte) SystemConfiguration.getFastaAbb(decode(getByte(i / capacity), i));
+
+		return end - start + 1;
+	}
+
+	/**
+	 * set snp flags of [start,end] into caller bitset, bit index is (pos -
+	 * start)
+	 * 
+	 * @return number of positions checked
+	 */
+	public int getSNPs(int start, int end, BitSet snps) {
+		if (start < 0 || start >= length)
+			throw new OutOfBoundException(length, start);
+		if (end >= length)
+			end = length - 1;
+
+		snps.clear();
+		for (int i = start; i <= end; i++) {
+			if (((decode(getByte(i / capacity), i) >> 3) & 0x1) == 1)
+				snps.set(i - start);
+		}
+
+		return end - start + 1;
+	}
+
 	/**
 	 * 获取碱基
 	 */
@@ -64,8 +127,11 @@ public class ChromosomeInformationShare extends BioMemoryShare {
 		if(end >= length)
 			end = length - 1;
 		
-		byte[] bases = getBytes(start, end);
-		return isSNPs(bases, start, end);
+		boolean[] snps = new boolean[end - start + 1];
+		for (int i = start; i <= end; i++)
+			snps[i - start] = ((decode(getByte(i / capacity), i) >> 3) & 0x1) == 1;
+
+		return snps;
 	}
 	
 	public boolean[] isSNPs(byte[] bases,int start,int end){
@@ -100,8 +166,11 @@ public class ChromosomeInformationShare extends BioMemoryShare {
 		if(end >= length)
 			end = length -1;
 		
-		byte[] bases = getBytes(start, end);
-		return getBaseSequence(bases, start, end);
+		StringBuilder seq = new StringBuilder(end - start + 1);
+		for (int i = start; i <= end; i++)
+			seq.append(SystemConfiguration.getFastaAbb(decode(getByte(i / capacity), i)));
+
+		return seq.toString();
 	}
 	
 	public String getBaseSequence(byte[] bases,int start,int end){
@@ -129,7 +198,12 @@ public class ChromosomeInformationShare extends BioMemoryShare {
 	}
 
 	public byte[] getBaseBytes(int start, int end) {
-		return getBaseSequence(start, end).getBytes();
+		if (end >= length)
+			end = length - 1;
+
+		byte[] bases = new byte[end - start + 1];
+		getBaseBytes(start, end, bases, 0);
+		return bases;
 	}
 
 	/**
@@ -17,6 +17,7 @@
 package org.bgi.flexlab.gaea.data.structure.reference.index;
 
 import htsjdk.variant.variantcontext.VariantContext;
+import org.bgi.flexlab.gaea.data.structure.dbsnp.KnownSitesBuilder;
 import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformation;
 import org.bgi.flexlab.gaea.data.structure.vcf.AbstractVCFLoader.PositionalVariantContext;
 import org.bgi.flexlab.gaea.data.structure.vcf.VCFLocalLoader;
@@ -58,6 +59,15 @@ public class VcfIndex extends ReferenceIndex {
 		}
 	}
 
+	private void saveKnownSites(String outputPath, String chrName, KnownSitesBuilder sites) {
+		try {
+			sites.write(outputPath + "/" + chrName + KnownSitesBuilder.SUFFIX);
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString());
+		}
+		sites.clear();
+	}
+
 	private void fileWriter(FileWriter bnListWriter, String outputPath, String lastChrName, int lastLength) {
 		try {
 			bnListWriter.write(lastChrName);
@@ -86,6 +96,7 @@ public class VcfIndex extends ReferenceIndex {
 		int lastLength = -1;
 		ChromosomeInformation curChrInfo = null;
 		byte[] binaryIndex = null;
+		KnownSitesBuilder sites = new KnownSitesBuilder();
 
 		String dbsnpList = dbsnpPath + INDEX_SUFFIX;
 		FileWriter bnListWriter = null;
@@ -119,6 +130,7 @@ public class VcfIndex extends ReferenceIndex {
 					} catch (IOException e) {
 						throw new RuntimeException(e.toString());
 					}
+					saveKnownSites(outputPath, lastChrName, sites);
 					fileWriter(bnListWriter, outputPath, lastChrName, lastLength);
 				}
 				
@@ -138,6 +150,7 @@ public class VcfIndex extends ReferenceIndex {
 			}
 
 			insertSnpInformation(curChrInfo, context, binaryIndex);
+			sites.add(context);
 		}
 
 		try {
@@ -145,6 +158,7 @@ public class VcfIndex extends ReferenceIndex {
 		} catch (IOException e) {
 			throw new RuntimeException(e.toString());
 		}
+		saveKnownSites(outputPath, lastChrName, sites);
 
 		fileWriter(bnListWriter, outputPath, lastChrName, lastLength);
 
@@ -18,21 +18,19 @@ package org.bgi.flexlab.gaea.data.structure.region;
 
 import htsjdk.samtools.SAMRecord;
 
-import java.util.ArrayList;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.HashSet;
+import java.util.Set;
 
 public class Region {
 	
-	protected final static String INDEX_SEPARATOR = ".";
 	/**
-	 * 数据结构，方便查找:winID->[start,end],[start,end]...
+	 * 数据结构，方便查找:chrName->sorted merged [start,end]...
 	 */
-	protected Map<String, ArrayList<Integer[]>> index;
+	protected RegionIntervalIndex index;
 	/**
 	 * 染色体标志，表示此条染色体已经全在区域内
 	 */
-	protected ArrayList<String> chrs;
+	protected Set<String> chrs;
 	/**
 	 * 区域大小
 	 */
@@ -45,8 +43,8 @@ public class Region {
 	protected String chrName;
 	
 	public Region() {
-		chrs = new ArrayList<String>();
-		index = new ConcurrentHashMap<String, ArrayList<Integer[]>>();
+		chrs = new HashSet<String>();
+		index = new RegionIntervalIndex();
 		regionSize = 0;
 	}
 	
@@ -54,20 +52,7 @@ public class Region {
 		if(chrs.contains(chrName)) {
 			return true;
 		}
-		
-		String id = formartID(position, chrName);
-		
-		if(index.containsKey(id)) {
-			//System.out.println(id.toString());
-			int regionNum = index.get(id).size();
-			for(int i = 0; i < regionNum; i++) {
-				if(position >= index.get(id).get(i)[0] && 
-						position <= index.get(id).get(i)[1]){
-					return true;
-				}
-			}
-		}
-		return false;
+		return index.contains(chrName, position);
 	}
 
 	public boolean isSamRecordInRegion(SAMRecord samrecord) {
@@ -75,27 +60,13 @@ public class Region {
 	}
 	
 	public boolean isReadInRegion(String chrName, long start, long end) {
-		if(isPositionInRegion(chrName, start) || isPositionInRegion(chrName, end))
+		if(chrs.contains(chrName)) {
 			return true;
-		else {
-			for(long i = start + 1; i < end; i++) {
-				if(isPositionInRegion(chrName, i))
-					return true;
-			}
 		}
-		return false;
-	}
-	
-	public String formartID(long position, String chrName) {
-		StringBuffer id = new StringBuffer();
-		int winid = (int) position / 1000;
-		id.append(chrName);
-		id.append(INDEX_SEPARATOR);
-		id.append(winid);
-		return id.toString();
+		return index.overlaps(chrName, start, end);
 	}
 	
-	public Map<String, ArrayList<Integer[]>> getIndex(){
+	public RegionIntervalIndex getIndex(){
 		return index;
 	}
 	
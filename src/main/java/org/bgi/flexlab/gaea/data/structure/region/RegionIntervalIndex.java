@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.data.structure.region;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * per chromosome sorted and merged intervals, 0-based and end inclusive.
+ * Intervals may be added in any order, they are sorted and merged before the
+ * first query.
+ */
+public class RegionIntervalIndex {
+	private final Map<String, ChromosomeIntervals> chromosomes = new HashMap<String, ChromosomeIntervals>();
+	private volatile boolean built = true;
+
+	public synchronized void add(String chrName, int start, int end) {
+		ChromosomeIntervals intervals = chromosomes.get(chrName);
+		if (intervals == null) {
+			intervals = new ChromosomeIntervals();
+			chromosomes.put(chrName, intervals);
+		}
+		intervals.add(start, end);
+		built = false;
+	}
+
+	private void ensureBuilt() {
+		if (built)
+			return;
+		synchronized (this) {
+			if (!built) {
+				for (ChromosomeIntervals intervals : chromosomes.values())
+					intervals.build();
+				built = true;
+			}
+		}
+	}
+
+	private ChromosomeIntervals getIntervals(String chrName) {
+		ensureBuilt();
+		return chromosomes.get(chrName);
+	}
+
+	public boolean contains(String chrName, long position) {
+		ChromosomeIntervals intervals = getIntervals(chrName);
+		if (intervals == null || position < 0 || position > Integer.MAX_VALUE)
+			return false;
+		return intervals.find((int) position) >= 0;
+	}
+
+	public boolean overlaps(String chrName, long start, long end) {
+		ChromosomeIntervals intervals = getIntervals(chrName);
+		if (intervals == null || end < 0 || start > Integer.MAX_VALUE)
+			return false;
+		return intervals.overlaps((int) Math.max(start, 0), (int) Math.min(end, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * @return merged interval {start, end} containing position, or null
+	 */
+	public int[] getInterval(String chrName, long position) {
+		ChromosomeIntervals intervals = getIntervals(chrName);
+		if (intervals == null || position < 0 || position > Integer.MAX_VALUE)
+			return null;
+		int index = intervals.find((int) position);
+		if (index < 0)
+			return null;
+		return new int[] { intervals.starts[index], intervals.ends[index] };
+	}
+
+	public int size(String chrName) {
+		ChromosomeIntervals intervals = getIntervals(chrName);
+		return intervals == null ? 0 : intervals.size;
+	}
+
+	private static class ChromosomeIntervals {
+		private int[] starts = new int[16];
+		private int[] ends = new int[16];
+		private int size = 0;
+		/* index of the last hit, only a hint so concurrent queries may overwrite it */
+		private int cursor = 0;
+
+		private void add(int start, int end) {
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, size << 1);
+				ends = Arrays.copyOf(ends, size << 1);
+			}
+			starts[size] = start;
+			ends[size] = end;
+			size++;
+		}
+
+		private void build() {
+			long[] packed = new long[size];
+			for (int i = 0; i < size; i++)
+				packed[i] = ((long) starts[i] << 32) | (ends[i] & 0xffffffffL);
+			Arrays.sort(packed, 0, size);
+
+			int merged = -1;
+			for (int i = 0; i < size; i++) {
+				int start = (int) (packed[i] >> 32);
+				int end = (int) packed[i];
+				if (merged >= 0 && (long) start <= (long) ends[merged] + 1) {
+					if (end > ends[merged])
+						ends[merged] = end;
+				} else {
+					merged++;
+					starts[merged] = start;
+					ends[merged] = end;
+				}
+			}
+			size = merged + 1;
+			starts = Arrays.copyOf(starts, size);
+			ends = Arrays.copyOf(ends, size);
+			cursor = 0;
+		}
+
+		/**
+		 * index of the last interval starting at or before position, -1 if
+		 * none. Sorted queries are answered from the cursor or the interval
+		 * after it without a binary search.
+		 */
+		private int floor(int position) {
+			int c = cursor;
+			if (c < size && starts[c] <= position) {
+				if (c + 1 == size || starts[c + 1] > position)
+					return c;
+				if (c + 2 == size || starts[c + 2] > position) {
+					cursor = c + 1;
+					return c + 1;
+				}
+			}
+
+			int low = 0, high = size - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (starts[mid] <= position)
+					low = mid + 1;
+				else
+					high = mid - 1;
+			}
+			if (high >= 0)
+				cursor = high;
+			return high;
+		}
+
+		private int find(int position) {
+			int index = floor(position);
+			return index >= 0 && ends[index] >= position ? index : -1;
+		}
+
+		/* intervals are disjoint and sorted, so ends grow with starts */
+		private boolean overlaps(int start, int end) {
+			if (end < start) {
+				int tmp = start;
+				start = end;
+				end = tmp;
+			}
+			int index = floor(end);
+			return index >= 0 && ends[index] >= start;
+		}
+	}
+}
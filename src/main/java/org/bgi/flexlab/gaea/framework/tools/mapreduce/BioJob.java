@@ -19,19 +19,32 @@ package org.bgi.flexlab.gaea.framework.tools.mapreduce;
 import htsjdk.samtools.SAMFileHeader;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.TaskReport;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.util.ReflectionUtils;
 import org.bgi.flexlab.gaea.data.mapreduce.input.bam.GaeaAnySAMInputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
+import org.bgi.flexlab.gaea.data.mapreduce.partitioner.WindowsBasedBalancedPartitioner;
 import org.bgi.flexlab.gaea.data.mapreduce.partitioner.WindowsBasedComparator;
+import org.bgi.flexlab.gaea.data.mapreduce.partitioner.WindowsBasedLoadSampler;
 import org.bgi.flexlab.gaea.data.mapreduce.partitioner.WindowsBasedPartitioner;
 import org.bgi.flexlab.gaea.data.mapreduce.partitioner.WindowsBasedSort;
+import org.bgi.flexlab.gaea.data.mapreduce.partitioner.WindowsBasedSplitTable;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
 import org.bgi.flexlab.gaea.data.structure.bam.filter.util.SamRecordFilter;
 import org.seqdoop.hadoop_bam.SAMFormat;
 
 import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 
 public class BioJob extends Job {
+	private WindowsBasedSplitTable splitTable = null;
 
 	@SuppressWarnings("deprecation")
 	private BioJob(Configuration conf) throws IOException {
@@ -117,4 +130,66 @@ public class BioJob extends Job {
 	public void setHeader(String headerPath) {
 		conf.set(SamHdfsFileHeader.BAM_HEADER_FILE_NAME, headerPath);
 	}
+
+	/*
+	 * replace the window hash partitioner by a split table built from
+	 * sampled input or from a depth profile (bedGraph) of a previous run
+	 */
+	@SuppressWarnings("unchecked")
+	public void setBalancedPartitioner(Path tablePath, String depthProfile, int maxSplits, int recordsPerSplit) {
+		WindowsBasedLoadSampler sampler = new WindowsBasedLoadSampler(conf.getInt(WindowsBasedMapper.WINDOWS_SIZE,
+				10000));
+		try {
+			if (depthProfile != null) {
+				sampler.loadDepthProfile(new Path(depthProfile), conf, SamHdfsFileHeader.getHeader(conf));
+			} else {
+				InputFormat<LongWritable, SamRecordWritable> inputFormat = (InputFormat<LongWritable, SamRecordWritable>) ReflectionUtils
+						.newInstance(getInputFormatClass(), conf);
+				sampler.sampleInput(inputFormat, this, maxSplits, recordsPerSplit);
+			}
+			setBalancedPartitioner(sampler.build(getNumReduceTasks()), tablePath);
+		} catch (IOException | InterruptedException | ClassNotFoundException e) {
+			throw new RuntimeException(e.toString());
+		}
+	}
+
+	public void setBalancedPartitioner(WindowsBasedSplitTable table, Path tablePath) {
+		try {
+			tablePath = tablePath.getFileSystem(conf).makeQualified(tablePath);
+			table.write(tablePath, conf);
+			addCacheFile(new URI(tablePath.toUri() + "#" + WindowsBasedBalancedPartitioner.SPLIT_TABLE_CACHE_NAME));
+		} catch (IOException | URISyntaxException e) {
+			throw new RuntimeException(e.toString());
+		}
+		conf.set(WindowsBasedBalancedPartitioner.SPLIT_TABLE_PATH, tablePath.toString());
+		setPartitionerClass(WindowsBasedBalancedPartitioner.class);
+		splitTable = table;
+	}
+
+	/*
+	 * print expected and actual fraction of reduce input per reducer
+	 */
+	public void reportPartitionLoad() throws IOException, InterruptedException {
+		if (splitTable == null)
+			return;
+		long[] expected = splitTable.getExpectedLoads();
+		long[] actual = new long[expected.length];
+		for (TaskReport report : getTaskReports(TaskType.REDUCE)) {
+			int id = report.getTaskID().getId();
+			if (id < actual.length)
+				actual[id] = report.getTaskCounters().findCounter(TaskCounter.REDUCE_INPUT_RECORDS).getValue();
+		}
+
+		long expectedTotal = 0, actualTotal = 0;
+		for (int i = 0; i < expected.length; i++) {
+			expectedTotal += expected[i];
+			actualTotal += actual[i];
+		}
+		System.err.println("reducer\texpected\tactual");
+		for (int i = 0; i < expected.length; i++) {
+			System.err.println(String.format("%d\t%.4f\t%.4f", i,
+					expectedTotal == 0 ? 0 : (double) expected[i] / expectedTotal,
+					actualTotal == 0 ? 0 : (double) actual[i] / actualTotal));
+		}
+	}
 }
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.framework.tools.mapreduce;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * run windows of a reducer on a thread pool and hand the results back to
+ * the reducer thread in submit order. At most maxPending windows (with their
+ * reads) are held in memory at the same time.
+ */
+public class OrderedWindowsExecutor<R> {
+	public interface Emitter<R> {
+		void emit(R result) throws IOException, InterruptedException;
+	}
+
+	private final ExecutorService executor;
+	private final ArrayDeque<Future<R>> pending = new ArrayDeque<Future<R>>();
+	private final int maxPending;
+	private final Emitter<R> emitter;
+
+	public OrderedWindowsExecutor(int threads, int maxPending, Emitter<R> emitter) {
+		this.executor = Executors.newFixedThreadPool(threads);
+		this.maxPending = Math.max(threads, maxPending);
+		this.emitter = emitter;
+	}
+
+	public void submit(Callable<R> window) throws IOException, InterruptedException {
+		while (pending.size() >= maxPending)
+			emitHead();
+		pending.add(executor.submit(window));
+
+		while (!pending.isEmpty() && pending.peek().isDone())
+			emitHead();
+	}
+
+	private void emitHead() throws IOException, InterruptedException {
+		R result;
+		try {
+			result = pending.poll().get();
+		} catch (ExecutionException e) {
+			executor.shutdownNow();
+			throw new RuntimeException(e.getCause());
+		}
+		emitter.emit(result);
+	}
+
+	/*
+	 * emit all remaining windows and stop the pool
+	 */
+	public void finish() throws IOException, InterruptedException {
+		try {
+			while (!pending.isEmpty())
+				emitHead();
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -75,6 +75,9 @@ class AnnotatorBuild implements Serializable{
 	}
 	
 	void buildForest(){
+		// Select interval tree implementation
+		config.getSnpEffectPredictor().setArrayIntervalIndex(config.isArrayIntervalIndex());
+
 		// Set upstream-downstream interval length
 		config.getSnpEffectPredictor().setUpDownStreamLength(upDownStreamLength);
 
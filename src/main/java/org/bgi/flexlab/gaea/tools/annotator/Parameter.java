@@ -44,6 +44,11 @@ public class Parameter extends GaeaOptions implements Serializable {
 	private boolean debug = false;
 
 	private int mapperNum;
+	private int dbBatchSize;
+	private int dbCacheSize;
+	private String localDBPath = null;
+	private String snapshotPath = null;
+	private boolean arrayIntervalIndex = false;
 
 	public Parameter(){}
 	
@@ -61,6 +66,11 @@ public class Parameter extends GaeaOptions implements Serializable {
 		//addOption("T", "outputType", true,  "output file foramt[txt, vcf].");
 		addOption("m", "mapperNum", true,  "mapper number. [50]");
 		addOption(null,"cacheref",   false,  "DistributedCache reference sequence file list");
+		addOption(null,"dbBatch",    true,  "number of variants whose database rows are fetched together. [1]");
+		addOption(null,"dbCache",    true,  "number of database rows cached in each mapper. [10000]");
+		addOption(null,"localdb",    true,  "directory of local database tables(.kv) to distribute to mappers, for databases of type LOCAL.");
+		addOption(null,"snapshot",   true,  "prebuilt SnpEffectPredictor snapshot, loaded by mappers instead of building from gene info.");
+		addOption(null,"arrayIndex", false, "use flat array interval trees instead of node based interval trees.");
 		addOption(null,"verbose",    false, "display verbose information.");
 		addOption(null,"debug",      false, "for debug.");
 		addOption("h", "help",       false, "help information.");
@@ -86,6 +96,11 @@ public class Parameter extends GaeaOptions implements Serializable {
 	    setMapperNum(getOptionIntValue("mapperNum", 50));
 	    setOutputPath(cmdLine.getOptionValue("output"));
 	    setCachedRef(getOptionBooleanValue("cacheref", false));
+	    setDbBatchSize(getOptionIntValue("dbBatch", 1));
+	    setDbCacheSize(getOptionIntValue("dbCache", 10000));
+	    setLocalDBPath(cmdLine.getOptionValue("localdb"));
+	    setSnapshotPath(cmdLine.getOptionValue("snapshot"));
+	    setArrayIntervalIndex(getOptionBooleanValue("arrayIndex", false));
 		setVerbose(getOptionBooleanValue("verbose", false));
 		setDebug(getOptionBooleanValue("debug", false));
 	}
@@ -183,4 +198,44 @@ public class Parameter extends GaeaOptions implements Serializable {
 	public void setMapperNum(int mapperNum) {
 		this.mapperNum = mapperNum;
 	}
+
+	public int getDbBatchSize() {
+		return dbBatchSize;
+	}
+
+	public void setDbBatchSize(int dbBatchSize) {
+		this.dbBatchSize = dbBatchSize;
+	}
+
+	public int getDbCacheSize() {
+		return dbCacheSize;
+	}
+
+	public void setDbCacheSize(int dbCacheSize) {
+		this.dbCacheSize = dbCacheSize;
+	}
+
+	public String getLocalDBPath() {
+		return localDBPath;
+	}
+
+	public void setLocalDBPath(String localDBPath) {
+		this.localDBPath = localDBPath;
+	}
+
+	public String getSnapshotPath() {
+		return snapshotPath;
+	}
+
+	public void setSnapshotPath(String snapshotPath) {
+		this.snapshotPath = snapshotPath;
+	}
+
+	public boolean isArrayIntervalIndex() {
+		return arrayIntervalIndex;
+	}
+
+	public void setArrayIntervalIndex(boolean arrayIntervalIndex) {
+		this.arrayIntervalIndex = arrayIntervalIndex;
+	}
 }
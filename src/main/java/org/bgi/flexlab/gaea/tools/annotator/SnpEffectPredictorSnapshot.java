@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.annotator;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Job;
+import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
+import org.bgi.flexlab.gaea.tools.annotator.config.Config;
+import org.bgi.flexlab.gaea.tools.annotator.effect.SnpEffectPredictor;
+import org.bgi.flexlab.gaea.tools.annotator.util.Timer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 预先构建好的 SnpEffectPredictor 二进制快照(基因组、转录本、外显子序列、区间树),
+ * mapper启动时直接反序列化, 不再重复解析基因信息文件和建树.
+ * 
+ * 快照与配置文件中的参考基因组版本和基因信息文件绑定, 不一致时拒绝加载.
+ */
+public class SnpEffectPredictorSnapshot {
+	
+	public static final String SNAPSHOT = "annotator.snapshot";
+	private static final String CACHE_NAME = "annoSnapshot";
+	private static final String MAGIC = "GAEA_SNPEFF_SNAPSHOT_V1";
+	private static final int BUFFER_SIZE = 1 << 20;
+	
+	public static void distributeCache(String snapshotPath, Job job) {
+		try {
+			Path path = new Path(snapshotPath);
+			URI uri = path.getFileSystem(job.getConfiguration()).makeQualified(path).toUri();
+			job.addCacheFile(new URI(uri.toString() + "#" + CACHE_NAME));
+		} catch (IOException | URISyntaxException e) {
+			throw new RuntimeException(e.toString());
+		}
+	}
+	
+	public static void save(SnpEffectPredictor predictor, Config config, String snapshotPath) throws IOException {
+		Path path = new Path(snapshotPath);
+		FileSystem fs = path.getFileSystem(new Configuration());
+		ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(
+				new DeflaterOutputStream(fs.create(path, true), new Deflater(Deflater.BEST_SPEED), BUFFER_SIZE), BUFFER_SIZE));
+		try {
+			out.writeUTF(MAGIC);
+			out.writeUTF(config.getRef());
+			out.writeUTF(config.getGeneInfo());
+			out.writeObject(predictor);
+		} finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * 加载快照, 优先使用分布式缓存中的本地副本
+	 */
+	public static SnpEffectPredictor load(Configuration conf, Config config, ReferenceShare genomeShare) throws IOException {
+		InputStream in;
+		File cached = new File(CACHE_NAME);
+		if (cached.exists()) {
+			in = new FileInputStream(cached);
+		} else {
+			Path path = new Path(conf.get(SNAPSHOT));
+			in = path.getFileSystem(conf).open(path);
+		}
+		
+		ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(
+				new InflaterInputStream(in, new Inflater(), BUFFER_SIZE), BUFFER_SIZE));
+		SnpEffectPredictor predictor;
+		try {
+			if (!MAGIC.equals(ois.readUTF()))
+				throw new IOException("not a SnpEffectPredictor snapshot: " + conf.get(SNAPSHOT));
+			String ref = ois.readUTF();
+			String geneInfo = ois.readUTF();
+			if (!ref.equals(config.getRef()) || !geneInfo.equals(config.getGeneInfo()))
+				throw new IOException("snapshot was built for " + ref + " / " + geneInfo
+						+ ", but config is " + config.getRef() + " / " + config.getGeneInfo());
+			predictor = (SnpEffectPredictor) ois.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e.toString());
+		} finally {
+			ois.close();
+		}
+		
+		predictor.getGenome().setGenomeShare(genomeShare);
+		return predictor;
+	}
+	
+	/**
+	 * 构建快照: configFile reference(chromosome list) output [arrayIndex(true|false)]
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.err.println("java -cp gaea.jar " + SnpEffectPredictorSnapshot.class.getName()
+					+ " config.properties reference_list output.snapshot [arrayIndex(true|false)]");
+			System.exit(1);
+		}
+		
+		Configuration conf = new Configuration();
+		conf.set("configFile", args[0]);
+		conf.set("reference", args[1]);
+		if (args.length > 3)
+			conf.setBoolean(Config.ARRAY_INTERVAL_INDEX, Boolean.parseBoolean(args[3]));
+		
+		ReferenceShare genomeShare = new ReferenceShare();
+		genomeShare.loadChromosomeList(args[1]);
+		
+		Config config = new Config(conf, genomeShare);
+		config.setVerbose(true);
+		
+		Timer.showStdErr("Building SnpEffectPredictor");
+		AnnotatorBuild annoBuild = new AnnotatorBuild(config);
+		config.setSnpEffectPredictor(annoBuild.createSnpEffPredictor());
+		annoBuild.buildForest();
+		
+		Timer.showStdErr("Writing snapshot to " + args[2]);
+		save(config.getSnpEffectPredictor(), config, args[2]);
+		Timer.showStdErr("done.");
+	}
+}
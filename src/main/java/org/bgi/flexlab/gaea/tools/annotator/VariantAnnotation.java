@@ -27,6 +27,9 @@ import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.Tool;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
+import org.bgi.flexlab.gaea.tools.annotator.config.Config;
+import org.bgi.flexlab.gaea.tools.annotator.db.DBAnnotator;
+import org.bgi.flexlab.gaea.tools.annotator.db.LocalDBAdapter;
 
 import java.io.BufferedReader;
 import java.io.FileOutputStream;
@@ -59,6 +62,11 @@ public class VariantAnnotation extends Configured implements Tool{
 		conf.setBoolean("cacheref", parameter.isCachedRef());
 		conf.setBoolean("verbose", parameter.isVerbose());
 		conf.setBoolean("debug", parameter.isDebug());
+		conf.setInt(DBAnnotator.BATCH_SIZE, parameter.getDbBatchSize());
+		conf.setInt(DBAnnotator.CACHE_SIZE, parameter.getDbCacheSize());
+		conf.setBoolean(Config.ARRAY_INTERVAL_INDEX, parameter.isArrayIntervalIndex());
+		if(parameter.getSnapshotPath() != null)
+			conf.set(SnpEffectPredictorSnapshot.SNAPSHOT, parameter.getSnapshotPath());
 	}
 
 	@Override
@@ -73,6 +81,14 @@ public class VariantAnnotation extends Configured implements Tool{
 			ReferenceShare.distributeCache(parameter.getReferenceSequencePath(), job);
 		}
 		
+		if(parameter.getLocalDBPath() != null){
+			LocalDBAdapter.distributeCache(parameter.getLocalDBPath(), job);
+		}
+		
+		if(parameter.getSnapshotPath() != null){
+			SnpEffectPredictorSnapshot.distributeCache(parameter.getSnapshotPath(), job);
+		}
+		
 		job.setNumReduceTasks(0);
 		job.setJarByClass(VariantAnnotation.class);
 		job.setMapperClass(VariantAnnotationMapper.class);
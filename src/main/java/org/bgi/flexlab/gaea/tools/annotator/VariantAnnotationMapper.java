@@ -30,10 +30,12 @@ import org.bgi.flexlab.gaea.data.structure.header.SingleVCFHeader;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.tools.annotator.config.Config;
 import org.bgi.flexlab.gaea.tools.annotator.db.DBAnnotator;
+import org.bgi.flexlab.gaea.tools.annotator.effect.SnpEffectPredictor;
 import org.bgi.flexlab.gaea.tools.annotator.effect.VcfAnnotationContext;
 import org.bgi.flexlab.gaea.tools.annotator.effect.VcfAnnotator;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 public class VariantAnnotationMapper extends Mapper<LongWritable, Text, NullWritable, Text> {
@@ -43,6 +45,8 @@ public class VariantAnnotationMapper extends Mapper<LongWritable, Text, NullWrit
 	private VcfAnnotator vcfAnnotator;
 	private DBAnnotator dbAnnotator;
 	private Configuration conf;
+	private List<VcfAnnotationContext> batch = new ArrayList<VcfAnnotationContext>();
+	private int batchSize = 1;
 	long mapTime = 0; 
 	long mapCount = 0;
 	
@@ -61,11 +65,18 @@ public class VariantAnnotationMapper extends Mapper<LongWritable, Text, NullWrit
 		userConfig.setVerbose(conf.getBoolean("verbose", false));
 		userConfig.setDebug(conf.getBoolean("debug", false));
 		
-//		start = System.currentTimeMillis();
-		AnnotatorBuild annoBuild = new AnnotatorBuild(userConfig);
-		userConfig.setSnpEffectPredictor(annoBuild.createSnpEffPredictor());
-		annoBuild.buildForest();
-//		System.err.println("build SnpEffectPredictor耗时：" + (System.currentTimeMillis()-start)+"毫秒");
+		long start = System.currentTimeMillis();
+		if (conf.get(SnpEffectPredictorSnapshot.SNAPSHOT) != null) {
+			// 直接加载预先构建的快照
+			SnpEffectPredictor predictor = SnpEffectPredictorSnapshot.load(conf, userConfig, genomeShare);
+			userConfig.setGenome(predictor.getGenome());
+			userConfig.setSnpEffectPredictor(predictor);
+		} else {
+			AnnotatorBuild annoBuild = new AnnotatorBuild(userConfig);
+			userConfig.setSnpEffectPredictor(annoBuild.createSnpEffPredictor());
+			annoBuild.buildForest();
+		}
+		context.getCounter("VariantAnnotation", "SnpEffectPredictor setup time (ms)").increment(System.currentTimeMillis() - start);
 		
 		Path inputPath = new Path(conf.get("inputFilePath"));
 		
@@ -82,6 +93,8 @@ public class VariantAnnotationMapper extends Mapper<LongWritable, Text, NullWrit
 //		start = System.currentTimeMillis();
 		//用于从数据库中查找信息
 		dbAnnotator = new DBAnnotator(userConfig);
+		dbAnnotator.setRowCacheSize(conf.getInt(DBAnnotator.CACHE_SIZE, 10000));
+		batchSize = Math.max(1, conf.getInt(DBAnnotator.BATCH_SIZE, 1));
 		try {
 			dbAnnotator.connection();
 		} catch (InstantiationException | IllegalAccessException
@@ -110,23 +123,42 @@ public class VariantAnnotationMapper extends Mapper<LongWritable, Text, NullWrit
 		}
 //		System.err.println("vcfAnnotator耗时：" + (System.currentTimeMillis()-start)+"毫秒");
 		
+		batch.add(vcfAnnoContext);
+		if (batch.size() >= batchSize)
+			annotateBatch(context);
+	}
+	
+	private void annotateBatch(Context context) throws IOException, InterruptedException {
+		if (batch.isEmpty())
+			return;
+		
 		long start = System.currentTimeMillis();
-		dbAnnotator.annotate(vcfAnnoContext);
+		dbAnnotator.annotate(batch);
 		mapTime += System.currentTimeMillis()-start;
-		mapCount++;
+		mapCount += batch.size();
 //		System.err.println("dbAnnotator耗时：" + (System.currentTimeMillis()-start)+"毫秒");
 		
-		List<String> annoLines = vcfAnnotator.convertAnnotationStrings(vcfAnnoContext);
-		for (String annoLine : annoLines) {
-			resultValue.set(annoLine);
-			context.write(NullWritable.get(), resultValue);
+		for (VcfAnnotationContext vcfAnnoContext : batch) {
+			List<String> annoLines = vcfAnnotator.convertAnnotationStrings(vcfAnnoContext);
+			for (String annoLine : annoLines) {
+				resultValue.set(annoLine);
+				context.write(NullWritable.get(), resultValue);
+			}
 		}
-		
+		batch.clear();
 	}
 	
 	@Override
 	protected void cleanup(Context context)
 			throws IOException, InterruptedException {
+		annotateBatch(context);
+		context.getCounter("DBAnnotator", "annotated variants").increment(mapCount);
+		context.getCounter("DBAnnotator", "annotate time (ms)").increment(mapTime);
+		context.getCounter("DBAnnotator", "row cache hits").increment(dbAnnotator.getRowCacheHits());
+		context.getCounter("DBAnnotator", "row cache misses").increment(dbAnnotator.getRowCacheMisses());
+		context.getCounter("DBAnnotator", "rows prefetched").increment(dbAnnotator.getRowCachePrefetched());
+		context.getCounter("DBAnnotator", "database requests").increment(dbAnnotator.getQueryCount());
+		context.getCounter("DBAnnotator", "database time (ms)").increment(dbAnnotator.getQueryTime());
 		dbAnnotator.disconnection();
 	}
 }
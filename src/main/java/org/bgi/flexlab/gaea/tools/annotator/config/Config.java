@@ -53,6 +53,7 @@ public class Config implements Serializable {
 	public static final String KEY_CODONTABLE_SUFIX = ".codonTable";
 	public static final String DB_CONFIG_JSON = "AnnotatorConfig.json";
 	public static final String ANNO_FIELDS_SUFIX = ".fields";
+	public static final String ARRAY_INTERVAL_INDEX = "annotator.arrayIntervalIndex";
 	public static int MAX_WARNING_COUNT = 20;
 	
 	private String  ref = null;
@@ -61,6 +62,7 @@ public class Config implements Serializable {
 
 	private boolean debug = false; // Debug mode?
 	private boolean verbose = false; // Verbose
+	private boolean arrayIntervalIndex = false; // Use flat array interval trees
 	private boolean treatAllAsProteinCoding;
 	private boolean onlyRegulation; // Only use regulation features
 	private boolean errorOnMissingChromo; // Error if chromosome is missing
@@ -104,6 +106,7 @@ public class Config implements Serializable {
 		errorOnMissingChromo = true;
 		errorChromoHit = true;
 		configFilePath = conf.get("configFile");
+		arrayIntervalIndex = conf.getBoolean(ARRAY_INTERVAL_INDEX, false);
 		
 		loadProperties(configFilePath); // Read config file and get a genome
 //		TODO 支持在配置文件中自定义密码子体系 - CodonTable
@@ -267,6 +270,10 @@ public class Config implements Serializable {
 		return genome;
 	}
 
+	public void setGenome(Genome genome) {
+		this.genome = genome;
+	}
+
 	public String getGenomeVersion() {
 		return ref;
 	}
@@ -343,6 +350,10 @@ public class Config implements Serializable {
 		return treatAllAsProteinCoding;
 	}
 
+	public boolean isArrayIntervalIndex() {
+		return arrayIntervalIndex;
+	}
+
 	public boolean isVerbose() {
 		return verbose;
 	}
@@ -79,7 +79,7 @@ public class Condition implements Serializable{
 	public String getConditionString() {
 		StringBuilder sb = new StringBuilder();
 		String[] conKeys = dbInfo.getQueryCondition().split("_");
-		if(dbType == DbType.HBASE){
+		if(dbType == DbType.HBASE || dbType == DbType.LOCAL){
 			for (int i = 0; i < conKeys.length-1; i++) {
 				sb.append(conditionMap.get(ConditionKey.valueOf(conKeys[i]))+'-');
 			}
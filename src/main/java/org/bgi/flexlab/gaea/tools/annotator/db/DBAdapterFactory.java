@@ -33,6 +33,8 @@ public class DBAdapterFactory {
 			return hbase;
 		}else if (dbType == DbType.MYSQL) {
 			return new MysqlAdapter(connInfo);
+		}else if (dbType == DbType.LOCAL) {
+			return new LocalDBAdapter(connInfo);
 		}
 		return new HbaseAdapter(connInfo);
 	}
@@ -18,6 +18,7 @@ package org.bgi.flexlab.gaea.tools.annotator.db;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 
 public interface DBAdapterInterface {
 	
@@ -46,4 +47,17 @@ public interface DBAdapterInterface {
 	public HashMap<String, String> getResult(String tableName,
 			String conditionString) throws IOException;
 
+	/**
+	 * 批量查询多个conditionString(对于Hbase则为rowKey)，返回conditionString到整行字段的映射，查不到的行为空HashMap
+	 */
+	default HashMap<String, HashMap<String, String>> getResults(String tableName,
+			List<String> conditionStrings) throws IOException {
+		HashMap<String, HashMap<String, String>> results = new HashMap<String, HashMap<String, String>>();
+		for (String conditionString : conditionStrings) {
+			HashMap<String, String> result = getResult(tableName, conditionString);
+			results.put(conditionString, result == null ? new HashMap<String, String>() : result);
+		}
+		return results;
+	}
+
 }
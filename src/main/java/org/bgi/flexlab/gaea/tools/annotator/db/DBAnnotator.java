@@ -24,19 +24,24 @@ import org.bgi.flexlab.gaea.tools.annotator.effect.VcfAnnotationContext;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class DBAnnotator implements Serializable{
 	
 	private static final long serialVersionUID = -3944211982294335404L;
+	public static final String BATCH_SIZE = "annotator.db.batch";
+	public static final String CACHE_SIZE = "annotator.db.cache";
 	private static HashMap<String, DBQuery> DbQueryMap = new HashMap<String, DBQuery>();
 	
 	private Config config;
 	private HashMap<String, Condition> dbConditionHashMap;
+	private int rowCacheSize = 0;
 	
 	public DBAnnotator(Config config){
 		this.config = config;
@@ -65,6 +70,39 @@ public class DBAnnotator implements Serializable{
 		}
 	}
 	
+	/**
+	 * 批量注释: 先按批次批量预取各数据库的索引行和数据行到rowCache, 再逐个注释
+	 */
+	public void annotate(List<VcfAnnotationContext> vacs) throws IOException {
+		if (vacs.size() > 1 && rowCacheSize > 0)
+			prefetch(vacs);
+		for (VcfAnnotationContext vac : vacs) {
+			annotate(vac);
+		}
+	}
+	
+	private void prefetch(List<VcfAnnotationContext> vacs) throws IOException {
+		List<String> dbNameList = config.getDbNameList();
+		for (String dbName : dbNameList) {
+			Condition condition = dbConditionHashMap.get(dbName);
+			DBQuery dbQuery = DbQueryMap.get(dbName);
+			
+			List<String> keys = new ArrayList<String>();
+			for (VcfAnnotationContext vac : vacs) {
+				condition.createConditionMap(vac);
+				keys.addAll(dbQuery.getIndexKeys(condition));
+			}
+			dbQuery.prefetch(condition.getRefTable().getIndexTable(), keys);
+			
+			keys.clear();
+			for (VcfAnnotationContext vac : vacs) {
+				condition.createConditionMap(vac);
+				keys.addAll(dbQuery.getDataKeys(condition));
+			}
+			dbQuery.prefetch(condition.getRefTable().getTable(), keys);
+		}
+	}
+	
 	private HashMap<String, String> mergeResult(
 			LinkedList<HashMap<String, String>> resultList) {
 		if (resultList == null || resultList.isEmpty()) return null;
@@ -102,6 +140,7 @@ public class DBAnnotator implements Serializable{
 			DbType dbType = databaseInfo.getDatabase();
 			String connInfo = config.getDatabaseJson().getConnectionInfo(dbType);
 			dbQuery.connection(dbName, dbType,connInfo);
+			dbQuery.setRowCache(new RowCache(rowCacheSize));
 			DbQueryMap.put(dbName, dbQuery);
 			
 			Condition condition = new Condition(dbName,databaseInfo);
@@ -119,4 +158,49 @@ public class DBAnnotator implements Serializable{
 		}
 	}
 
+	/**
+	 * 每个数据库缓存的行数, 需在connection()之前设置
+	 */
+	public void setRowCacheSize(int rowCacheSize) {
+		this.rowCacheSize = rowCacheSize;
+	}
+	
+	public long getRowCacheHits() {
+		long hits = 0;
+		for (DBQuery dbQuery : DbQueryMap.values())
+			hits += dbQuery.getRowCache().getHits();
+		return hits;
+	}
+	
+	public long getRowCacheMisses() {
+		long misses = 0;
+		for (DBQuery dbQuery : DbQueryMap.values())
+			misses += dbQuery.getRowCache().getMisses();
+		return misses;
+	}
+	
+	public long getRowCachePrefetched() {
+		long prefetched = 0;
+		for (DBQuery dbQuery : DbQueryMap.values())
+			prefetched += dbQuery.getRowCache().getPrefetched();
+		return prefetched;
+	}
+	
+	public long getQueryCount() {
+		long count = 0;
+		for (DBQuery dbQuery : DbQueryMap.values())
+			count += dbQuery.getQueryCount();
+		return count;
+	}
+	
+	/**
+	 * 数据库查询耗时(ms)
+	 */
+	public long getQueryTime() {
+		long time = 0;
+		for (DBQuery dbQuery : DbQueryMap.values())
+			time += dbQuery.getQueryTime();
+		return TimeUnit.NANOSECONDS.toMillis(time);
+	}
+
 }
@@ -17,6 +17,8 @@
 package org.bgi.flexlab.gaea.tools.annotator.db;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map.Entry;
 
@@ -31,10 +33,10 @@ public class DBNSFPQuery extends DBQuery {
 		
 		//	keyValue = alt:conditionString
 		for (Entry<String, String> keyValue : condition.getConditionHash().entrySet()) {
-			HashMap<String,String> result = dbAdapter.getResult(condition.getRefTable().getIndexTable(), keyValue.getValue());
+			HashMap<String,String> result = getRow(condition.getRefTable().getIndexTable(), keyValue.getValue());
 			if (result ==null || result.isEmpty()) return null;
 			String keyStr = result.get(condition.getRefTable().getKey());
-			result = dbAdapter.getResult(condition.getRefTable().getTable(), keyStr);
+			result = getRow(condition.getRefTable().getTable(), keyStr);
 			HashMap<String,String> annoResult = new HashMap<String, String>();
 			for (Entry<String, String> entry : fieldMap.entrySet()) {
 				annoResult.put(entry.getKey(), result.get(entry.getValue()));
@@ -46,4 +48,14 @@ public class DBNSFPQuery extends DBQuery {
 		return results;
 	}
 
+	@Override
+	Collection<String> getIndexKeys(Condition condition) {
+		return condition.getConditionHash().values();
+	}
+	
+	@Override
+	Collection<String> splitDataKey(String keyStr) {
+		return Collections.singletonList(keyStr);
+	}
+
 }
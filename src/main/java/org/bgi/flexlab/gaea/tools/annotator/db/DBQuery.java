@@ -21,6 +21,10 @@ import org.bgi.flexlab.gaea.tools.annotator.effect.AnnotationContext;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -37,6 +41,10 @@ public class DBQuery implements Serializable {
 	DBAdapterInterface dbAdapter = null;
 	Results results = null;
 	Condition condition = null;
+	RowCache rowCache = new RowCache(0);
+	/** 数据库查询耗时, 单位为纳秒 */
+	long queryTime = 0;
+	long queryCount = 0;
 	
 	/**
 	 * 执行query并判断结果，通过getResults方法获取结果
@@ -66,13 +74,13 @@ public class DBQuery implements Serializable {
 		HashMap<String, String> fieldMap = condition.getFields();
 		Results results = new Results();
 
-		HashMap<String,String> result = dbAdapter.getResult(condition.getRefTable().getIndexTable(), condition.getConditionString());
+		HashMap<String,String> result = getRow(condition.getRefTable().getIndexTable(), condition.getConditionString());
 		if (result ==null || result.isEmpty()) return null;
 		List<String> alts = condition.getAlts();
 		String keyStr = result.get(condition.getRefTable().getKey());
 		String[] keys = keyStr.split(",");
 		for (String key : keys) {
-			result = dbAdapter.getResult(condition.getRefTable().getTable(), key);
+			result = getRow(condition.getRefTable().getTable(), key);
 			
 			HashMap<String,String> annoResult = new HashMap<String, String>();
 			for (Entry<String, String> entry : fieldMap.entrySet()) {
@@ -110,6 +118,103 @@ public class DBQuery implements Serializable {
 		return results;
 	}
 	
+	/**
+	 * 查询一行，优先从rowCache获取
+	 */
+	HashMap<String, String> getRow(String tableName, String rowKey) throws IOException {
+		HashMap<String, String> row = rowCache.lookup(tableName, rowKey);
+		if (row != null)
+			return row;
+		
+		long start = System.nanoTime();
+		row = dbAdapter.getResult(tableName, rowKey);
+		queryTime += System.nanoTime() - start;
+		queryCount++;
+		rowCache.add(tableName, rowKey, row);
+		return row;
+	}
+	
+	/**
+	 * 按fieldMap从整行结果中取字段, fieldMap的value为数据库字段, key为返回HashMap的key
+	 */
+	HashMap<String, String> getRow(String tableName, String rowKey, HashMap<String, String> fieldMap) throws IOException {
+		HashMap<String, String> row = getRow(tableName, rowKey);
+		HashMap<String, String> resultMap = new HashMap<String, String>();
+		for (Entry<String, String> entry : fieldMap.entrySet()) {
+			resultMap.put(entry.getKey(), row == null ? null : row.get(entry.getValue()));
+		}
+		return resultMap;
+	}
+	
+	/**
+	 * 批量查询rowCache中没有的行并放入rowCache
+	 */
+	void prefetch(String tableName, Collection<String> rowKeys) throws IOException {
+		if (tableName == null)
+			return;
+		List<String> missing = new ArrayList<String>();
+		for (String rowKey : rowKeys) {
+			if (rowKey != null && !rowCache.contains(tableName, rowKey))
+				missing.add(rowKey);
+		}
+		if (missing.isEmpty())
+			return;
+		
+		long start = System.nanoTime();
+		HashMap<String, HashMap<String, String>> rows = dbAdapter.getResults(tableName, missing);
+		queryTime += System.nanoTime() - start;
+		queryCount++;
+		for (String rowKey : missing) {
+			rowCache.addPrefetched(tableName, rowKey, rows.get(rowKey));
+		}
+	}
+	
+	/**
+	 * condition对应的索引表rowKey，用于批量预取
+	 */
+	Collection<String> getIndexKeys(Condition condition) {
+		return Collections.singletonList(condition.getConditionString());
+	}
+	
+	/**
+	 * condition对应的数据表rowKey，索引表的行需已在rowCache中
+	 */
+	Collection<String> getDataKeys(Condition condition) {
+		List<String> dataKeys = new ArrayList<String>();
+		for (String indexKey : getIndexKeys(condition)) {
+			HashMap<String, String> index = rowCache.get(RowCache.rowId(condition.getRefTable().getIndexTable(), indexKey));
+			if (index == null)
+				continue;
+			String keyStr = index.get(condition.getRefTable().getKey());
+			if (keyStr != null)
+				dataKeys.addAll(splitDataKey(keyStr));
+		}
+		return dataKeys;
+	}
+	
+	/**
+	 * 索引表key字段对应的数据表rowKey，多个以逗号分隔
+	 */
+	Collection<String> splitDataKey(String keyStr) {
+		return Arrays.asList(keyStr.split(","));
+	}
+	
+	void setRowCache(RowCache rowCache) {
+		this.rowCache = rowCache;
+	}
+	
+	RowCache getRowCache() {
+		return rowCache;
+	}
+	
+	long getQueryTime() {
+		return queryTime;
+	}
+	
+	long getQueryCount() {
+		return queryCount;
+	}
+	
 	/**
 	 * 对含多个变异的结果进行分割
 	 * @param result
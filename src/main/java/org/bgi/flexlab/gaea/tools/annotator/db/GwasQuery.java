@@ -29,12 +29,12 @@ public class GwasQuery extends DBQuery {
 		HashMap<String, String> fieldMap = condition.getFields();
 		Results results = new Results();
 
-		HashMap<String,String> result = dbAdapter.getResult(condition.getRefTable().getIndexTable(), condition.getConditionString());
+		HashMap<String,String> result = getRow(condition.getRefTable().getIndexTable(), condition.getConditionString());
 		if (result ==null || result.isEmpty()) return null;
 		String keyStr = result.get(condition.getRefTable().getKey());
 		String[] keys = keyStr.split(",");
 		for (String key : keys) {
-			result = dbAdapter.getResult(condition.getRefTable().getTable(), key);
+			result = getRow(condition.getRefTable().getTable(), key);
 			
 			HashMap<String,String> annoResult = new HashMap<String, String>();
 			for (Entry<String, String> entry : fieldMap.entrySet()) {
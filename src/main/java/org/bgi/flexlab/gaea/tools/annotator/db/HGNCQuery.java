@@ -19,6 +19,8 @@ package org.bgi.flexlab.gaea.tools.annotator.db;
 import org.bgi.flexlab.gaea.tools.annotator.effect.AnnotationContext;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map.Entry;
@@ -33,7 +35,7 @@ public class HGNCQuery extends DBQuery {
 		Results results = new Results();
 
 		for (String gene : condition.getGenes()) {
-			HashMap<String,String> result = dbAdapter.getResult(condition.getRefTable().getTable(), gene);
+			HashMap<String,String> result = getRow(condition.getRefTable().getTable(), gene);
 			if (result ==null || result.isEmpty()) return null;
 				
 			HashMap<String,String> annoResult = new HashMap<String, String>();
@@ -53,4 +55,16 @@ public class HGNCQuery extends DBQuery {
 	}
 	
 
+	@Override
+	Collection<String> getIndexKeys(Condition condition) {
+		return Collections.emptyList();
+	}
+	
+	@Override
+	Collection<String> getDataKeys(Condition condition) {
+		if (condition.getGenes() == null)
+			return Collections.emptyList();
+		return condition.getGenes();
+	}
+
 }
@@ -26,7 +26,9 @@ import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.util.Bytes;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map.Entry;
 
 /**
@@ -36,9 +38,11 @@ import java.util.Map.Entry;
 public class HbaseAdapter implements DBAdapterInterface{
 	
 	public static final String DEFAULT_COLUMN_FAMILY = "data";
+	private static final byte[] COLUMN_FAMILY = Bytes.toBytes(DEFAULT_COLUMN_FAMILY);
 	
 	static Configuration conf = null;
     static Connection conn; 
+    private HashMap<String, Table> tables = new HashMap<String, Table>();
     
     public HbaseAdapter(String confDir){
     	conf = HBaseConfiguration.create();
@@ -53,34 +57,66 @@ public class HbaseAdapter implements DBAdapterInterface{
 	
     @Override
 	public void disconnection() throws IOException {
-			conn.close();
+		for (Table table : tables.values())
+			table.close();
+		tables.clear();
+		conn.close();
 	}
-
-    @Override
-	public HashMap<String, String> getResult(String tableName, String rowKey) throws IOException {
+    
+    private Table getTable(String tableName) throws IOException {
+    	Table table = tables.get(tableName);
+    	if (table == null) {
+    		table = conn.getTable(TableName.valueOf(tableName));
+    		tables.put(tableName, table);
+    	}
+    	return table;
+    }
+    
+    private HashMap<String, String> toResultMap(Result result) {
 		HashMap<String,String> resultMap = new HashMap<String,String>();
-		Get get = new Get(Bytes.toBytes(rowKey));
-		get.addFamily(Bytes.toBytes(DEFAULT_COLUMN_FAMILY));
-		Table table = conn.getTable(TableName.valueOf(tableName));
-		Result result = table.get(get);
-		
 		for  (Cell cell : result.rawCells()) {
 			String key = Bytes.toString(CellUtil.cloneQualifier (cell));
 			String value = Bytes.toString(CellUtil.cloneValue(cell));
 			resultMap.put(key, value);
 		}
 		return resultMap;
+    }
+
+    @Override
+	public HashMap<String, String> getResult(String tableName, String rowKey) throws IOException {
+		Get get = new Get(Bytes.toBytes(rowKey));
+		get.addFamily(COLUMN_FAMILY);
+		return toResultMap(getTable(tableName).get(get));
+	}
+    
+    /**
+     * multi-get of rowKeys in one round trip per region server
+     */
+    @Override
+	public HashMap<String, HashMap<String, String>> getResults(String tableName, List<String> rowKeys) throws IOException {
+		List<Get> gets = new ArrayList<Get>(rowKeys.size());
+		for (String rowKey : rowKeys) {
+			Get get = new Get(Bytes.toBytes(rowKey));
+			get.addFamily(COLUMN_FAMILY);
+			gets.add(get);
+		}
+		Result[] results = getTable(tableName).get(gets);
+		
+		HashMap<String, HashMap<String, String>> resultMaps = new HashMap<String, HashMap<String, String>>();
+		for (int i = 0; i < results.length; i++) {
+			resultMaps.put(rowKeys.get(i), toResultMap(results[i]));
+		}
+		return resultMaps;
 	}
     
 	public HashMap<String, String> getResult(String tableName,
 			String rowKey, String[] fields) throws IOException{
-		HashMap<String,String> resultMap = getResult(tableName,rowKey);
-		Table table = conn.getTable(TableName.valueOf(tableName));
 		Get get = new Get(Bytes.toBytes(rowKey));
-		get.addFamily(Bytes.toBytes(DEFAULT_COLUMN_FAMILY));
-		Result result = table.get(get);
+		get.addFamily(COLUMN_FAMILY);
+		Result result = getTable(tableName).get(get);
+		HashMap<String,String> resultMap = toResultMap(result);
 		for (String field : fields) {
-			byte[] value = result.getValue(Bytes.toBytes(DEFAULT_COLUMN_FAMILY), Bytes.toBytes(field));
+			byte[] value = result.getValue(COLUMN_FAMILY, Bytes.toBytes(field));
 			resultMap.put(field, Bytes.toString(value));
 		}
 		return resultMap;
@@ -89,14 +125,12 @@ public class HbaseAdapter implements DBAdapterInterface{
 	@Override
 	public HashMap<String, String> getResult(String tableName,
 			String rowKey, HashMap<String, String> fieldMap) throws IOException{
-//		HashMap<String,String> resultMap = getResult(tableName,rowKey);
 		HashMap<String,String> resultMap = new HashMap<String,String>();
-		Table table = conn.getTable(TableName.valueOf(tableName));
 		Get get = new Get(Bytes.toBytes(rowKey));
-		get.addFamily(Bytes.toBytes(DEFAULT_COLUMN_FAMILY));
-		Result result = table.get(get);
+		get.addFamily(COLUMN_FAMILY);
+		Result result = getTable(tableName).get(get);
 		for (Entry<String, String> entry : fieldMap.entrySet()) {
-			byte[] value = result.getValue(Bytes.toBytes(DEFAULT_COLUMN_FAMILY), Bytes.toBytes(entry.getValue()));
+			byte[] value = result.getValue(COLUMN_FAMILY, Bytes.toBytes(entry.getValue()));
 			resultMap.put(entry.getKey(), Bytes.toString(value));
 		}
 		return resultMap;
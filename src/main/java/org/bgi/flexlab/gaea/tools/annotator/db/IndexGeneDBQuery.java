@@ -19,6 +19,8 @@ package org.bgi.flexlab.gaea.tools.annotator.db;
 import org.bgi.flexlab.gaea.tools.annotator.effect.AnnotationContext;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map.Entry;
@@ -34,10 +36,10 @@ public class IndexGeneDBQuery extends DBQuery {
 		
 		// entry = alt:conditionString, gene:conditionString		
 		for(Entry<String, String> entry : condition.getConditionHash().entrySet()){
-			HashMap<String,String> result = dbAdapter.getResult(condition.getRefTable().getIndexTable(), entry.getValue());
+			HashMap<String,String> result = getRow(condition.getRefTable().getIndexTable(), entry.getValue());
 			if (result ==null || result.isEmpty()) continue;
 			String key = result.get(condition.getRefTable().getKey());
-			result = dbAdapter.getResult(condition.getRefTable().getTable(), key, fieldMap);
+			result = getRow(condition.getRefTable().getTable(), key, fieldMap);
 			if (result ==null || result.isEmpty()) continue;
 			results.add(entry.getKey(), result);
 		}
@@ -52,4 +54,14 @@ public class IndexGeneDBQuery extends DBQuery {
 		return resultList;
 	}
 
+	@Override
+	Collection<String> getIndexKeys(Condition condition) {
+		return condition.getConditionHash().values();
+	}
+	
+	@Override
+	Collection<String> splitDataKey(String keyStr) {
+		return Collections.singletonList(keyStr);
+	}
+
 }
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.annotator.db;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Job;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Map.Entry;
+
+/**
+ * 本地注释数据库, 每张表为目录下的 tableName.kv 文件(由LocalDBBuilder生成).
+ * 目录为相对路径时相对于任务工作目录, 即DistributedCache链接文件所在目录.
+ */
+public class LocalDBAdapter implements DBAdapterInterface{
+	
+	private String dbDir;
+	private HashMap<String, LocalDBTable> tables = new HashMap<String, LocalDBTable>();
+	
+	public LocalDBAdapter(String dbDir){
+		this.dbDir = (dbDir == null || dbDir.isEmpty()) ? "." : dbDir;
+	}
+
+	/**
+	 * 将目录下所有表文件加入DistributedCache, 链接到任务工作目录, 此时配置中LOCAL目录为"."
+	 */
+	public static void distributeCache(String dbDir, Job job) {
+		try {
+			Path dirPath = new Path(dbDir);
+			FileSystem fs = dirPath.getFileSystem(job.getConfiguration());
+			for (FileStatus status : fs.listStatus(dirPath)) {
+				String name = status.getPath().getName();
+				if (name.endsWith(LocalDBTable.SUFFIX))
+					job.addCacheFile(new URI(status.getPath().toUri().toString() + "#" + name));
+			}
+		} catch (IOException | URISyntaxException e) {
+			throw new RuntimeException(e.toString());
+		}
+	}
+
+	@Override
+	public void connection(String dbName) throws IOException {
+		if (!new File(dbDir).isDirectory())
+			throw new IOException("local annotation database directory not found: " + dbDir);
+	}
+
+	@Override
+	public void disconnection() throws IOException {
+		for (LocalDBTable table : tables.values())
+			table.close();
+		tables.clear();
+	}
+	
+	private LocalDBTable getTable(String tableName) throws IOException {
+		LocalDBTable table = tables.get(tableName);
+		if (table == null) {
+			File file = new File(dbDir, tableName + LocalDBTable.SUFFIX);
+			if (!file.exists())
+				throw new IOException("local annotation table not found: " + file.getPath());
+			table = new LocalDBTable(file.getPath());
+			tables.put(tableName, table);
+		}
+		return table;
+	}
+
+	@Override
+	public HashMap<String, String> getResult(String tableName, String rowKey) throws IOException {
+		return getTable(tableName).get(rowKey);
+	}
+
+	@Override
+	public HashMap<String, String> getResult(String tableName,
+			String rowKey, HashMap<String, String> fieldMap) throws IOException{
+		HashMap<String,String> row = getResult(tableName, rowKey);
+		HashMap<String,String> resultMap = new HashMap<String,String>();
+		for (Entry<String, String> entry : fieldMap.entrySet()) {
+			resultMap.put(entry.getKey(), row.get(entry.getValue()));
+		}
+		return resultMap;
+	}
+
+}
@@ -0,0 +1,346 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.annotator.db;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 将带表头的tab分隔表(dbNSFP/GWAS/HGNC等, 可为.gz)导入为LocalDBTable文件.
+ * 
+ * rowKey由keyColumns指定的列以'-'连接, 与Hbase rowKey格式一致; 可只保存指定列, 用于生成索引表.
+ * 相同rowKey的行合并, 不同的值以','连接(与Hbase索引表一致). 输入无需排序, 超过内存批次时先排序写临时文件再归并.
+ */
+public class LocalDBBuilder {
+	private final static int DEFAULT_BLOCK_SIZE = 64 * 1024;
+	private final static int RECORDS_PER_RUN = 1000000;
+	
+	private String[] columns;
+	private int[] columnIndexes;
+	private int[] keyIndexes;
+	private int blockSize;
+	
+	private ArrayList<File> runs = new ArrayList<File>();
+	
+	/* output table */
+	private DataOutputStream out;
+	private long offset = 0;
+	private ByteArrayOutputStream block = new ByteArrayOutputStream();
+	private DataOutputStream blockOut = new DataOutputStream(block);
+	private String blockFirstKey = null;
+	private ArrayList<String> firstKeys = new ArrayList<String>();
+	private ArrayList<long[]> blockInfos = new ArrayList<long[]>();
+	
+	public LocalDBBuilder(int blockSize) {
+		this.blockSize = blockSize;
+	}
+	
+	private static class Record {
+		private final String key;
+		private final String[] values;
+		
+		private Record(String key, String[] values) {
+			this.key = key;
+			this.values = values;
+		}
+	}
+	
+	private final static Comparator<Record> KEY_ORDER = new Comparator<Record>() {
+		@Override
+		public int compare(Record r1, Record r2) {
+			return r1.key.compareTo(r2.key);
+		}
+	};
+	
+	private int columnIndex(String[] header, String column) throws IOException {
+		for (int i = 0; i < header.length; i++) {
+			if (header[i].equals(column))
+				return i;
+		}
+		throw new IOException("column " + column + " is not found in header");
+	}
+	
+	private void parseHeader(String line, String keyColumns, String storedColumns) throws IOException {
+		String[] header = line.replaceFirst("^#+", "").split("\t");
+		
+		String[] keys = keyColumns.split(",");
+		keyIndexes = new int[keys.length];
+		for (int i = 0; i < keys.length; i++)
+			keyIndexes[i] = columnIndex(header, keys[i]);
+		
+		columns = storedColumns == null ? header : storedColumns.split(",");
+		columnIndexes = new int[columns.length];
+		for (int i = 0; i < columns.length; i++)
+			columnIndexes[i] = columnIndex(header, columns[i]);
+	}
+	
+	private Record parseLine(String line) {
+		String[] fields = line.split("\t", -1);
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i < keyIndexes.length; i++) {
+			if (i > 0)
+				key.append('-');
+			key.append(keyIndexes[i] < fields.length ? fields[keyIndexes[i]] : "");
+		}
+		
+		String[] values = new String[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			int index = columnIndexes[i];
+			if (index < fields.length && !fields[index].isEmpty())
+				values[i] = fields[index];
+		}
+		return new Record(key.toString(), values);
+	}
+	
+	private static void writeValue(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	private static String readValue(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0)
+			return null;
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+	
+	private void spill(ArrayList<Record> records, File tmpDir) throws IOException {
+		Collections.sort(records, KEY_ORDER);
+		File run = File.createTempFile("localdb", ".run", tmpDir);
+		run.deleteOnExit();
+		DataOutputStream runOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)));
+		for (Record record : records) {
+			runOut.writeBoolean(true);
+			runOut.writeUTF(record.key);
+			for (String value : record.values)
+				writeValue(runOut, value);
+		}
+		runOut.writeBoolean(false);
+		runOut.close();
+		runs.add(run);
+		records.clear();
+	}
+	
+	/**
+	 * sorted source of records, either a spilled run or the last in memory batch
+	 */
+	private class RunReader {
+		private DataInputStream in = null;
+		private ArrayList<Record> records = null;
+		private int index = 0;
+		private Record current;
+		
+		private RunReader(File run) throws IOException {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+			advance();
+		}
+		
+		private RunReader(ArrayList<Record> records) throws IOException {
+			this.records = records;
+			advance();
+		}
+		
+		private void advance() throws IOException {
+			if (records != null) {
+				current = index < records.size() ? records.get(index++) : null;
+				return;
+			}
+			if (!in.readBoolean()) {
+				current = null;
+				in.close();
+				return;
+			}
+			String key = in.readUTF();
+			String[] values = new String[columns.length];
+			for (int i = 0; i < values.length; i++)
+				values[i] = readValue(in);
+			current = new Record(key, values);
+		}
+	}
+	
+	private void merge(Record into, Record record) {
+		for (int i = 0; i < columns.length; i++) {
+			String value = record.values[i];
+			if (value == null || value.equals(into.values[i]))
+				continue;
+			into.values[i] = into.values[i] == null ? value : into.values[i] + "," + value;
+		}
+	}
+	
+	private void addRecord(Record record) throws IOException {
+		if (blockFirstKey == null)
+			blockFirstKey = record.key;
+		
+		ByteArrayOutputStream row = new ByteArrayOutputStream();
+		DataOutputStream rowOut = new DataOutputStream(row);
+		for (String value : record.values)
+			writeValue(rowOut, value);
+		
+		blockOut.writeUTF(record.key);
+		blockOut.writeInt(row.size());
+		row.writeTo(blockOut);
+		if (block.size() >= blockSize)
+			flushBlock();
+	}
+	
+	private void flushBlock() throws IOException {
+		if (blockFirstKey == null)
+			return;
+		blockOut.flush();
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		DeflaterOutputStream deflater = new DeflaterOutputStream(compressed);
+		block.writeTo(deflater);
+		deflater.close();
+		
+		compressed.writeTo(out);
+		firstKeys.add(blockFirstKey);
+		blockInfos.add(new long[] { offset, compressed.size(), block.size() });
+		offset += compressed.size();
+		
+		block.reset();
+		blockFirstKey = null;
+	}
+	
+	private void writeTrailer() throws IOException {
+		flushBlock();
+		out.writeInt(columns.length);
+		for (String column : columns)
+			out.writeUTF(column);
+		out.writeInt(firstKeys.size());
+		for (int i = 0; i < firstKeys.size(); i++) {
+			long[] info = blockInfos.get(i);
+			out.writeUTF(firstKeys.get(i));
+			out.writeLong(info[0]);
+			out.writeInt((int) info[1]);
+			out.writeInt((int) info[2]);
+		}
+		out.writeLong(offset);
+		out.writeInt(LocalDBTable.MAGIC);
+	}
+	
+	public void build(String input, String outputDir, String tableName, String keyColumns, String storedColumns) throws IOException {
+		File output = new File(outputDir, tableName + LocalDBTable.SUFFIX);
+		
+		InputStream is = new FileInputStream(input);
+		if (input.endsWith(".gz"))
+			is = new GZIPInputStream(is);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(is, "UTF-8"));
+		String line = reader.readLine();
+		if (line == null) {
+			reader.close();
+			throw new IOException("input " + input + " is empty");
+		}
+		parseHeader(line, keyColumns, storedColumns);
+		
+		ArrayList<Record> records = new ArrayList<Record>();
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			records.add(parseLine(line));
+			if (records.size() >= RECORDS_PER_RUN)
+				spill(records, output.getAbsoluteFile().getParentFile());
+		}
+		reader.close();
+		Collections.sort(records, KEY_ORDER);
+		
+		PriorityQueue<RunReader> queue = new PriorityQueue<RunReader>(runs.size() + 1, new Comparator<RunReader>() {
+			@Override
+			public int compare(RunReader r1, RunReader r2) {
+				return r1.current.key.compareTo(r2.current.key);
+			}
+		});
+		for (File run : runs) {
+			RunReader runReader = new RunReader(run);
+			if (runReader.current != null)
+				queue.add(runReader);
+		}
+		RunReader memory = new RunReader(records);
+		if (memory.current != null)
+			queue.add(memory);
+		
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)));
+		Record pending = null;
+		while (!queue.isEmpty()) {
+			RunReader runReader = queue.poll();
+			Record record = runReader.current;
+			runReader.advance();
+			if (runReader.current != null)
+				queue.add(runReader);
+			
+			if (pending != null && pending.key.equals(record.key)) {
+				merge(pending, record);
+				continue;
+			}
+			if (pending != null)
+				addRecord(pending);
+			pending = new Record(record.key, Arrays.copyOf(record.values, record.values.length));
+		}
+		if (pending != null)
+			addRecord(pending);
+		writeTrailer();
+		out.close();
+		
+		for (File run : runs)
+			run.delete();
+		runs.clear();
+	}
+	
+	public static void main(String[] args) {
+		if (args.length < 4) {
+			System.err.println("java -cp gaea-1.0.0.jar " + LocalDBBuilder.class.getName()
+					+ " input.tsv[.gz] output_dir table_name key_columns [stored_columns] [block_size]");
+			System.err.println("\tkey_columns: comma separated header columns joined by '-' as rowKey, e.g. CHR,POS,END");
+			System.err.println("\tstored_columns: comma separated header columns to store, default all (e.g. id for an index table)");
+			System.exit(1);
+		}
+		
+		String storedColumns = args.length > 4 && !args[4].isEmpty() ? args[4] : null;
+		int blockSize = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_BLOCK_SIZE;
+		LocalDBBuilder builder = new LocalDBBuilder(blockSize);
+		try {
+			builder.build(args[0], args[1], args[2], args[3], storedColumns);
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString());
+		}
+		
+		System.out.println("build local table " + args[2] + " finish!!");
+	}
+}
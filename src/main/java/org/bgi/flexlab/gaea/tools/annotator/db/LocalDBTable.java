@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.annotator.db;
+
+import org.bgi.flexlab.gaea.data.structure.memoryshare.BioMemoryShare;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 本地注释数据库的一张表, 由LocalDBBuilder生成, 文件按rowKey排序并分块压缩.
+ * 
+ * 文件格式: 压缩块..., 表尾(列名, 块索引), 表尾偏移(long), MAGIC(int).
+ * 块解压后为连续记录: rowKey(UTF), 行字节数(int), 每列值(int长度 + UTF-8字节, 长度-1为空).
+ * 块索引(每块第一个rowKey)常驻内存, 查询时二分定位块, 解压后顺序查找.
+ */
+public class LocalDBTable extends BioMemoryShare {
+	public final static String SUFFIX = ".kv";
+	public final static int MAGIC = 0x47414b56;
+	
+	private String[] columns;
+	private String[] firstKeys;
+	private long[] blockOffsets;
+	private int[] blockLengths;
+	private int[] rawLengths;
+	
+	private int cachedBlock = -1;
+	private byte[] cachedBytes = null;
+	private final Inflater inflater = new Inflater();
+
+	public LocalDBTable(String path) {
+		super(1);
+		loadChromosome(path);
+		try {
+			readTrailer();
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString());
+		}
+	}
+	
+	private byte[] copyBytes(long from, int length) {
+		byte[] bytes = new byte[length];
+		getBytes(from, bytes, 0, length);
+		return bytes;
+	}
+	
+	private void readTrailer() throws IOException {
+		long footer = getMappedSize() - Long.BYTES - Integer.BYTES;
+		if (footer < 0 || getInt(footer + Long.BYTES) != MAGIC)
+			throw new IOException("not a local annotation table");
+		long trailerOffset = getLong(footer);
+		
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(copyBytes(trailerOffset, (int) (footer - trailerOffset))));
+		columns = new String[in.readInt()];
+		for (int i = 0; i < columns.length; i++)
+			columns[i] = in.readUTF();
+		
+		int blockCount = in.readInt();
+		firstKeys = new String[blockCount];
+		blockOffsets = new long[blockCount];
+		blockLengths = new int[blockCount];
+		rawLengths = new int[blockCount];
+		for (int i = 0; i < blockCount; i++) {
+			firstKeys[i] = in.readUTF();
+			blockOffsets[i] = in.readLong();
+			blockLengths[i] = in.readInt();
+			rawLengths[i] = in.readInt();
+		}
+		in.close();
+	}
+	
+	public String[] getColumns() {
+		return columns;
+	}
+	
+	/**
+	 * 最后一个首key不大于rowKey的块, 没有返回-1
+	 */
+	private int findBlock(String rowKey) {
+		int low = 0, high = firstKeys.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (firstKeys[mid].compareTo(rowKey) <= 0)
+				low = mid + 1;
+			else
+				high = mid - 1;
+		}
+		return high;
+	}
+	
+	private byte[] getBlock(int block) throws IOException {
+		if (block == cachedBlock)
+			return cachedBytes;
+		
+		byte[] raw = new byte[rawLengths[block]];
+		inflater.reset();
+		inflater.setInput(copyBytes(blockOffsets[block], blockLengths[block]));
+		try {
+			int n = 0;
+			while (n < raw.length && !inflater.finished())
+				n += inflater.inflate(raw, n, raw.length - n);
+		} catch (DataFormatException e) {
+			throw new IOException(e.toString());
+		}
+		cachedBlock = block;
+		cachedBytes = raw;
+		return raw;
+	}
+	
+	/**
+	 * rowKey对应的整行, 列名到值, 查不到返回空HashMap
+	 */
+	public synchronized HashMap<String, String> get(String rowKey) throws IOException {
+		HashMap<String, String> row = new HashMap<String, String>();
+		int block = findBlock(rowKey);
+		if (block < 0)
+			return row;
+		
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(getBlock(block)));
+		while (in.available() > 0) {
+			int cmp = in.readUTF().compareTo(rowKey);
+			int rowLength = in.readInt();
+			if (cmp < 0) {
+				in.skipBytes(rowLength);
+				continue;
+			}
+			if (cmp == 0) {
+				for (String column : columns) {
+					int length = in.readInt();
+					if (length < 0)
+						continue;
+					byte[] value = new byte[length];
+					in.readFully(value);
+					row.put(column, new String(value, "UTF-8"));
+				}
+			}
+			break;
+		}
+		return row;
+	}
+	
+	public void close() {
+		inflater.end();
+		try {
+			clean();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
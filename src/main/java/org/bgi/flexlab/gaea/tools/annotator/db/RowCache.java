@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.annotator.db;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 数据库行结果的LRU缓存, key为 table:rowKey, 查不到的行以空HashMap缓存
+ * 批量预取的行在第一次lookup时计为prefetched, 不计为命中
+ */
+public class RowCache extends LinkedHashMap<String, HashMap<String, String>> {
+
+	private static final long serialVersionUID = 3262713930815360327L;
+	
+	private final int capacity;
+	private long hits = 0;
+	private long misses = 0;
+	private long prefetched = 0;
+	private HashSet<String> pendingPrefetch = new HashSet<String>();
+
+	public RowCache(int capacity) {
+		super(16, 0.75f, true);
+		this.capacity = capacity;
+	}
+
+	public static String rowId(String tableName, String rowKey) {
+		return tableName + ":" + rowKey;
+	}
+
+	public HashMap<String, String> lookup(String tableName, String rowKey) {
+		String id = rowId(tableName, rowKey);
+		HashMap<String, String> row = get(id);
+		if (row == null)
+			misses++;
+		else if (pendingPrefetch.remove(id))
+			prefetched++;
+		else
+			hits++;
+		return row;
+	}
+
+	public boolean contains(String tableName, String rowKey) {
+		return containsKey(rowId(tableName, rowKey));
+	}
+
+	public void add(String tableName, String rowKey, HashMap<String, String> row) {
+		if (capacity > 0)
+			put(rowId(tableName, rowKey), row == null ? new HashMap<String, String>() : row);
+	}
+	
+	/**
+	 * 批量预取的行, 在被lookup之前不计为缓存命中
+	 */
+	public void addPrefetched(String tableName, String rowKey, HashMap<String, String> row) {
+		add(tableName, rowKey, row);
+		if (capacity > 0)
+			pendingPrefetch.add(rowId(tableName, rowKey));
+	}
+
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<String, HashMap<String, String>> eldest) {
+		if (size() <= capacity)
+			return false;
+		pendingPrefetch.remove(eldest.getKey());
+		return true;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+	
+	public long getPrefetched() {
+		return prefetched;
+	}
+}
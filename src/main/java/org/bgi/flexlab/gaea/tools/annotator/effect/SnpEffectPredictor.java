@@ -44,6 +44,7 @@ import java.io.Serializable;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Predicts effects of Variants
@@ -58,6 +59,7 @@ public class SnpEffectPredictor implements Serializable {
 
 	boolean useChromosomes = true;
 	boolean debug;
+	boolean arrayIntervalIndex; // Build flat array interval trees instead of node based ones
 	int upDownStreamLength = DEFAULT_UP_DOWN_LENGTH;
 	int spliceSiteSize = SpliceSite.CORE_SPLICE_SITE_SIZE;
 	int spliceRegionExonSize = SpliceSite.SPLICE_REGION_EXON_SIZE;
@@ -105,6 +107,7 @@ public class SnpEffectPredictor implements Serializable {
 	public void addPerGene(String geneId, Marker marker) {
 		if (intervalForestGene == null) {
 			intervalForestGene = new IntervalForest();
+			intervalForestGene.setArrayIndex(arrayIntervalIndex);
 			intervalForestGene.setDebug(debug);
 		}
 		intervalForestGene.getOrCreateTreeChromo(geneId).add(marker);
@@ -115,6 +118,7 @@ public class SnpEffectPredictor implements Serializable {
 	 */
 	public void buildForest() {
 		intervalForest = new IntervalForest();
+		intervalForest.setArrayIndex(arrayIntervalIndex);
 		intervalForest.setDebug(debug);
 
 		// Add all chromosomes to forest
@@ -280,6 +284,13 @@ public class SnpEffectPredictor implements Serializable {
 		return marker.query(intervalForest);
 	}
 
+	/**
+	 * Visit all intervals that intersect 'marker', without collecting them
+	 */
+	public void query(Marker marker, Consumer<Marker> visitor) {
+		marker.query(intervalForest, visitor);
+	}
+
 	/**
 	 * Find closest gene to this marker
 	 *
@@ -533,6 +544,10 @@ public class SnpEffectPredictor implements Serializable {
 		this.spliceRegionIntronMin = spliceRegionIntronMin;
 	}
 
+	public void setArrayIntervalIndex(boolean arrayIntervalIndex) {
+		this.arrayIntervalIndex = arrayIntervalIndex;
+	}
+
 	public void setSpliceSiteSize(int spliceSiteSize) {
 		this.spliceSiteSize = spliceSiteSize;
 	}
@@ -592,25 +607,31 @@ public class SnpEffectPredictor implements Serializable {
 
 		//---
 		// Query interval tree: Which intervals does variant intersect?
+		// Small variants are annotated while the tree is traversed
 		//---
+		if (!structuralVariant) {
+			MarkerEffectVisitor visitor = new MarkerEffectVisitor(variant, variantEffects);
+			query(variant, visitor);
+			visitor.finish();
+			return variantEffects;
+		}
+
 		Markers intersects = query(variant);
 
 		// In case of large structural variants, we need to check the number of genes
 		// involved. If more than one, then we need a different approach (e.g. taking
 		// into account all genes involved to calculate fusions)");
-		if (structuralVariant) {
-			if (variant.isBnd()) {
-				System.err.println("Break-ends (rearrangement) variant can not annotated now!");
-//				variantEffectBnd(variant, variantEffects, intersects);
-				return variantEffects;
-			}
+		if (variant.isBnd()) {
+			System.err.println("Break-ends (rearrangement) variant can not annotated now!");
+//			variantEffectBnd(variant, variantEffects, intersects);
+			return variantEffects;
+		}
 
-			// Calculated effect based on multiple genes
-			intersects = variantEffectStructural(variant, variantEffects, intersects);
+		// Calculated effect based on multiple genes
+		intersects = variantEffectStructural(variant, variantEffects, intersects);
 
-			// Are we done?
-			if (intersects == null) return variantEffects;
-		}
+		// Are we done?
+		if (intersects == null) return variantEffects;
 
 		// Calculate variant effect for each query result
 		variantEffect(variant, variantEffects, intersects);
@@ -622,9 +643,28 @@ public class SnpEffectPredictor implements Serializable {
 	 * Calculate variant effect for each marker in 'intersect'
 	 */
 	protected void variantEffect(Variant variant, VariantEffects variantEffects, Markers intersects) {
-		// Show all results
-		boolean hitChromo = false, hitSomething = false;
-		for (Marker marker : intersects) {
+		MarkerEffectVisitor visitor = new MarkerEffectVisitor(variant, variantEffects);
+		for (Marker marker : intersects)
+			visitor.accept(marker);
+		visitor.finish();
+	}
+
+	/**
+	 * Calculate variant effect for each marker it is passed, then add
+	 * errors or intergenic effect in finish()
+	 */
+	class MarkerEffectVisitor implements Consumer<Marker> {
+		private final Variant variant;
+		private final VariantEffects variantEffects;
+		private boolean hitChromo = false, hitSomething = false;
+
+		MarkerEffectVisitor(Variant variant, VariantEffects variantEffects) {
+			this.variant = variant;
+			this.variantEffects = variantEffects;
+		}
+
+		@Override
+		public void accept(Marker marker) {
 			if (marker instanceof Chromosome) hitChromo = true; // Do we hit any chromosome?
 			else {
 				// Analyze all markers
@@ -642,25 +682,26 @@ public class SnpEffectPredictor implements Serializable {
 				hitSomething = true;
 			}
 		}
-		
-		// Any errors or intergenic (i.e. did not hit any gene)
-		if (!hitChromo) {
-			// Special case: Insertion right after chromosome's last base
-			Chromosome chr = genome.getChromosome(variant.getChromosomeName());
-			if (variant.isIns() && variant.getStart() == (chr.getEnd() + 1)) {
-				// This is a chromosome extension
-				variantEffects.add(variant, null, EffectType.CHROMOSOME_ELONGATION, "");
-			} else if (Config.get().isErrorChromoHit()) {
-				variantEffects.addErrorWarning(variant, ErrorWarningType.ERROR_OUT_OF_CHROMOSOME_RANGE);
-			}
-		} else if (!hitSomething) {
-			if (Config.get().isOnlyRegulation()) {
-				variantEffects.add(variant, null, EffectType.NONE, "");
-			} else {
-				variantEffects.add(variant, null, EffectType.INTERGENIC, "");
+
+		void finish() {
+			// Any errors or intergenic (i.e. did not hit any gene)
+			if (!hitChromo) {
+				// Special case: Insertion right after chromosome's last base
+				Chromosome chr = genome.getChromosome(variant.getChromosomeName());
+				if (variant.isIns() && variant.getStart() == (chr.getEnd() + 1)) {
+					// This is a chromosome extension
+					variantEffects.add(variant, null, EffectType.CHROMOSOME_ELONGATION, "");
+				} else if (Config.get().isErrorChromoHit()) {
+					variantEffects.addErrorWarning(variant, ErrorWarningType.ERROR_OUT_OF_CHROMOSOME_RANGE);
+				}
+			} else if (!hitSomething) {
+				if (Config.get().isOnlyRegulation()) {
+					variantEffects.add(variant, null, EffectType.NONE, "");
+				} else {
+					variantEffects.add(variant, null, EffectType.INTERGENIC, "");
+				}
 			}
 		}
-		
 	}
 
 	/**
@@ -670,9 +711,7 @@ public class SnpEffectPredictor implements Serializable {
 		Itree itree = intervalForestGene.getTree(geneId);
 		if (itree == null) return;
 
-		Markers res = itree.query(variant);
-		for (Marker m : res)
-			m.variantEffect(variant, variantEffects);
+		itree.query(variant.getStart(), variant.getEnd(), m -> m.variantEffect(variant, variantEffects));
 	}
 
 	/**
@@ -65,7 +65,7 @@ public class Genome extends Marker implements Serializable, Iterable<Chromosome>
 	Genes genes; // All genes, transcripts, exons, UTRs, CDS, etc.
 	Boolean codingInfo = null; // Do we have coding info from genes?
 	Boolean transcriptSupportLevelInfo = null; // Do we have 'TranscriptSupportLevel' info in transcripts?
-	ReferenceShare genomeShare;
+	transient ReferenceShare genomeShare; // memory mapped reference, re-attached after loading a snapshot
 
 	/**
 	 * Create a genome from a faidx file.
@@ -204,6 +204,10 @@ public class Genome extends Marker implements Serializable, Iterable<Chromosome>
 		return genomeShare.getChromosomeInfo(chromoName);
 	}
 	
+	public void setGenomeShare(ReferenceShare genomeShare) {
+		this.genomeShare = genomeShare;
+	}
+
 	public int getChromosomeLength(String chromoName) {
 		return genomeShare.getChromosomeInfo(chromoName).getLength();
 	}
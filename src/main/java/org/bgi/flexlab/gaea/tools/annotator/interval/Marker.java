@@ -46,6 +46,7 @@ import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * An interval intended as a mark
@@ -563,6 +564,13 @@ public class Marker extends Interval{
 		return intervalForest.query(this);
 	}
 
+	/**
+	 * Visit all intervals that intersect this marker, in the same order as query(IntervalForest)
+	 */
+	public void query(IntervalForest intervalForest, Consumer<Marker> visitor) {
+		intervalForest.query(getChromosomeName(), getStart(), getEnd(), visitor);
+	}
+
 	/**
 	 * Query all genomic regions that intersect 'marker' (this makes sense in Gene, Transcript, Exon, etc.)
 	 */
@@ -36,6 +36,8 @@ package org.bgi.flexlab.gaea.tools.annotator.interval;
 
 import org.bgi.flexlab.gaea.tools.annotator.interval.tree.IntervalForest;
 
+import java.util.function.Consumer;
+
 /**
  * A translocation consisting of two endpoints
  *
@@ -94,6 +96,15 @@ public class VariantTranslocation extends Variant {
 		return res1;
 	}
 
+	/**
+	 * Visit all intervals that intersect both ends of this variant
+	 */
+	@Override
+	public void query(IntervalForest intervalForest, Consumer<Marker> visitor) {
+		super.query(intervalForest, visitor);
+		endPoint.query(intervalForest, visitor);
+	}
+
 	@Override
 	public Variant realignLeft() {
 		// Do not realign translocations
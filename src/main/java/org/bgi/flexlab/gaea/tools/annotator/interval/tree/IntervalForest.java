@@ -41,6 +41,7 @@ import org.bgi.flexlab.gaea.tools.annotator.util.Gpr;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * A set of interval trees (e.g. one per chromosome, one per transcript ID, etc)
@@ -52,6 +53,7 @@ public class IntervalForest implements Serializable, Iterable<Itree> {
 	private static final long serialVersionUID = 1L;
 
 	boolean debug;
+	boolean arrayIndex; // Use flat array trees (IntervalTreeArray) instead of IntervalTree
 	HashMap<String, Itree> forest;
 
 	public IntervalForest() {
@@ -185,6 +187,7 @@ public class IntervalForest implements Serializable, Iterable<Itree> {
 	 * In oder to change the implementation, only this method should be changed.
 	 */
 	protected Itree newItree() {
+		if (arrayIndex) return new IntervalTreeArray();
 		return new IntervalTree();
 	}
 
@@ -195,6 +198,14 @@ public class IntervalForest implements Serializable, Iterable<Itree> {
 		return getOrCreateTreeChromo(marker.getChromosomeName()).query(marker);
 	}
 
+	/**
+	 * Visit all intervals that intersect [start, end] in chromosome 'chromo'
+	 */
+	public void query(String chromo, int start, int end, Consumer<Marker> visitor) {
+		Itree itree = getTreeChromo(chromo);
+		if (itree != null) itree.query(start, end, visitor);
+	}
+
 	/**
 	 * Query all intervals that intersect with any interval in 'intervals'
 	 */
@@ -232,6 +243,13 @@ public class IntervalForest implements Serializable, Iterable<Itree> {
 		return ints;
 	}
 
+	/**
+	 * Select the tree implementation, must be set before any interval is added
+	 */
+	public void setArrayIndex(boolean arrayIndex) {
+		this.arrayIndex = arrayIndex;
+	}
+
 	public void setDebug(boolean debug) {
 		this.debug = debug;
 	}
@@ -39,6 +39,7 @@ import org.bgi.flexlab.gaea.tools.annotator.interval.Marker;
 import org.bgi.flexlab.gaea.tools.annotator.interval.Markers;
 
 import java.io.Serializable;
+import java.util.function.Consumer;
 
 /**
  * Node for interval tree structure
@@ -132,6 +133,19 @@ public class IntervalNode implements Serializable {
 		return results;
 	}
 
+	/**
+	 * Visit all intervals intersecting [start, end]
+	 */
+	public void query(int start, int end, Consumer<Marker> visitor) {
+		if (intervalsCenter != null) {
+			for (Marker marker : intervalsCenter)
+				if (marker.intersects(start, end)) visitor.accept(marker);
+		}
+
+		if (start < center && leftNode != null) leftNode.query(start, end, visitor);
+		if (end > center && rightNode != null) rightNode.query(start, end, visitor);
+	}
+
 	/**
 	 * Perform a stabbing query on the node
 	 * @param point the time to query at
@@ -40,6 +40,7 @@ import org.bgi.flexlab.gaea.tools.annotator.interval.Markers;
 
 import java.io.Serializable;
 import java.util.Iterator;
+import java.util.function.Consumer;
 
 /**
  * An Interval Tree is essentially a map from intervals to objects, which
@@ -162,6 +163,12 @@ public class IntervalTree implements Itree, Serializable {
 		return head.query(interval);
 	}
 
+	@Override
+	public void query(int start, int end, Consumer<Marker> visitor) {
+		if (!inSync) throw new RuntimeException("Interval tree needs to be updated!");
+		head.query(start, end, visitor);
+	}
+
 	/**
 	 * Size: number of entries in the interval list
 	 */
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.annotator.interval.tree;
+
+import org.bgi.flexlab.gaea.tools.annotator.interval.Interval;
+import org.bgi.flexlab.gaea.tools.annotator.interval.Marker;
+import org.bgi.flexlab.gaea.tools.annotator.interval.Markers;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Immutable interval index stored as flat arrays (implicit augmented interval tree).
+ *
+ * Intervals are sorted by start; element i is an in-order node of an implicit
+ * binary tree (level = number of trailing 1 bits of i) and maxEnds[i] is the
+ * largest end in its subtree. Queries walk the arrays without creating nodes.
+ */
+public class IntervalTreeArray implements Itree, Serializable {
+
+	private static final long serialVersionUID = -2374683934261851907L;
+
+	/* subtrees at or below this level are scanned linearly */
+	private static final int SCAN_LEVEL = 3;
+
+	protected Markers intervals;
+	protected boolean inSync;
+
+	protected Marker[] markers;
+	protected int[] starts;
+	protected int[] ends;
+	protected int[] maxEnds;
+	protected int maxLevel;
+
+	public IntervalTreeArray() {
+		intervals = new Markers();
+		markers = new Marker[0];
+		starts = ends = maxEnds = new int[0];
+		maxLevel = -1;
+		inSync = true;
+	}
+
+	@Override
+	public void add(Marker interval) {
+		intervals.add(interval);
+		inSync = false;
+	}
+
+	@Override
+	public void add(Markers markers) {
+		intervals.add(markers);
+		inSync = false;
+	}
+
+	@Override
+	public void build() {
+		if (inSync) return;
+
+		int n = intervals.size();
+		Marker[] sorted = intervals.toArray();
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++)
+			keys[i] = ((long) sorted[i].getStart() << 32) | i;
+		Arrays.sort(keys);
+
+		markers = new Marker[n];
+		starts = new int[n];
+		ends = new int[n];
+		maxEnds = new int[n];
+		for (int i = 0; i < n; i++) {
+			Marker m = sorted[(int) keys[i]];
+			markers[i] = m;
+			starts[i] = m.getStart();
+			ends[i] = m.getEnd();
+		}
+
+		maxLevel = index();
+		inSync = true;
+	}
+
+	/**
+	 * Fill maxEnds bottom-up, return the level of the root
+	 */
+	private int index() {
+		int n = starts.length;
+		if (n == 0) return -1;
+
+		int lastIdx = 0, last = 0;
+		for (int i = 0; i < n; i += 2) {
+			lastIdx = i;
+			last = maxEnds[i] = ends[i];
+		}
+
+		int k = 1;
+		for (; (1L << k) <= n; k++) {
+			int x = 1 << (k - 1);
+			int step = x << 2;
+			for (int i = (x << 1) - 1; i < n; i += step) {
+				int e = Math.max(ends[i], maxEnds[i - x]);
+				e = Math.max(e, i + x < n ? maxEnds[i + x] : last);
+				maxEnds[i] = e;
+			}
+			lastIdx = ((lastIdx >> k) & 1) != 0 ? lastIdx - x : lastIdx + x;
+			if (lastIdx < n && maxEnds[lastIdx] > last) last = maxEnds[lastIdx];
+		}
+		return k - 1;
+	}
+
+	@Override
+	public Markers getIntervals() {
+		return intervals;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return intervals.isEmpty();
+	}
+
+	@Override
+	public boolean isInSync() {
+		return inSync;
+	}
+
+	@Override
+	public Iterator<Marker> iterator() {
+		return intervals.iterator();
+	}
+
+	@Override
+	public Markers query(Interval interval) {
+		Markers results = new Markers();
+		query(interval.getStart(), interval.getEnd(), results::add);
+		return results;
+	}
+
+	@Override
+	public void query(int start, int end, Consumer<Marker> visitor) {
+		if (!inSync) throw new RuntimeException("Interval tree needs to be updated!");
+		if (maxLevel >= 0) query((1 << maxLevel) - 1, maxLevel, start, end, visitor);
+	}
+
+	/**
+	 * Visit all intervals in the subtree rooted at 'x' (level 'k') intersecting [start, end]
+	 */
+	private void query(int x, int k, int start, int end, Consumer<Marker> visitor) {
+		int n = starts.length;
+		if (k <= SCAN_LEVEL) {
+			int i0 = x >> k << k;
+			int i1 = Math.min(n, i0 + (1 << (k + 1)) - 1);
+			for (int i = i0; i < i1 && starts[i] <= end; i++)
+				if (ends[i] >= start) visitor.accept(markers[i]);
+			return;
+		}
+
+		int half = 1 << (k - 1);
+		int left = x - half;
+		if (left >= n || maxEnds[left] >= start) query(left, k - 1, start, end, visitor);
+
+		if (x < n && starts[x] <= end) {
+			if (ends[x] >= start) visitor.accept(markers[x]);
+			query(x + half, k - 1, start, end, visitor);
+		}
+	}
+
+	@Override
+	public int size() {
+		return intervals.size();
+	}
+
+	@Override
+	public Markers stab(int point) {
+		Markers results = new Markers();
+		query(point, point, results::add);
+		return results;
+	}
+
+	@Override
+	public String toString() {
+		return "IntervalTreeArray size:" + markers.length + " levels:" + (maxLevel + 1);
+	}
+}
@@ -38,6 +38,8 @@ import org.bgi.flexlab.gaea.tools.annotator.interval.Interval;
 import org.bgi.flexlab.gaea.tools.annotator.interval.Marker;
 import org.bgi.flexlab.gaea.tools.annotator.interval.Markers;
 
+import java.util.function.Consumer;
+
 /**
  * Interval tree interface
  */
@@ -82,6 +84,12 @@ public interface Itree extends Iterable<Marker> {
 	 */
 	public Markers query(Interval interval);
 
+	/**
+	 * Perform an interval query, passing each interval that
+	 * intersects [start, end] to 'visitor' instead of collecting them
+	 */
+	public void query(int start, int end, Consumer<Marker> visitor);
+
 	/**
 	 * Size: number of entries in this tree
 	 */
@@ -16,7 +16,7 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report;
 
-import org.apache.hadoop.mapreduce.Reducer.Context;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.BaseCounter;
@@ -46,7 +46,7 @@ public class BasicReport{
 		register();
 	}
 	
-	public boolean constructMapReport(SamRecordDatum datum, ReferenceShare genome, String chrName, Context context) {
+	public boolean constructMapReport(SamRecordDatum datum, ReferenceShare genome, String chrName, TaskInputOutputContext<?, ?, ?, ?> context) {
 		ChromosomeInformationShare chrInfo = genome.getChromosomeInfo(chrName);
 		rTracker.setTrackerAttribute(ReadType.TOTALREADS);
 		// 当位点坐标值+read长度大于染色体的长度时，则不处理该read，进入下一次循环
@@ -124,6 +124,17 @@ public class BasicReport{
 	public String toReducerString() {
 		StringBuffer basicString = new StringBuffer();
 		basicString.append("Basic Information:\n");
+		basicString.append(toCounterString());
+		basicString.append("\n");
+		
+		return basicString.toString();
+	}
+	
+	/**
+	 * counters as one "key value\t" line, the format read back by parse()
+	 */
+	public String toCounterString() {
+		StringBuffer basicString = new StringBuffer();
 		for(Entry<String, ReadsCounter> counter : rTracker.getCounterMap().entrySet()) {
 			basicString.append(counter.getKey());
 			basicString.append(" ");
@@ -136,8 +147,6 @@ public class BasicReport{
 			basicString.append(counter.getValue().getProperty());
 			basicString.append("\t");
 		}
-		basicString.append("\n");
-		
 		return basicString.toString();
 	}
 	
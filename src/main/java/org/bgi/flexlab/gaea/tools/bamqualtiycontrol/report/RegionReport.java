@@ -97,6 +97,16 @@ public class RegionReport{
 	public String toReducerString() {
 		StringBuffer regionString = new StringBuffer();
 		regionString.append("Target Information:\n");
+		regionString.append(toCounterString());
+		regionString.append("\n");
+		return regionString.toString();
+	}
+	
+	/**
+	 * counters as one "key value\t" line, the format read back by parse()
+	 */
+	public String toCounterString() {
+		StringBuffer regionString = new StringBuffer();
 		for(Entry<String, ReadsCounter> counter : rTracker.getCounterMap().entrySet()) {
 			regionString.append(counter.getKey());
 			regionString.append(" ");
@@ -109,7 +119,6 @@ public class RegionReport{
 			regionString.append(counter.getValue().getProperty());
 			regionString.append("\t");
 		}
-		regionString.append("\n");
 		return regionString.toString();
 	}
 	
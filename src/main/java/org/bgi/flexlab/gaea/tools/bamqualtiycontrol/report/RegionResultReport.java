@@ -23,7 +23,6 @@ import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
-import org.apache.hadoop.mapreduce.Reducer.Context;
 import org.apache.hadoop.util.LineReader;
 import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
 import org.bgi.flexlab.gaea.data.structure.positioninformation.depth.PositionDepth;
@@ -36,7 +35,6 @@ import org.bgi.flexlab.gaea.data.structure.region.TargetRegion;
 import org.bgi.flexlab.gaea.data.structure.region.statistic.BedSingleRegionStatistic;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.RegionReport.Sex;
 import org.bgi.flexlab.gaea.tools.mapreduce.bamqualitycontrol.BamQualityControlOptions;
-import org.bgi.flexlab.gaea.util.SamRecordDatum;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -68,13 +66,9 @@ public class RegionResultReport extends ResultReport{
 					
 	public RegionResultReport(BamQualityControlOptions options, Configuration conf) throws IOException {
 		super(options);
-		region = new TargetRegion();
+		region = loadTargetRegion(options);
 		cnvRegion = new SingleRegion();
-		if (options.getRegion() != null) {
-			region.parseRegion(options.getRegion(), true);
-		}
 		if (options.getBedfile() != null) {
-			region.parseBedFileFromHDFS(options.getBedfile(), true);
 			bedRegion = new SingleRegion();
 			bedRegion.parseRegionsFileFromHDFS(options.getBedfile(), true, 0);
 			genderRegion = new SingleRegion();
@@ -103,8 +97,19 @@ public class RegionResultReport extends ResultReport{
 		}
 	}
 	
-	private void initSampleLaneSize(Configuration conf) {
-		SAMFileHeader mFileHeader = SamHdfsFileHeader.getHeader(conf);
+	public static TargetRegion loadTargetRegion(BamQualityControlOptions options) throws IOException {
+		TargetRegion region = new TargetRegion();
+		if (options.getRegion() != null) {
+			region.parseRegion(options.getRegion(), true);
+		}
+		if (options.getBedfile() != null) {
+			region.parseBedFileFromHDFS(options.getBedfile(), true);
+		}
+		return region;
+	}
+	
+	public static Map<String, Integer> countSampleLanes(SAMFileHeader mFileHeader) {
+		Map<String, Integer> sampleLaneSize = new HashMap<>();
 		for(SAMReadGroupRecord rg : mFileHeader.getReadGroups()) {
 			if(sampleLaneSize.containsKey(rg.getSample())) {
 				int tmp = sampleLaneSize.get(rg.getSample());
@@ -113,13 +118,18 @@ public class RegionResultReport extends ResultReport{
 				sampleLaneSize.put(rg.getSample(), 1);
 			}
 		}
+		return sampleLaneSize;
+	}
+	
+	private void initSampleLaneSize(Configuration conf) {
+		sampleLaneSize.putAll(countSampleLanes(SamHdfsFileHeader.getHeader(conf)));
 	}
 	
 	@Override
-	public boolean mappedReport(SamRecordDatum datum, String chrName, Context context) {
-		super.mappedReport(datum, chrName, context);
-		regionReport.constructMapReport(chrName, datum);
-		return true;
+	public void mergeMappedReport(String basic, String region, int[] insert, int[] insertWithoutDup) {
+		super.mergeMappedReport(basic, region, insert, insertWithoutDup);
+		if(!region.isEmpty())
+			regionReport.parse(region);
 	}
 	
 	@Override
@@ -17,11 +17,9 @@
 package org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report;
 
 import org.apache.hadoop.io.Text;
-import org.apache.hadoop.mapreduce.Reducer.Context;
 import org.apache.hadoop.util.LineReader;
 import org.bgi.flexlab.gaea.data.structure.positioninformation.depth.PositionDepth;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
-import org.bgi.flexlab.gaea.util.SamRecordDatum;
 
 import java.io.IOException;
 
@@ -47,16 +45,16 @@ public class ReportBuilder {
 			((RegionResultReport) report).initReports(sampleName);
 	}
 	
-	public boolean unmappedReport(long winNum, String chrName, Iterable<Text> values) {
-		return report.unmappedReport(winNum, chrName, values);
+	public boolean unmappedReport(long winNum, String chrName, long unmappedCount) {
+		return report.unmappedReport(winNum, chrName, unmappedCount);
 	}
 	
 	public void finalizeUnmappedReport(String chrName) {
 		report.finalizeUnmappedReport(chrName);
 	}
 	
-	public boolean mappedReport(SamRecordDatum datum, String chrName, Context context) {
-		return report.mappedReport(datum, chrName, context);
+	public void mergeMappedReport(String basic, String region, int[] insert, int[] insertWithoutDup) {
+		report.mergeMappedReport(basic, region, insert, insertWithoutDup);
 	}
 	
 	public void constructDepthReport(PositionDepth pd, int i, String chrName, long pos) {
@@ -67,10 +65,6 @@ public class ReportBuilder {
 		report.singleRegionReports(chrName, winStart, winSize, pd);
 	}
 	
-	public void insertReport(SamRecordDatum datum) {
-		report.insertReport(datum);
-	}
-	
 	public int getSampleLaneSzie(String sample) {
 		return report instanceof RegionResultReport ? ((RegionResultReport) report).getSampleLaneSize(sample) : 0;
 	}
@@ -20,7 +20,6 @@ import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
-import org.apache.hadoop.mapreduce.Reducer.Context;
 import org.apache.hadoop.util.LineReader;
 import org.bgi.flexlab.gaea.data.structure.positioninformation.depth.PositionDepth;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
@@ -28,7 +27,6 @@ import org.bgi.flexlab.gaea.data.structure.region.SingleRegion;
 import org.bgi.flexlab.gaea.data.structure.region.SingleRegion.Regiondata;
 import org.bgi.flexlab.gaea.data.structure.region.statistic.CNVSingleRegionStatistic;
 import org.bgi.flexlab.gaea.tools.mapreduce.bamqualitycontrol.BamQualityControlOptions;
-import org.bgi.flexlab.gaea.util.SamRecordDatum;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -90,12 +88,20 @@ public abstract class ResultReport {
 		Arrays.fill(insertSizeWithoutDup, 0);
 	}
 	
-	public boolean unmappedReport(long winNum, String chrName, Iterable<Text> values) {
-		return unmappedReport.constructMapReport(winNum, chrName, values, basicReport);
+	public boolean unmappedReport(long winNum, String chrName, long unmappedCount) {
+		return unmappedReport.constructMapReport(winNum, chrName, unmappedCount, basicReport);
 	}
 	
-	public boolean mappedReport(SamRecordDatum datum, String chrName, Context context) {
-		return basicReport.constructMapReport(datum, genome, chrName, context);
+	/**
+	 * merge the per read statistics of one window computed on the map side
+	 */
+	public void mergeMappedReport(String basic, String region, int[] insert, int[] insertWithoutDup) {
+		if(!basic.isEmpty())
+			basicReport.parse(basic);
+		for(int i = 0; i < insert.length && i < insertSize.length; i++)
+			insertSize[i] += insert[i];
+		for(int i = 0; i < insertWithoutDup.length && i < insertSizeWithoutDup.length; i++)
+			insertSizeWithoutDup[i] += insertWithoutDup[i];
 	}
 	
 	public void regionCoverReport(int depth, int noPCRdepth) {
@@ -114,18 +120,6 @@ public abstract class ResultReport {
 			cnvSingleRegionReport.getStatisticString(chrName, (int) winStart, winSize, pd.getRMDupPosDepth(), "cnv");
 	}
 	
-	public void insertReport(SamRecordDatum datum) {
-		if((datum.getFlag() & 0x40) != 0) {
-			int insert = datum.getInsertSize();
-			if(Math.abs(insert) < 2000) {
-				insertSize[Math.abs(insert)]++;
-				if(!datum.isDup()) {
-					insertSizeWithoutDup[Math.abs(insert)]++;
-				}
-			}
-		}
-	}
-	
 	protected void insertSizeReportReducerString(StringBuffer info, int[] insertSize) {
 		for(int i = 0; i < insertSize.length; i++) {
 			if(insertSize[i] != 0) {
@@ -16,11 +16,9 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report;
 
-import org.apache.hadoop.io.Text;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.counter.CounterProperty.ReadType;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -63,13 +61,10 @@ public class UnmappedReport {
 		return unmappedSites.get(chrName);
 	}
 	
-	public boolean constructMapReport(long winNum, String chrName, Iterable<Text> values, BasicReport basicReport) {
+	public boolean constructMapReport(long winNum, String chrName, long unmappedCount, BasicReport basicReport) {
 		if(winNum < 0 || chrName.equals("-1")) {//unmapped
-			Iterator<Text> vals = values.iterator();
-			while (vals.hasNext()) {
+			for(long i = 0; i < unmappedCount; i++)
 				basicReport.getReadsTracker().setTrackerAttribute(ReadType.TOTALREADS);
-				vals.next();
-			}
 			return true;
 		}
 		return false;
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report;
+
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.QualityControlWindowWritable;
+import org.bgi.flexlab.gaea.data.structure.positioninformation.CompoundInformation;
+import org.bgi.flexlab.gaea.data.structure.positioninformation.depth.PositionDepth;
+import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
+import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
+import org.bgi.flexlab.gaea.data.structure.region.TargetRegion;
+import org.bgi.flexlab.gaea.util.SamRecordDatum;
+
+import java.util.Arrays;
+
+/**
+ * per read statistics of one window built on the map side, merged into
+ * ResultReport by the reducer through mergeMappedReport
+ */
+public class WindowReport {
+	
+	private PositionDepth deep;
+	
+	private TargetRegion region;
+	
+	private BasicReport basicReport;
+	
+	private RegionReport regionReport;
+	
+	private int[] insertSize;
+	
+	private int[] insertSizeWithoutDup;
+	
+	private String chrName;
+	
+	private ChromosomeInformationShare chrInfo;
+	
+	private int winStart;
+	
+	private int from;
+	
+	private int to;
+	
+	public WindowReport(int winSize, boolean isGenderDepth, int laneSize, TargetRegion region, int insertSizeLength, int insertSizeWithoutDupLength) {
+		deep = new PositionDepth(winSize, isGenderDepth, laneSize);
+		this.region = region;
+		insertSize = new int[insertSizeLength];
+		insertSizeWithoutDup = new int[insertSizeWithoutDupLength];
+		from = 0;
+		to = 0;
+	}
+	
+	/**
+	 * start a new window, depth of the previous one is cleared
+	 */
+	public void init(String chrName, ChromosomeInformationShare chrInfo, int winStart) {
+		if(from < to)
+			deep.clear(from, to);
+		from = deep.getWindowSize();
+		to = 0;
+		this.chrName = chrName;
+		this.chrInfo = chrInfo;
+		this.winStart = winStart;
+		basicReport = new BasicReport();
+		if(region != null)
+			regionReport = new RegionReport(region);
+		Arrays.fill(insertSize, 0);
+		Arrays.fill(insertSizeWithoutDup, 0);
+	}
+	
+	public void add(SamRecordDatum datum, ReferenceShare genome, TaskInputOutputContext<?, ?, ?, ?> context) {
+		int winSize = deep.getWindowSize();
+		if(!deep.add(new CompoundInformation<SamRecordDatum>(winStart, winSize, datum, chrInfo))) 
+			context.getCounter("Exception", "null read info in depth class").increment(1);
+		from = Math.min(from, Math.max(datum.getPosition() - winStart, 0));
+		to = Math.max(to, Math.min(datum.getEnd() + 1 - winStart, winSize));
+		
+		if(datum.isRepeat())
+			return;
+		
+		boolean mapped = basicReport.constructMapReport(datum, genome, chrName, context);
+		if(regionReport != null) {
+			//target reads are counted even if the read ends beyond chromosome
+			regionReport.constructMapReport(chrName, datum);
+			mapped = true;
+		}
+		if(!mapped)
+			return;
+		
+		if((datum.getFlag() & 0x40) != 0) {
+			int insert = datum.getInsertSize();
+			if(Math.abs(insert) < 2000) {
+				insertSize[Math.abs(insert)]++;
+				if(!datum.isDup()) {
+					insertSizeWithoutDup[Math.abs(insert)]++;
+				}
+			}
+		}
+	}
+	
+	public void write(QualityControlWindowWritable value) {
+		if(from >= to) {
+			from = 0;
+			to = 0;
+		}
+		value.set(deep, from, to, basicReport.toCounterString(), 
+				regionReport == null ? "" : regionReport.toCounterString(), insertSize, insertSizeWithoutDup);
+	}
+	
+	public int getWindowSize() {
+		return deep.getWindowSize();
+	}
+	
+	public int getLaneSize() {
+		return deep.getLaneSize();
+	}
+}
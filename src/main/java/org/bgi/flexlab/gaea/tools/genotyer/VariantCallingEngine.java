@@ -45,6 +45,7 @@ package org.bgi.flexlab.gaea.tools.genotyer;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMReadGroupRecord;
 import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
 import htsjdk.variant.variantcontext.GenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
@@ -54,6 +55,8 @@ import org.bgi.flexlab.gaea.data.structure.header.VCFConstants;
 import org.bgi.flexlab.gaea.data.structure.location.GenomeLocation;
 import org.bgi.flexlab.gaea.data.structure.location.GenomeLocationParser;
 import org.bgi.flexlab.gaea.data.structure.pileup.Mpileup;
+import org.bgi.flexlab.gaea.data.structure.pileup.Pileup;
+import org.bgi.flexlab.gaea.data.structure.pileup.PileupColumns;
 import org.bgi.flexlab.gaea.data.structure.pileup.ReadsPool;
 import org.bgi.flexlab.gaea.data.structure.pileup.filter.PileupMappingBaseQualFilter;
 import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
@@ -123,6 +126,11 @@ public class VariantCallingEngine {
      */
     private final VariantAnnotatorEngine annotationEngine;
 
+    /**
+     * genotype likelihood calculators owned by this engine
+     */
+    private final Map<String, GenotypeLikelihoodCalculator> calculators;
+
     /**
      * variant data tracker
      */
@@ -167,7 +175,7 @@ public class VariantCallingEngine {
             samples.add(rg.getSample());
         }
 
-        GenotypeLikelihoodCalculator.getGenotypeLikelihoodsCalculatorObject(options);
+        calculators = GenotypeLikelihoodCalculator.getGenotypeLikelihoodsCalculatorObject(options);
         GenotypeLikelihoodCalculator.getCalculators(options);
 
         this.N = samples.size() * options.getSamplePloidy();
@@ -197,8 +205,14 @@ public class VariantCallingEngine {
         List<VariantCallContext> vcList = new ArrayList<>();
         final Map<String, PerReadAlleleLikelihoodMap> perReadAlleleLikelihoodMap = new HashMap<>();
         for(GenotypeLikelihoodCalculator.Model model : GenotypeLikelihoodCalculator.modelsToUse) {
+            if(!isCandidatePosition(model)) {
+                VariantCallContext refCall = invariantPositionContext(model);
+                if (refCall != null)
+                    vcList.add(refCall);
+                continue;
+            }
             //System.err.print("cal genotype likelihood.");
-            VariantContext vc = GenotypeLikelihoodCalculator.glcm.get(model.name()).genotypeLikelihoodCalculate(mpileup, reference, options, genomeLocationParser, perReadAlleleLikelihoodMap);
+            VariantContext vc = calculators.get(model.name()).genotypeLikelihoodCalculate(mpileup, reference, options, genomeLocationParser, perReadAlleleLikelihoodMap);
             if (vc != null) {
                 //System.err.print("\tcalling variant.");
                 vcList.add(calculateGenotypes(tracker, reference, vc, false, perReadAlleleLikelihoodMap, model));
@@ -209,6 +223,92 @@ public class VariantCallingEngine {
         return vcList;
     }
 
+    /**
+     * cheap pre-screen of the current position before any likelihood calculation.
+     * SNP: some sample has a non-reference base whose quality (as used by the likelihood model) is above
+     * the minimum base quality, a base of zero usable quality gives equal likelihood to every genotype.
+     * INDEL: there are at least as many reads with an adjacent indel as needed for a consensus allele.
+     * Confident reference sites need the full likelihoods, so SNP screening is off in EMIT_ALL_CONFIDENT_SITES.
+     */
+    private boolean isCandidatePosition(GenotypeLikelihoodCalculator.Model model) {
+        BitSet activeSamples = mpileup.getActiveSamples();
+        if (activeSamples == null)
+            return false;
+
+        if (model == GenotypeLikelihoodCalculator.Model.INDEL) {
+            int indelCount = 0;
+            for (int sampleIndex = activeSamples.nextSetBit(0); sampleIndex >= 0; sampleIndex = activeSamples.nextSetBit(sampleIndex + 1)) {
+                Pileup pileup = mpileup.getPileup(sampleIndex);
+                indelCount += pileup.getNextDeletionCount() + pileup.getNextInsertionCount();
+            }
+            return indelCount > 0 && indelCount >= options.getMinIndelCountForGenotyping();
+        }
+
+        if (model != GenotypeLikelihoodCalculator.Model.SNP || options.getOutputMode() == OUTPUT_MODE.EMIT_ALL_CONFIDENT_SITES)
+            return true;
+
+        final int indexOfRefBase = BaseUtils.simpleBaseToBaseIndex((byte) reference.getBase(mpileup.getPosition()));
+        if (indexOfRefBase == -1)
+            return false;
+
+        final boolean capBaseQuals = options.isCapBaseQualsAtMappingQual();
+        final int minBaseQuality = Math.max(1, options.getMinBaseQuality());
+        for (int sampleIndex = activeSamples.nextSetBit(0); sampleIndex >= 0; sampleIndex = activeSamples.nextSetBit(sampleIndex + 1)) {
+            PileupColumns columns = mpileup.getPileup(sampleIndex).getColumns();
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.isDeletionBase(i))
+                    continue;
+                byte base = columns.getBinaryBase(i);
+                if (base < 0 || base > 3 || base == indexOfRefBase)
+                    continue;
+                int quality = columns.getBaseQuality(i);
+                if (capBaseQuals && quality > columns.getMappingQuality(i))
+                    quality = columns.getMappingQuality(i);
+                if (quality >= minBaseQuality)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * call for a position that failed the pre-screen. Only EMIT_ALL_SITES reports such a position, as a
+     * homozygous reference record built without likelihoods; in the other modes the full calculation
+     * would not emit it either. QUAL is the reference confidence from the per-sample depth and the record
+     * is filtered as LowQual below the calling threshold.
+     */
+    private VariantCallContext invariantPositionContext(GenotypeLikelihoodCalculator.Model model) {
+        if (options.getOutputMode() != OUTPUT_MODE.EMIT_ALL_SITES || model != GenotypeLikelihoodCalculator.Model.SNP)
+            return null;
+
+        final int position = mpileup.getPosition();
+        final byte refBase = (byte) reference.getBase(position);
+        if (BaseUtils.simpleBaseToBaseIndex(refBase) == -1)
+            return null;
+
+        final Allele refAllele = Allele.create(refBase, true);
+        final List<Allele> homRef = Collections.nCopies(options.getSamplePloidy(), refAllele);
+        GenotypesContext genotypes = GenotypesContext.create();
+        for (Map.Entry<String, Pileup> sample : mpileup.getCurrentPosPileup().entrySet()) {
+            genotypes.add(new GenotypeBuilder(sample.getKey(), homRef).DP(sample.getValue().depthOfCoverage(false)).make());
+        }
+
+        final double phredScaledConfidence = referenceConfidence(mpileup, getTheta(model), false, 1.0);
+        VariantContextBuilder builder = new VariantContextBuilder("UG_call", reference.getChromosomeName(), position + 1, position + 1,
+                Collections.singletonList(refAllele)).genotypes(genotypes);
+        // no sample with usable depth gives an infinite confidence, QUAL is left missing then
+        if (!Double.isInfinite(phredScaledConfidence))
+            builder.log10PError(phredScaledConfidence / -10.0);
+        if (!passesCallThreshold(phredScaledConfidence))
+            builder.filters(filter);
+        VariantContext vc = builder.make();
+
+        if (annotationEngine != null)
+            vc = annotationEngine.annotateContext(tracker, reference, mpileup, vc);
+
+        return new VariantCallContext(vc, passesCallThreshold(phredScaledConfidence));
+    }
+
     public VariantCallContext calculateGenotypes(final VariantDataTracker tracker, final ChromosomeInformationShare reference, final VariantContext vc,
                                                  final boolean inheritAttributesFromInputVC,
                                                  final Map<String, PerReadAlleleLikelihoodMap> perReadAlleleLikelihoodMap,
@@ -399,6 +499,13 @@ public class VariantCallingEngine {
         if ( mpileup == null )
             return null;
 
+        return new VariantCallContext(vc, passesCallThreshold(referenceConfidence(mpileup, theta, ignoreCoveredSamples, initialPofRef)), false);
+    }
+
+    /**
+     * phred-scaled confidence that no sample carries a non-reference allele, from the depth of each sample
+     */
+    private double referenceConfidence(Mpileup mpileup, double theta, boolean ignoreCoveredSamples, double initialPofRef) {
         double P_of_ref = initialPofRef;
 
         // for each sample that we haven't examined yet
@@ -417,7 +524,7 @@ public class VariantCallingEngine {
             P_of_ref *= 1.0 - (theta / 2.0) * getRefBinomialProb(depth);
         }
 
-        return new VariantCallContext(vc, QualityUtils.phredScaleErrorRate(1.0 - P_of_ref) >= options.getStandardConfidenceForCalling(), false);
+        return QualityUtils.phredScaleErrorRate(1.0 - P_of_ref);
     }
 
     protected double getTheta( final GenotypeLikelihoodCalculator.Model model ) {
@@ -483,6 +590,14 @@ public class VariantCallingEngine {
     }
 
 
+    /**
+     * release resources held by the likelihood calculators
+     */
+    public void close() {
+        for (GenotypeLikelihoodCalculator calculator : calculators.values())
+            calculator.close();
+    }
+
     public static VCFHeader getVCFHeader(final GenotyperOptions options,
                                          final VariantAnnotatorEngine annotationEngine,
                                          final SAMFileHeader samFileHeader) {
@@ -105,10 +105,13 @@ public abstract class GenotypeLikelihoodCalculator {
 
     /**
      * get map -> genotype likelihood calculator objects
+     * calculators keep per site state, every engine should hold the map returned here
+     * instead of sharing the static one.
      * @param options options
      * @return genotype likelihood calculator Classes
      */
     public static Map<String, GenotypeLikelihoodCalculator> getGenotypeLikelihoodsCalculatorObject(GenotyperOptions options) {
+        Map<String, GenotypeLikelihoodCalculator> calculators = new HashMap<>();
         List<Class<? extends GenotypeLikelihoodCalculator>> glmClasses = new ArrayList<>();
         glmClasses.add(SNPGenotypeLikelihoodCalculator.class);
         glmClasses.add(INDELGenotypeLikelihoodCalculator.class);
@@ -119,7 +122,7 @@ public abstract class GenotypeLikelihoodCalculator {
             try {
                 final Object args[] = new Object[] { options };
                 final Constructor c = glmClass.getDeclaredConstructor(GenotyperOptions.class);
-                glcm.put(key, (GenotypeLikelihoodCalculator) c.newInstance(args));
+                calculators.put(key, (GenotypeLikelihoodCalculator) c.newInstance(args));
                 System.err.println("key:" + key + "\tclass:" + c.getName());
             } catch (Exception e) {
                 throw new UserException("The likelihoods model provided for the -glm argument (" + options.getGtlcalculators() +
@@ -127,7 +130,8 @@ public abstract class GenotypeLikelihoodCalculator {
             }
         }
 
-        return glcm;
+        glcm = calculators;
+        return calculators;
     }
 
     /**
@@ -296,4 +300,10 @@ public abstract class GenotypeLikelihoodCalculator {
      * @return variantContext with Likelihoods
      */
     public abstract VariantContext genotypeLikelihoodCalculate(Mpileup mpileup, ChromosomeInformationShare reference, GenotyperOptions options, GenomeLocationParser locationParser, Map<String, PerReadAlleleLikelihoodMap> perReadAlleleLikelihoodMap);
+
+    /**
+     * release resources held by the calculator
+     */
+    public void close() {
+    }
 }
@@ -84,7 +84,7 @@ public class INDELGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalcula
     public INDELGenotypeLikelihoodCalculator(GenotyperOptions options) {
         super(options);
         haplotypeMap = new LinkedHashMap<>();
-        pairModel = new PairHMMIndelErrorModel(options.getIndelGapOpenPenalty(), options.getIndelGapContinuationPenalty(), options.getPairHmmImplementation());
+        pairModel = new PairHMMIndelErrorModel(options.getIndelGapOpenPenalty(), options.getIndelGapContinuationPenalty(), options.getPairHmmImplementation(), options.getPairHmmThreads());
         ignoreSNPAllelesWhenGenotypingIndels = false;
     }
 
@@ -223,4 +223,9 @@ public class INDELGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalcula
 
         return count;
     }
+
+    @Override
+    public void close() {
+        pairModel.close();
+    }
 }
@@ -53,12 +53,17 @@ import org.bgi.flexlab.gaea.data.structure.pileup.PileupReadInfo;
 import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
 import org.bgi.flexlab.gaea.util.MathUtils;
 import org.bgi.flexlab.gaea.util.ReadUtils;
+import org.bgi.flexlab.gaea.util.pairhmm.CachingPairHMM;
 import org.bgi.flexlab.gaea.util.pairhmm.ExactPairHMM;
+import org.bgi.flexlab.gaea.util.pairhmm.LoglessCachingPairHMM;
 import org.bgi.flexlab.gaea.util.pairhmm.OriginalPairHMM;
 import org.bgi.flexlab.gaea.util.pairhmm.PairHMM;
+import org.bgi.flexlab.gaea.util.pairhmm.PairHMMReadData;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -86,6 +91,9 @@ public class PairHMMIndelErrorModel {
 
     private final PairHMM pairHMM;
 
+    /* number of threads used to evaluate the reads of one site */
+    private final int pairHMMThreads;
+
     /////////////////////////////
     // Private Member Variables
     /////////////////////////////
@@ -105,6 +113,11 @@ public class PairHMMIndelErrorModel {
     }
 
     public PairHMMIndelErrorModel(byte indelGOP, byte indelGCP, final PairHMM.HMM_IMPLEMENTATION hmmType ) {
+        this(indelGOP, indelGCP, hmmType, 1);
+    }
+
+    public PairHMMIndelErrorModel(byte indelGOP, byte indelGCP, final PairHMM.HMM_IMPLEMENTATION hmmType, final int pairHMMThreads ) {
+        this.pairHMMThreads = pairHMMThreads;
 
         switch (hmmType) {
             case EXACT:
@@ -114,9 +127,13 @@ public class PairHMMIndelErrorModel {
                 pairHMM = new OriginalPairHMM();
                 break;
             case CACHING:
+                pairHMM = new CachingPairHMM();
+                break;
             case LOGLESS_CACHING:
+                pairHMM = new LoglessCachingPairHMM();
+                break;
             default:
-                throw new UserException.BadArgumentValueException("pairHMM", "Specified pairHMM implementation is unrecognized or incompatible with the UnifiedGenotyper. Acceptable options are ORIGINAL and EXACT.");
+                throw new UserException.BadArgumentValueException("pairHMM", "Specified pairHMM implementation is unrecognized or incompatible with the UnifiedGenotyper. Acceptable options are EXACT, ORIGINAL, CACHING and LOGLESS_CACHING.");
         }
 
         // fill gap penalty table, affine naive model:
@@ -227,6 +244,10 @@ public class PairHMMIndelErrorModel {
                                                                           final int[] readCounts) {
         final double readLikelihoods[][] = new double[pileup.getNumberOfElements()][haplotypeMap.size()];
 
+        final List<PairHMMReadData> batchReads = new ArrayList<PairHMMReadData>();
+        final List<Integer> batchReadIndexes = new ArrayList<Integer>();
+        final List<PileupReadInfo> batchElements = new ArrayList<PileupReadInfo>();
+
         int readIdx=0;
         for (PileupReadInfo p: pileup.getFilteredPileup()) {
             // > 1 when the read is a consensus read representing multiple independent observations
@@ -342,9 +363,7 @@ public class PairHMMIndelErrorModel {
                 else {
                     final byte[] readBases = Arrays.copyOfRange(unclippedReadBases,numStartSoftClippedBases, unclippedReadBases.length-numEndSoftClippedBases);
                     final byte[] readQuals = Arrays.copyOfRange(unclippedReadQuals,numStartSoftClippedBases, unclippedReadBases.length-numEndSoftClippedBases);
-                    int j=0;
 
-                    byte[] previousHaplotypeSeen = null;
                     final byte[] contextLogGapOpenProbabilities = new byte[readBases.length];
                     final byte[] contextLogGapContinuationProbabilities  = new byte[readBases.length];
 
@@ -353,6 +372,12 @@ public class PairHMMIndelErrorModel {
                     getContextHomopolymerLength(readBases,hrunProfile);
                     fillGapProbabilities(hrunProfile, contextLogGapOpenProbabilities, contextLogGapContinuationProbabilities);
 
+                    final PairHMMReadData readData = new PairHMMReadData(readBases, readQuals,
+                            //(read.hasBaseIndelQualities() ? read.getBaseInsertionQualities() : contextLogGapOpenProbabilities),
+                            //(read.hasBaseIndelQualities() ? read.getBaseDeletionQualities() : contextLogGapOpenProbabilities),
+                            contextLogGapOpenProbabilities, contextLogGapOpenProbabilities,
+                            contextLogGapContinuationProbabilities);
+
                     for (Allele a: haplotypeMap.keySet()) {
 
                         Haplotype haplotype = haplotypeMap.get(a);
@@ -368,57 +393,41 @@ public class PairHMMIndelErrorModel {
                         final long indStart = startLocationInRefForHaplotypes - haplotype.getStartPosition();
                         final long indStop =  stopLocationInRefForHaplotypes - haplotype.getStartPosition();
 
-                        /*System.err.println("startLocationInRefForHaplotypes:" + startLocationInRefForHaplotypes +
-                        "\tstopLocationInRefForHaplotypes:" + stopLocationInRefForHaplotypes + "\thaplotype start:" + haplotype.getStartPosition() +
-                        "\tindStart:" + indStart + "\tindStop:" + indStop);*/
-
-                        double readLikelihood;
-
-                        final byte[] haplotypeBases = Arrays.copyOfRange(haplotype.getBases(),
-                                (int)indStart, (int)indStop);
-
-                        final int X_METRIC_LENGTH = readBases.length+2;
-                        final int Y_METRIC_LENGTH = haplotypeBases.length+2;
-
-                        if (previousHaplotypeSeen == null) {
-                            //no need to reallocate arrays for each new haplotype, as length won't change
-                            pairHMM.initialize(X_METRIC_LENGTH, Y_METRIC_LENGTH);
-                        }
-
-                        int startIndexInHaplotype = 0;
-                        if (previousHaplotypeSeen != null)
-                            startIndexInHaplotype = computeFirstDifferingPosition(haplotypeBases, previousHaplotypeSeen);
-                        previousHaplotypeSeen = haplotypeBases.clone();
-
-                        readLikelihood = pairHMM.computeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals,
-                                //(read.hasBaseIndelQualities() ? read.getBaseInsertionQualities() : contextLogGapOpenProbabilities),
-                                //(read.hasBaseIndelQualities() ? read.getBaseDeletionQualities() : contextLogGapOpenProbabilities),
-                                contextLogGapOpenProbabilities, contextLogGapOpenProbabilities,
-                                contextLogGapContinuationProbabilities, startIndexInHaplotype, false);
-
-                        perReadAlleleLikelihoodMap.add(p, a, readLikelihood);
-                        readLikelihoods[readIdx][j++] = readLikelihood;
+                        readData.addHaplotype(Arrays.copyOfRange(haplotype.getBases(), (int)indStart, (int)indStop));
                     }
+
+                    // likelihoods are computed for all reads of the site at once below
+                    batchReads.add(readData);
+                    batchReadIndexes.add(readIdx);
+                    batchElements.add(p);
                 }
             }
             readIdx++;
         }
+
+        final double[][] batchLikelihoods = pairHMM.computeReadLikelihoodsLog10(batchReads, pairHMMThreads);
+        for (int k = 0; k < batchReads.size(); k++) {
+            final PileupReadInfo p = batchElements.get(k);
+            final int idx = batchReadIndexes.get(k);
+            int j = 0;
+            for (Allele a: haplotypeMap.keySet()) {
+                perReadAlleleLikelihoodMap.add(p, a, batchLikelihoods[k][j]);
+                readLikelihoods[idx][j] = batchLikelihoods[k][j];
+                j++;
+            }
+        }
         return readLikelihoods;
     }
 
-    private boolean useSoftClippedBases(AlignmentsBasic read, long eventStartPos, int eventLength) {
-        return !((read.getPosition() >= eventStartPos-eventLength && read.getPosition() <= eventStartPos+1) || (read.getPosition() >= eventStartPos && read.getPosition() <= eventStartPos + eventLength));
+    /**
+     * release the worker threads of the pair HMM
+     */
+    public void close() {
+        pairHMM.close();
     }
 
-    private int computeFirstDifferingPosition(byte[] b1, byte[] b2) {
-        if (b1.length != b2.length)
-            return 0; // sanity check
-
-        for (int i=0; i < b1.length; i++ ){
-            if ( b1[i]!= b2[i] )
-                return i;
-        }
-        return b1.length;
+    private boolean useSoftClippedBases(AlignmentsBasic read, long eventStartPos, int eventLength) {
+        return !((read.getPosition() >= eventStartPos-eventLength && read.getPosition() <= eventStartPos+1) || (read.getPosition() >= eventStartPos && read.getPosition() <= eventStartPos + eventLength));
     }
 
     private static double[] getDiploidHaplotypeLikelihoods(final int numHaplotypes, final int readCounts[], final double readLikelihoods[][]) {
@@ -43,10 +43,11 @@
 package org.bgi.flexlab.gaea.tools.genotyer.genotypeLikelihoodCalculator;
 
 import htsjdk.variant.variantcontext.*;
+import org.bgi.flexlab.gaea.data.structure.alignment.AlignmentsBasic;
 import org.bgi.flexlab.gaea.data.structure.location.GenomeLocationParser;
 import org.bgi.flexlab.gaea.data.structure.pileup.Mpileup;
 import org.bgi.flexlab.gaea.data.structure.pileup.Pileup;
-import org.bgi.flexlab.gaea.data.structure.pileup.PileupReadInfo;
+import org.bgi.flexlab.gaea.data.structure.pileup.PileupColumns;
 import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
 import org.bgi.flexlab.gaea.tools.genotyer.VariantCallingEngine;
 import org.bgi.flexlab.gaea.tools.mapreduce.genotyper.GenotyperOptions;
@@ -56,6 +57,9 @@ import org.bgi.flexlab.gaea.util.MathUtils;
 import org.bgi.flexlab.gaea.util.QualityUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -92,47 +96,29 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
     protected final static double ploidyAdjustment = log10(FIXED_PLOIDY);
 
     /**
-     * base quality calculation cache
-     * FIXME::only consider diploid and without overlapping paired reads
+     * Constant static data: number of diploid genotypes
      */
-    public static GenotypeData[][] CACHE = new GenotypeData[BaseUtils.BASES.length][QualityUtils.MAXIMUM_USABLE_QUALITY_SCORE+1];
+    protected final static int GENOTYPE_COUNT = DiploidGenotype.values().length;
 
     /**
-     * one time calculation result about PCR error
+     * log10 likelihoods of each genotype for every (base, quality), flattened as [base][quality][genotype]
+     * FIXME::only consider diploid and without overlapping paired reads
      */
-    protected static double log10_PCR_error_3 = log10(DEFAULT_PCR_ERROR_RATE) - log10_3;
-    protected static double log10_1_minus_PCR_error = log10(1.0 - DEFAULT_PCR_ERROR_RATE);
-
+    private final double[] likelihoodTable = new double[BaseUtils.BASES.length * (QualityUtils.MAXIMUM_USABLE_QUALITY_SCORE + 1) * GENOTYPE_COUNT];
 
     /**
-     * get Cached likelihoods
-     * @param base base Index
-     * @param baseQuality base quality
-     * @return likelihoods of this base to each genotype
+     * per sample accumulators of the current site, slot i holds sampleIndexes[i]
      */
-    public GenotypeData getCACHELikelihoods(byte base, byte baseQuality) {
-        return CACHE[base][baseQuality];
-    }
+    private double[] sampleLikelihoods = new double[0];
+    private int[] sampleDepths = new int[0];
+    private int[] sampleIndexes = new int[0];
 
     /**
-     * is likelihoods of this base to each genotype in Cache
-     * @param base base Index
-     * @param baseQuality base quality
-     * @return is in cache
+     * one time calculation result about PCR error
      */
-    public boolean hasCACHE(byte base, byte baseQuality) {
-        return getCACHELikelihoods(base, baseQuality) != null;
-    }
+    protected static double log10_PCR_error_3 = log10(DEFAULT_PCR_ERROR_RATE) - log10_3;
+    protected static double log10_1_minus_PCR_error = log10(1.0 - DEFAULT_PCR_ERROR_RATE);
 
-    /**
-     * set cache
-     * @param base base Index
-     * @param baseQuality base quality
-     * @param genotypeData likelihoods of this base to each genotype
-     */
-    public void setCACHE(byte base, byte baseQuality, GenotypeData genotypeData) {
-        CACHE[base][baseQuality] = genotypeData;
-    }
 
     /**
      * sum likelihoods of each allele
@@ -165,6 +151,46 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
         }
         log10_PCR_error_3 = log10(pcrErrorRate) - log10_3;
         log10_1_minus_PCR_error = log10(1.0 - pcrErrorRate);
+
+        for(byte base = 0; base < BaseUtils.BASES.length; base++) {
+            for(byte quality = 0; quality <= QualityUtils.MAXIMUM_USABLE_QUALITY_SCORE; quality++) {
+                System.arraycopy(errorModel(base, quality).getLog10Likelihoods(), 0, likelihoodTable,
+                        tableOffset(base, quality), GENOTYPE_COUNT);
+            }
+        }
+    }
+
+    private static int tableOffset(byte base, byte quality) {
+        return (base * (QualityUtils.MAXIMUM_USABLE_QUALITY_SCORE + 1) + quality) * GENOTYPE_COUNT;
+    }
+
+    private void ensureSampleCapacity(int sampleCount) {
+        if(sampleIndexes.length < sampleCount) {
+            sampleLikelihoods = new double[sampleCount * GENOTYPE_COUNT];
+            sampleDepths = new int[sampleCount];
+            sampleIndexes = new int[sampleCount];
+        }
+    }
+
+    /**
+     * true if every base used for likelihoods at this site is the reference base, in which case
+     * the best genotype of every sample is reference and no alternate allele can be found
+     */
+    private boolean allBasesMatchReference(Mpileup mpileup, int indexOfRefBase) {
+        BitSet samples = mpileup.getActiveSamples();
+        if (samples == null)
+            return true;
+        for(int sampleIndex = samples.nextSetBit(0); sampleIndex >= 0; sampleIndex = samples.nextSetBit(sampleIndex + 1)) {
+            PileupColumns columns = mpileup.getPileup(sampleIndex).getColumns();
+            for(int i = 0; i < columns.size(); i++) {
+                if(columns.isDeletionBase(i))
+                    continue;
+                byte base = columns.getBinaryBase(i);
+                if(base >= 0 && base <= 3 && base != indexOfRefBase)
+                    return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -182,28 +208,30 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
             return null;
         final Allele refAllele = Allele.create(refBase, true);
 
-        // calculate the GLs
-        ArrayList<SampleGenotypeData> gls = new ArrayList<>(mpileup.getSize());
-        Map<String, Pileup> pileups = mpileup.getCurrentPosPileup();
         int position = mpileup.getPosition();
-        if (pileups != null) {
+        if (options.getOutputMode() == VariantCallingEngine.OUTPUT_MODE.EMIT_VARIANTS_ONLY && allBasesMatchReference(mpileup, indexOfRefBase))
+            return new VariantContextBuilder("GaeaCall", reference.getChromosomeName(), position + 1, position + 1, Collections.singletonList(refAllele)).make();
+
+        // calculate the GLs
+        int sampleCount = 0;
+        BitSet samples = mpileup.getActiveSamples();
+        if (samples != null) {
+            ensureSampleCapacity(samples.cardinality());
             //calculate the genotype likelihood
-            //System.err.println("ref:" + (char) refBase + "\tat:" + position);
-            for(String sample : pileups.keySet()) {
-                Pileup pileup = pileups.get(sample);
-                //System.err.println(sample);
+            for(int sampleIndex = samples.nextSetBit(0); sampleIndex >= 0; sampleIndex = samples.nextSetBit(sampleIndex + 1)) {
+                Pileup pileup = mpileup.getPileup(sampleIndex);
                 //depth too low to calculate genotype likelihood
-                if (pileup.getFilteredPileup().size() < options.getMinDepth() || pileup.getDeletionRate() > 0.2) {
+                if (pileup.depthOfCoverage(true) < options.getMinDepth() || pileup.getDeletionRate() > 0.2) {
                     continue;
                 }
 
                 //calculation genotype likelihoods
-                SampleGenotypeData sampleGenotypeData = getGenotypeLikelihood(pileup, options.isCapBaseQualsAtMappingQual(), options.getMinBaseQuality());
-                if(sampleGenotypeData.getDepth() > options.getMinDepth()) {
-                    sampleGenotypeData.setName(sample);
-                    gls.add(sampleGenotypeData);
+                int depth = getGenotypeLikelihood(pileup.getColumns(), options.isCapBaseQualsAtMappingQual(), options.getMinBaseQuality(), sampleCount * GENOTYPE_COUNT);
+                if(depth > options.getMinDepth()) {
+                    sampleDepths[sampleCount] = depth;
+                    sampleIndexes[sampleCount] = sampleIndex;
+                    sampleCount++;
                 }
-                //System.err.println("genotype likelihood result:" + sampleGenotypeData.toString());
             }
         }
 
@@ -214,7 +242,7 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
                 position + 1, position + 1, alleles);
 
         //System.err.println("determine alt alleles:");
-        alleles.addAll(determineAlternateAlleles(refBase, gls));
+        alleles.addAll(determineAlternateAlleles(refBase, sampleCount));
         // if there are no non-ref alleles...
         if ( alleles.size() == 1 ) {
             if ( options.getOutputMode() == VariantCallingEngine.OUTPUT_MODE.EMIT_VARIANTS_ONLY )
@@ -250,18 +278,18 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
         // create the genotypes; no-call everyone for now
         final GenotypesContext genotypes = GenotypesContext.create();
 
-        for ( SampleGenotypeData sampleData : gls ) {
-            final double[] allLikelihoods = sampleData.getLog10Likelihoods();
+        for ( int sample = 0; sample < sampleCount; sample++ ) {
+            final int offset = sample * GENOTYPE_COUNT;
             final double[] myLikelihoods = new double[numLikelihoods];
 
             for ( int i = 0; i < numLikelihoods; i++ )
-                myLikelihoods[i] = allLikelihoods[PLordering[i]];
+                myLikelihoods[i] = sampleLikelihoods[offset + PLordering[i]];
 
             // normalize in log space so that max element is zero.
-            final GenotypeBuilder gb = new GenotypeBuilder(sampleData.getName());
+            final GenotypeBuilder gb = new GenotypeBuilder(AlignmentsBasic.getSampleName(sampleIndexes[sample]));
             final double[] genotypeLikelihoods = MathUtils.normalizeFromLog10(myLikelihoods, false, true);
             gb.PL(genotypeLikelihoods);
-            gb.DP(sampleData.getDepth());
+            gb.DP(sampleDepths[sample]);
             genotypes.add(gb.make());
         }
 
@@ -271,10 +299,10 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
     /**
      * determines the alleles to use
      * @param ref ref base
-     * @param sampleDataList sample genotype data
+     * @param sampleCount number of samples accumulated for this site
      * @return allele list
      */
-    protected List<Allele> determineAlternateAlleles(final byte ref, final List<SampleGenotypeData> sampleDataList) {
+    protected List<Allele> determineAlternateAlleles(final byte ref, final int sampleCount) {
 
         final int baseIndexOfRef = BaseUtils.simpleBaseToBaseIndex(ref);
         final int PLindexOfRef = DiploidGenotype.createDiploidGenotype(ref, ref).ordinal();
@@ -282,20 +310,21 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
             likelihoodSums[i] = 0.0;
 
         // based on the GLs, find the alternate alleles with enough probability
-        for ( SampleGenotypeData sampleData : sampleDataList ) {
-            //System.err.println(sampleData.toString());
-            final double[] likelihoods = sampleData.getLog10Likelihoods();
-            final int PLindexOfBestGL = MathUtils.maxElementIndex(likelihoods);
-            //System.err.println("ref index:" + PLindexOfRef + "\t best genotype index:" + PLindexOfBestGL);
+        for ( int sample = 0; sample < sampleCount; sample++ ) {
+            final int offset = sample * GENOTYPE_COUNT;
+            int PLindexOfBestGL = 0;
+            for ( int i = 1; i < GENOTYPE_COUNT; i++ ) {
+                if ( sampleLikelihoods[offset + i] > sampleLikelihoods[offset + PLindexOfBestGL] )
+                    PLindexOfBestGL = i;
+            }
             if ( PLindexOfBestGL != PLindexOfRef ) {
                 GenotypeLikelihoodsAllelePair alleles = getAllelePair(PLindexOfBestGL);
-               // System.err.println("best genotype allele1:" + (char) BaseUtils.baseIndexToSimpleBase(alleles.alleleIndex1) +
-               //         "\tbest genotype allele2:" + (char) BaseUtils.baseIndexToSimpleBase(alleles.alleleIndex2));
+                final double diff = sampleLikelihoods[offset + PLindexOfBestGL] - sampleLikelihoods[offset + PLindexOfRef];
                 if ( alleles.alleleIndex1 != baseIndexOfRef )
-                    likelihoodSums[alleles.alleleIndex1] += likelihoods[PLindexOfBestGL] - likelihoods[PLindexOfRef];
+                    likelihoodSums[alleles.alleleIndex1] += diff;
                 // don't double-count it
                 if ( alleles.alleleIndex2 != baseIndexOfRef && alleles.alleleIndex2 != alleles.alleleIndex1 )
-                    likelihoodSums[alleles.alleleIndex2] += likelihoods[PLindexOfBestGL] - likelihoods[PLindexOfRef];
+                    likelihoodSums[alleles.alleleIndex2] += diff;
             }
         }
 
@@ -311,50 +340,41 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
     }
 
     /**
-     * calculate the genotype likelihood for one sample
-     * @param pileup pileup
+     * add the genotype likelihoods of one sample into sampleLikelihoods at offset
+     * @param columns pileup columns of current position
      * @param isCapBaseQualsAtMappingQual options
-     * @return sample genotype likelihoods data
+     * @param offset accumulator offset of this sample
+     * @return number of bases used
      */
-    private SampleGenotypeData getGenotypeLikelihood(Pileup pileup, boolean isCapBaseQualsAtMappingQual, int minBaseQuality) {
+    private int getGenotypeLikelihood(PileupColumns columns, boolean isCapBaseQualsAtMappingQual, int minBaseQuality, int offset) {
         int goodBaseCount = 0;
-        SampleGenotypeData sampleGenotypeData = new SampleGenotypeData();
-       // System.err.println("depth:" + pileup.getTotalPileup().size());
-        for(PileupReadInfo readInfo : pileup.getTotalPileup()) {
-            if(readInfo.isDeletionBase())
+        Arrays.fill(sampleLikelihoods, offset, offset + GENOTYPE_COUNT, 0.0);
+        for(int i = 0; i < columns.size(); i++) {
+            if(columns.isDeletionBase(i))
                 continue;
 
-            byte base = readInfo.getBinaryBase();
-            byte quality = readInfo.getBaseQuality();
+            byte base = columns.getBinaryBase(i);
+            byte quality = columns.getBaseQuality(i);
 
-            //System.err.println("base before:" + (char) BaseUtils.baseIndexToSimpleBase(base) + "\tquality:" + (char) (quality + 33));
-
-            if(isCapBaseQualsAtMappingQual && quality > readInfo.getMappingQuality()) {
-                quality = (byte)readInfo.getMappingQuality();
+            if(isCapBaseQualsAtMappingQual && quality > columns.getMappingQuality(i)) {
+                quality = (byte)columns.getMappingQuality(i);
             }
             if(quality < minBaseQuality)
                 quality = 0;
+            else if(quality > QualityUtils.MAXIMUM_USABLE_QUALITY_SCORE)
+                quality = QualityUtils.MAXIMUM_USABLE_QUALITY_SCORE;
 
             if(base < 0 || base > 3) {
-                //System.err.println("bad base" + readInfo.getBase());
                 continue;
             }
 
-            //System.err.println("base after:" + (char) BaseUtils.baseIndexToSimpleBase(base) + "\tquality:" + quality);
-
             goodBaseCount++;
-            if(hasCACHE(base, quality)) {
-                sampleGenotypeData.add(getCACHELikelihoods(base, quality));
-            } else {
-                GenotypeData genotypeDataTmp = errorModel(base, quality);
-                sampleGenotypeData.add(genotypeDataTmp);
-                setCACHE(base, quality, genotypeDataTmp);
-            }
+            final int tableOffset = tableOffset(base, quality);
+            for(int g = 0; g < GENOTYPE_COUNT; g++)
+                sampleLikelihoods[offset + g] += likelihoodTable[tableOffset + g];
         }
 
-        sampleGenotypeData.setDepth(goodBaseCount);
-
-        return sampleGenotypeData;
+        return goodBaseCount;
     }
 
     /**
@@ -424,8 +444,10 @@ public class SNPGenotypeLikelihoodCalculator extends GenotypeLikelihoodCalculato
 
     protected int getFilteredDepth(Pileup pileup) {
         int count = 0;
-        for ( PileupReadInfo p : pileup.getTotalPileup() ) {
-            if ( !p.isDeletionBase() && BaseUtils.isRegularBase( p.getByteBase() ) )
+        PileupColumns columns = pileup.getColumns();
+        for ( int i = 0; i < columns.size(); i++ ) {
+            byte base = columns.getBinaryBase(i);
+            if ( !columns.isDeletionBase(i) && base >= 0 && base <= 3 )
                 count += 1;
         }
 
@@ -118,6 +118,11 @@ public class HaplotypeCallerEngine {
      */
     private final VariantAnnotatorEngine annotationEngine;
 
+    /**
+     * genotype likelihood calculators owned by this engine
+     */
+    private final Map<String, GenotypeLikelihoodCalculator> calculators;
+
     /**
      * variant data tracker
      */
@@ -162,7 +167,7 @@ public class HaplotypeCallerEngine {
             samples.add(rg.getSample());
         }
 
-        GenotypeLikelihoodCalculator.getGenotypeLikelihoodsCalculatorObject(options);
+        calculators = GenotypeLikelihoodCalculator.getGenotypeLikelihoodsCalculatorObject(options);
         GenotypeLikelihoodCalculator.getCalculators(options);
 
         this.N = samples.size() * options.getSamplePloidy();
@@ -193,7 +198,7 @@ public class HaplotypeCallerEngine {
         final Map<String, PerReadAlleleLikelihoodMap> perReadAlleleLikelihoodMap = new HashMap<>();
         for(GenotypeLikelihoodCalculator.Model model : GenotypeLikelihoodCalculator.modelsToUse) {
             //System.err.print("cal genotype likelihood.");
-            VariantContext vc = GenotypeLikelihoodCalculator.glcm.get(model.name()).genotypeLikelihoodCalculate(mpileup, reference, options, genomeLocationParser, perReadAlleleLikelihoodMap);
+            VariantContext vc = calculators.get(model.name()).genotypeLikelihoodCalculate(mpileup, reference, options, genomeLocationParser, perReadAlleleLikelihoodMap);
             if (vc != null) {
                 //System.err.print("\tcalling variant.");
                 vcList.add(calculateGenotypes(tracker, reference, vc, false, perReadAlleleLikelihoodMap, model));
@@ -429,6 +434,14 @@ public class HaplotypeCallerEngine {
     }
 
 
+    /**
+     * release resources held by the likelihood calculators
+     */
+    public void close() {
+        for (GenotypeLikelihoodCalculator calculator : calculators.values())
+            calculator.close();
+    }
+
     public static VCFHeader getVCFHeader(final HaplotypeCallerOptions options,
                                          final VariantAnnotatorEngine annotationEngine,
                                          final SAMFileHeader samFileHeader) {
@@ -25,6 +25,9 @@ import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.bam.GaeaAnySAMInputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
+import org.bgi.flexlab.gaea.data.mapreduce.partitioner.SampleWindowComparator;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.QualityControlWindowWritable;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.SampleWindowWritable;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.BioJob;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.ToolsRunner;
@@ -34,6 +37,16 @@ public class BamQualityControl extends ToolsRunner{
 	
 	public final static int WINDOW_SIZE = 1000000; 
 	
+	/**
+	 * size of the window starting at winStart, the last window of a
+	 * chromosome is cut at the chromosome end
+	 */
+	public static int getWindowSize(long winStart, int chrLength) {
+		if(winStart + WINDOW_SIZE - 1 > chrLength)
+			return (int) (chrLength - winStart);
+		return WINDOW_SIZE;
+	}
+	
 	public BamQualityControl() {
 			this.toolsDescription = "Gaea bam quality control\n"
 					+ "The purpose of bam quality control is to attain statistics information"
@@ -59,8 +72,9 @@ public class BamQualityControl extends ToolsRunner{
 		job.setJarByClass(BamQualityControl.class);
 		job.setMapperClass(BamQualityControlMapper.class);
 		job.setReducerClass(BamQualityControlReducer.class);
-		job.setOutputKeyValue(Text.class, Text.class, 
+		job.setOutputKeyValue(SampleWindowWritable.class, QualityControlWindowWritable.class, 
 				NullWritable.class, Text.class);
+		job.setSortComparatorClass(SampleWindowComparator.class);
 		job.setNumReduceTasks(options.getReducerNum());
 		
 		FileInputFormat.addInputPaths(job, options.getAlignmentFilePath());
@@ -18,115 +18,201 @@ package org.bgi.flexlab.gaea.tools.mapreduce.bamqualitycontrol;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMReadGroupRecord;
-import org.apache.commons.lang.math.RandomUtils;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecord.SAMTagAndValue;
+import htsjdk.samtools.TextTagCodec;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.QualityControlWindowWritable;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
-import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.SampleWindowWritable;
+import org.bgi.flexlab.gaea.data.structure.bam.ParseSAMBasic;
+import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
+import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
+import org.bgi.flexlab.gaea.data.structure.region.TargetRegion;
+import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.RegionResultReport;
+import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.WindowReport;
 import org.bgi.flexlab.gaea.util.SamRecordDatum;
 import org.bgi.flexlab.gaea.util.SamRecordUtils;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-public class BamQualityControlMapper extends Mapper<LongWritable, SamRecordWritable, Text, Text>{
+public class BamQualityControlMapper extends Mapper<LongWritable, SamRecordWritable, SampleWindowWritable, QualityControlWindowWritable>{
+	/**
+	 * windows kept open at the same time, input sorted by coordinate only
+	 * touches one or two windows per sample
+	 */
+	private final static int MAX_OPEN_WINDOWS = 8;
+	
 	/**
 	 * FileHeader
 	 */
 	private SAMFileHeader mFileHeader=null;
 	
-	private String sampleName = "";
+	private BamQualityControlOptions options;
+	
+	private ReferenceShare genome;
+	
+	private TargetRegion region = null;
 	
-	private int unmappedReadsNum = 0;
+	private Map<String, Integer> sampleLaneSize = new HashMap<String, Integer>();
 	
-	private int randomkey = RandomUtils.nextInt();
+	/**
+	 * unmapped reads are counted per sample and written once in cleanup
+	 */
+	private Map<String, Long> unmappedReadsNum = new HashMap<String, Long>();
+	
+	/**
+	 * windows folded on the map side, the eldest is written out first
+	 */
+	private LinkedHashMap<SampleWindowWritable, WindowReport> windows = new LinkedHashMap<SampleWindowWritable, WindowReport>();
 	
-	private Text outK;
+	private List<WindowReport> freeWindows = new ArrayList<WindowReport>();
 	
-	private Text outV;
+	private SampleWindowWritable outK = new SampleWindowWritable();
+	
+	private QualityControlWindowWritable outV = new QualityControlWindowWritable();
 	
 	private Map<String, Integer> rg2Index = new HashMap<String, Integer>();
 	
+	private TextTagCodec tagCodec = new TextTagCodec();
+	
 	@Override
 	public void setup(Context context) throws IOException {
 		Configuration conf = context.getConfiguration();
+		options = new BamQualityControlOptions();
+		options.getOptionsFromHadoopConf(conf);
 		//header
 		mFileHeader = SamHdfsFileHeader.getHeader(conf);
 		assignIndexToReadGroup(mFileHeader);
+		
+		genome = new ReferenceShare();
+		if(options.isDistributeCache()) {
+			genome.loadChromosomeList();
+		} else {
+			genome.loadChromosomeList(options.getReferenceSequencePath());
+		}
+		
+		if ((options.getRegion() != null) || (options.getBedfile() != null)) {
+			region = RegionResultReport.loadTargetRegion(options);
+			if(options.isCnvDepth())
+				sampleLaneSize = RegionResultReport.countSampleLanes(mFileHeader);
+		}
 	}
 
 	@Override
 	public void map(LongWritable key, SamRecordWritable value,Context context) throws IOException, InterruptedException {
+		SAMRecord record = value.get();
+		String rgID = SamRecordUtils.getReadGroup(record);
+		String sampleName = mFileHeader.getReadGroup(rgID).getSample();
+		int position = record.getAlignmentStart() - 1;
+		if(record.getReadUnmappedFlag() || position < 0 || record.getCigarLength() == 0) {
+			Long num = unmappedReadsNum.get(sampleName);
+			unmappedReadsNum.put(sampleName, num == null ? 1 : num + 1);
+			return;
+		}
+		
+		int bestHitCount = getBestHitCount(record);
+		int rgIndex = rg2Index.get(rgID);
 		SamRecordDatum datum = new SamRecordDatum();
-		String rgID = SamRecordUtils.getReadGroup(value.get());
-		GaeaSamRecord record = new GaeaSamRecord(mFileHeader, value.get());
-		sampleName = mFileHeader.getReadGroup(rgID).getSample();
-		if(datum.parseSam(record.getSAMString())) {
-			long winNum = -1;
-			winNum = datum.getPosition() / BamQualityControl.WINDOW_SIZE;
-			formatKeyValue(datum, rgID, winNum, true);
-			context.write(outK, outV);
-			if (winNum != (datum.getEnd() / BamQualityControl.WINDOW_SIZE)) {
-				winNum++; 
-				formatKeyValue(datum, rgID, winNum, false);
-				context.write(outK, outV);
+		if(!datum.parseBamQC(record, bestHitCount, rgIndex, false)) {
+			context.getCounter("Exception", "parse mapper output error").increment(1);
+			return;
+		}
+		
+		String chrName = mFileHeader.getSequence(record.getReferenceIndex()).getSequenceName();
+		ChromosomeInformationShare chrInfo = genome.getChromosomeInfo(chrName);
+		int winNum = position / BamQualityControl.WINDOW_SIZE;
+		boolean spanWindows = winNum != (datum.getEnd() / BamQualityControl.WINDOW_SIZE);
+		addToWindow(sampleName, record.getReferenceIndex(), winNum, chrName, chrInfo, datum, context);
+		if (spanWindows) {
+			//cigar state of a datum is used up by the window it is added to
+			SamRecordDatum repeat = new SamRecordDatum();
+			repeat.parseBamQC(record, bestHitCount, rgIndex, true);
+			addToWindow(sampleName, record.getReferenceIndex(), winNum + 1, chrName, chrInfo, repeat, context);
+		}
+	}
+	
+	private void addToWindow(String sampleName, int chrIndex, int winNum, String chrName, 
+			ChromosomeInformationShare chrInfo, SamRecordDatum datum, Context context) throws IOException, InterruptedException {
+		outK.set(sampleName, chrIndex, winNum);
+		WindowReport window = windows.get(outK);
+		if(window == null) {
+			long winStart = (long) winNum * BamQualityControl.WINDOW_SIZE;
+			if(winStart > chrInfo.getLength()) {
+				context.getCounter("Exception", "window start beyond chromosome").increment(1);
+				return;
 			}
-		} else {
-			if(unmappedReadsNum > 10000) {
-				randomkey = RandomUtils.nextInt();
-				unmappedReadsNum = 0;
+			if(windows.size() >= MAX_OPEN_WINDOWS)
+				writeEldestWindow(context);
+			window = getFreeWindow(BamQualityControl.getWindowSize(winStart, chrInfo.getLength()), 
+					sampleLaneSize.containsKey(sampleName) ? sampleLaneSize.get(sampleName) : 0);
+			window.init(chrName, chrInfo, (int) winStart);
+			SampleWindowWritable windowKey = new SampleWindowWritable();
+			windowKey.set(sampleName, chrIndex, winNum);
+			windows.put(windowKey, window);
+		}
+		window.add(datum, genome, context);
+	}
+	
+	private WindowReport getFreeWindow(int winSize, int laneSize) {
+		for(Iterator<WindowReport> it = freeWindows.iterator(); it.hasNext();) {
+			WindowReport window = it.next();
+			if(window.getWindowSize() == winSize && window.getLaneSize() == laneSize) {
+				it.remove();
+				return window;
 			}
-			context.write(new Text(formatKey("-1:-1", randomkey)), new Text("1"));
-			unmappedReadsNum++;
 		}
+		return new WindowReport(winSize, options.isGenderDepth(), laneSize, region, 
+				options.getInsertSzie(), options.getInsertSzieWithoutDup());
 	}
 	
-	private void formatKeyValue(SamRecordDatum datum, String rgID, long winNum, boolean sameWin) {
-		outK = new Text(formatKey(datum.getChrName(), winNum));
-		outV = new Text(formatValue(datum, rgID, sameWin));
+	private void writeEldestWindow(Context context) throws IOException, InterruptedException {
+		Iterator<Map.Entry<SampleWindowWritable, WindowReport>> it = windows.entrySet().iterator();
+		Map.Entry<SampleWindowWritable, WindowReport> eldest = it.next();
+		it.remove();
+		writeWindow(eldest.getKey(), eldest.getValue(), context);
 	}
-
-	private String formatValue(SamRecordDatum datum, String rgID, boolean sameWin) {
-		// TODO Auto-generated method stub
-		StringBuilder vBuilder = new StringBuilder();
-		vBuilder.append(datum.getFlag());
-		vBuilder.append("\t");
-		vBuilder.append(datum.getReadsSequence());
-		vBuilder.append("\t");
-		vBuilder.append(datum.getInsertSize());
-		vBuilder.append("\t");
-		vBuilder.append(datum.getPosition());
-		vBuilder.append("\t");
-		vBuilder.append(datum.getCigarString());
-		vBuilder.append("\t");
-		vBuilder.append(datum.getBestHitCount());
-		vBuilder.append("\t");
-		if(sameWin)
-			vBuilder.append("0");
-		else
-			vBuilder.append("1");
-		vBuilder.append("\t");
-		vBuilder.append(datum.getMappingQual());
-		vBuilder.append("\t");
-		vBuilder.append(rg2Index.get(rgID));
-		vBuilder.append("\t");
-		vBuilder.append(datum.getQualityString());
-		return vBuilder.toString();
+	
+	private void writeWindow(SampleWindowWritable windowKey, WindowReport window, Context context) throws IOException, InterruptedException {
+		window.write(outV);
+		context.write(windowKey, outV);
+		if(freeWindows.size() < MAX_OPEN_WINDOWS)
+			freeWindows.add(window);
 	}
 	
-	private String formatKey(String chr, long winNum) {
-		// TODO Auto-generated method stub
-		StringBuilder kBuilder = new StringBuilder();
-		kBuilder.append(sampleName);
-		kBuilder.append(":");
-		kBuilder.append(chr);
-		kBuilder.append(":");
-		kBuilder.append(winNum);
-		return kBuilder.toString();
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		for(Map.Entry<SampleWindowWritable, WindowReport> entry : windows.entrySet()) {
+			writeWindow(entry.getKey(), entry.getValue(), context);
+		}
+		windows.clear();
+		for(Map.Entry<String, Long> entry : unmappedReadsNum.entrySet()) {
+			outK.set(entry.getKey(), -1, -1);
+			outV.setUnmapped(entry.getValue());
+			context.write(outK, outV);
+		}
+	}
+	
+	/**
+	 * optional fields of the record in SAM text form for ParseSAMBasic
+	 */
+	private int getBestHitCount(SAMRecord record) {
+		List<SAMTagAndValue> attributes = record.getAttributes();
+		String[] alignmentArray = new String[11 + attributes.size()];
+		for(int i = 0; i < attributes.size(); i++) {
+			SAMTagAndValue attribute = attributes.get(i);
+			alignmentArray[11 + i] = tagCodec.encode(attribute.tag, attribute.value);
+		}
+		return ParseSAMBasic.parseBestHitCount(alignmentArray);
 	}
 
 	private void assignIndexToReadGroup(SAMFileHeader mFileHeader2) {
@@ -16,22 +16,24 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.tools.mapreduce.bamqualitycontrol;
 
+import htsjdk.samtools.SAMFileHeader;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Reducer;
-import org.bgi.flexlab.gaea.data.structure.positioninformation.CompoundInformation;
+import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.QualityControlWindowWritable;
+import org.bgi.flexlab.gaea.data.mapreduce.writable.SampleWindowWritable;
 import org.bgi.flexlab.gaea.data.structure.positioninformation.depth.PositionDepth;
 import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.RegionResultReport;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.ReportBuilder;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.ResultReport;
 import org.bgi.flexlab.gaea.tools.bamqualtiycontrol.report.WholeGenomeResultReport;
-import org.bgi.flexlab.gaea.util.SamRecordDatum;
 
 import java.io.IOException;
 
-public class BamQualityControlReducer extends Reducer<Text, Text, NullWritable, Text>{
+public class BamQualityControlReducer extends Reducer<SampleWindowWritable, QualityControlWindowWritable, NullWritable, Text>{
 	
 	private BamQualityControlOptions options;
 		
@@ -40,12 +42,15 @@ public class BamQualityControlReducer extends Reducer<Text, Text, NullWritable,
 	private ReportBuilder reportBuilder;
 		
 	private PositionDepth deep;
+	
+	private SAMFileHeader mFileHeader;
 				
 	@Override
 	protected void setup(Context context) throws IOException {
 		options = new BamQualityControlOptions();
 		Configuration conf = context.getConfiguration();
 		options.getOptionsFromHadoopConf(conf);
+		mFileHeader = SamHdfsFileHeader.getHeader(conf);
 		
 		reportBuilder = new ReportBuilder();
 		if ((options.getRegion() != null) || (options.getBedfile() != null))
@@ -56,11 +61,10 @@ public class BamQualityControlReducer extends Reducer<Text, Text, NullWritable,
 	}
 	
 	@Override
-	public void reduce(Text key, Iterable<Text> values,Context context) throws IOException, InterruptedException {
-		String[] keySplit = key.toString().split(":");	
-		String sampleName = keySplit[0];	
-		String chrName = keySplit[1];					
-		long winNum = Long.parseLong(keySplit[2]);		
+	public void reduce(SampleWindowWritable key, Iterable<QualityControlWindowWritable> values,Context context) throws IOException, InterruptedException {
+		String sampleName = key.getSample();
+		String chrName = key.isUnmapped() ? "-1" : mFileHeader.getSequence(key.getChrIndex()).getSequenceName();
+		long winNum = key.getWinNum();
 		ChromosomeInformationShare chrInfo = null;
 		try{
 			chrInfo = reportType.getReference().getChromosomeInfo(chrName);
@@ -74,7 +78,11 @@ public class BamQualityControlReducer extends Reducer<Text, Text, NullWritable,
 		reportBuilder.setReportChoice(reportType);
 		reportBuilder.initReports(sampleName, chrName);
 		
-		if(reportBuilder.unmappedReport(winNum, chrName, values)) {
+		if(key.isUnmapped()) {
+			long unmappedCount = 0;
+			for(QualityControlWindowWritable value : values)
+				unmappedCount += value.getUnmappedCount();
+			reportBuilder.unmappedReport(winNum, chrName, unmappedCount);
 			ResultReport report = reportBuilder.build();
 			context.write(NullWritable.get(), new Text(report.toReducerString(sampleName, chrName, true)));
 			return;
@@ -88,41 +96,23 @@ public class BamQualityControlReducer extends Reducer<Text, Text, NullWritable,
 		}
 		
 		long winStart = start; 
-		long readPos;	
-		long winEnd = start + BamQualityControl.WINDOW_SIZE - 1;
 		
-		int winSize = BamQualityControl.WINDOW_SIZE;
-		if(winEnd > chrInfo.getLength()) {
-			winSize = (int) (chrInfo.getLength() - start);
-			winEnd = chrInfo.getLength() - 1;
+		int winSize = BamQualityControl.getWindowSize(start, chrInfo.getLength());
+		if(winSize != BamQualityControl.WINDOW_SIZE) {
 			context.getCounter("Exception", "window end > chr length:" ).increment(1);
 		}
 		//position depth
 		deep = new PositionDepth(winSize, options.isGenderDepth(), reportBuilder.getSampleLaneSzie(sampleName));
 				
-		for(Text value : values) {
-			SamRecordDatum datum = new SamRecordDatum();
-
-			if(!datum.parseBamQC(value.toString())) {
-				context.getCounter("Exception", "parse mapper output error").increment(1);
-				continue;
-			}
-			readPos = datum.getPosition(); 
-			if (readPos < 0) {
-				context.getCounter("Exception", "read start pos less than zero").increment(1);
+		//merge windows folded by mappers
+		for(QualityControlWindowWritable value : values) {
+			if(value.getDepth().getWindowSize() != winSize) {
+				context.getCounter("Exception", "window size mismatch").increment(1);
 				continue;
 			}
-			
-			if(!deep.add(new CompoundInformation<SamRecordDatum>((int)winStart, winSize, datum, chrInfo))) 
-				context.getCounter("Exception", "null read info in depth class").increment(1);
-			
-			if(datum.isRepeat())
-				continue;
-			
-			if (!reportBuilder.mappedReport(datum, chrName, context)) 
-				continue;
-				
-			reportBuilder.insertReport(datum);
+			deep.merge(value.getDepth(), value.getFrom(), value.getTo());
+			reportBuilder.mergeMappedReport(value.getBasicReport(), value.getRegionReport(), 
+					value.getInsertSize(), value.getInsertSizeWithoutDup());
 		}
 				
 		for(int i = 0; i < winSize; i++) {
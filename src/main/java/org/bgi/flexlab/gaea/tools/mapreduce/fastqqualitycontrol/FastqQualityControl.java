@@ -20,6 +20,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
@@ -27,6 +28,7 @@ import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.adaptor.AdaptorInputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.fastq.FastqInputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.fastq.FastqMultipleSample;
+import org.bgi.flexlab.gaea.data.mapreduce.input.fastq.FastqPairedInputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.fastq.FastqRecordReader;
 import org.bgi.flexlab.gaea.data.mapreduce.input.fastq.FastqSample;
 import org.bgi.flexlab.gaea.data.structure.reads.report.FastqQualityControlReporterIO;
@@ -34,6 +36,7 @@ import org.bgi.flexlab.gaea.framework.tools.mapreduce.BioJob;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.PairEndAggregatorMapper;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.ToolsRunner;
 
+import java.io.IOException;
 import java.util.Map;
 
 public class FastqQualityControl extends ToolsRunner {
@@ -55,19 +58,59 @@ public class FastqQualityControl extends ToolsRunner {
 
 		job.setJobName("GaeaFastqQC");
 		job.setJarByClass(FastqQualityControl.class);
-		job.setMapperClass(PairEndAggregatorMapper.class);
-		job.setReducerClass(FastqQualityControlReducer.class);
-
-		job.setInputFormatClass(FastqInputFormat.class);
 		job.setOutputFormatClass(TextOutputFormat.class);
-		job.setNumReduceTasks(option.getReducerNumber());
-		job.setOutputKeyValue(Text.class, Text.class, NullWritable.class,
-				Text.class);
 
 		FastqMultipleSample sample = null;
 		if (option.getMultiSampleList() != null
 				&& option.getMultiSampleList() != "") {
 			sample = new FastqMultipleSample(option.getMultiSampleList(), true);
+		}
+
+		if (option.isMapOnly() && !hasAdaptorList(sample)) {
+			job.setMapperClass(FastqQualityControlMapper.class);
+			job.setInputFormatClass(FastqPairedInputFormat.class);
+			job.setNumReduceTasks(0);
+			job.setOutputKeyClass(NullWritable.class);
+			job.setOutputValueClass(Text.class);
+			conf.setBoolean(FastqPairedInputFormat.INTERLEAVED, option.isInterleaved());
+			if (sample != null) {
+				for (FastqSample sl : sample.getSampleList().values())
+					addPairedInput(job, sl.getSampleName(), sl.getFastq1(), sl.getFastq2());
+			} else
+				addPairedInput(job, "", option.getInputFastq1(), option.getInputFastq2());
+		} else {
+			if (option.isMapOnly())
+				System.err.println("adapter lists are joined to reads by read name, map only mode is disabled.");
+			job.setMapperClass(PairEndAggregatorMapper.class);
+			job.setReducerClass(FastqQualityControlReducer.class);
+			job.setInputFormatClass(FastqInputFormat.class);
+			job.setNumReduceTasks(option.getReducerNumber());
+			job.setOutputKeyValue(Text.class, Text.class, NullWritable.class,
+					Text.class);
+			addInputs(job, option, sample);
+		}
+
+		Path outputPath = new Path(option.getOutputDirectory() + "/out_fq");
+		FileOutputFormat.setOutputPath(job, outputPath);
+		MultipleOutputs.addNamedOutput(job, "filterStatistic",
+				TextOutputFormat.class, NullWritable.class, Text.class);
+		MultipleOutputs.addNamedOutput(job, "qualFreqStatistic",
+				TextOutputFormat.class, NullWritable.class, Text.class);
+
+		if (job.waitForCompletion(true)) {
+			FastqQualityControlReporterIO report = new FastqQualityControlReporterIO(
+					sample, option.isMultiStatis());
+			report.mergeReport(outputPath, conf,
+					new Path(option.getOutputDirectory()));
+			return 0;
+		} else {
+			return 1;
+		}
+	}
+
+	private void addInputs(BioJob job, FastqQualityControlOptions option,
+			FastqMultipleSample sample) {
+		if (sample != null) {
 			Map<String, FastqSample> sampleList = sample.getSampleList();
 
 			for (FastqSample sl : sampleList.values()) {
@@ -117,22 +160,28 @@ public class FastqQualityControl extends ToolsRunner {
 						AdaptorInputFormat.class);
 			}
 		}
+	}
 
-		Path outputPath = new Path(option.getOutputDirectory() + "/out_fq");
-		FileOutputFormat.setOutputPath(job, outputPath);
-		MultipleOutputs.addNamedOutput(job, "filterStatistic",
-				TextOutputFormat.class, NullWritable.class, Text.class);
-		MultipleOutputs.addNamedOutput(job, "qualFreqStatistic",
-				TextOutputFormat.class, NullWritable.class, Text.class);
+	private boolean hasAdaptorList(FastqMultipleSample sample) {
+		if (sample == null)
+			return false;
+		for (FastqSample sl : sample.getSampleList().values()) {
+			if (sl.getAdapter1() != null || sl.getAdapter2() != null)
+				return true;
+		}
+		return false;
+	}
 
-		if (job.waitForCompletion(true)) {
-			FastqQualityControlReporterIO report = new FastqQualityControlReporterIO(
-					sample, option.isMultiStatis());
-			report.mergeReport(outputPath, conf,
-					new Path(option.getOutputDirectory()));
-			return 0;
-		} else {
-			return 1;
+	private void addPairedInput(BioJob job, String sampleName, String fastq1,
+			String fastq2) throws IOException {
+		if (fastq1 == null) {
+			System.err.println(sampleName + " has no fq1!");
+			System.exit(1);
 		}
+		FileInputFormat.addInputPath(job, new Path(fastq1));
+		if (fastq2 != null)
+			FastqPairedInputFormat.setMate(job.getConfiguration(), new Path(fastq1), new Path(fastq2));
+		else
+			System.err.println(sampleName + " is SE data!");
 	}
-}
\ No newline at end of file
+}
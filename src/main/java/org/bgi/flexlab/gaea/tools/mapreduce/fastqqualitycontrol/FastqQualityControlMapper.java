@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.mapreduce.fastqqualitycontrol;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.bgi.flexlab.gaea.data.structure.reads.report.FastqQualityControlReport;
+import org.bgi.flexlab.gaea.tools.fastqqualitycontrol.FastqQualityControlFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * map only quality control on pairs read by FastqPairedInputFormat
+ */
+public class FastqQualityControlMapper extends Mapper<Text, Text, NullWritable, Text> {
+	private FastqQualityControlOptions option;
+	private FastqQualityControlFilter filter = null;
+	private MultipleOutputs<NullWritable, Text> mos;
+	private Text outValue = new Text();
+	private ArrayList<String> valueList = new ArrayList<String>();
+
+	@Override
+	protected void setup(Context context) throws IOException {
+		mos = new MultipleOutputs<NullWritable, Text>(context);
+		Configuration conf = context.getConfiguration();
+		option = new FastqQualityControlOptions();
+		option.getOptionsFromHadoopConf(conf);
+		filter = new FastqQualityControlFilter(option);
+	}
+
+	@Override
+	public void map(Text key, Text value, Context context) throws IOException, InterruptedException {
+		byte[] bytes = value.getBytes();
+		int length = value.getLength();
+		int start = 0;
+		for (int i = 0; i <= length; i++) {
+			if (i == length || bytes[i] == '\n') {
+				valueList.add(Text.decode(bytes, start, i - start));
+				start = i + 1;
+			}
+		}
+
+		String filterResult = filter.filter(valueList);
+		if (filter.isDynamicCutted()) {
+			context.getCounter("Filter counts", "dynamic cutted PE reads").increment(1);
+		}
+
+		if (filterResult != null) {
+			outValue.set(filterResult);
+			context.write(NullWritable.get(), outValue);
+		} else {
+			context.getCounter("Filter counts", "nomal quality control cutted PE reads").increment(1);
+		}
+		valueList.clear();
+	}
+
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		FastqQualityControlReport report = filter.getReport();
+		mos.write("filterStatistic", NullWritable.get(), new Text(report.toString()));
+		mos.close();
+	}
+}
@@ -59,6 +59,8 @@ public class FastqQualityControlOptions extends GaeaOptions implements
 				"don't cut tail in the last n bp.(default:3)");
 		addOption("A", "mismatch", true, "tolerate mismatchs.(default:1)");
 		addOption("B", "minimum", true, "don't keep seqences shorter.(default:0)");
+		addOption("p", "mapOnly", false, "run quality control in mapper on synchronized fastq pairs, without adapter lists");
+		addOption("I", "interleaved", false, "fastq1 is interleaved pair-end fastq, used with mapOnly");
 		addOption("h", "help", false, "help information");
 
 		FormatHelpInfo(SOFTWARE_NAME, SOFTWARE_VERSION);
@@ -93,6 +95,8 @@ public class FastqQualityControlOptions extends GaeaOptions implements
   private boolean qualFreq = false;
 	private boolean ignoredfastq1;
 	private boolean ignoredfastq2;
+	private boolean mapOnly;
+	private boolean interleaved;
 
 	@Override
 	public void parse(String[] args) {
@@ -135,6 +139,8 @@ public class FastqQualityControlOptions extends GaeaOptions implements
 		qualFreq = getOptionBooleanValue("d", false);
 		ignoredfastq1 = getOptionBooleanValue("5", false);
 		ignoredfastq2 = getOptionBooleanValue("6", false);
+		mapOnly = getOptionBooleanValue("p", false);
+		interleaved = getOptionBooleanValue("I", false);
 
 		setQualitySystem(Q);
 	}
@@ -302,4 +308,12 @@ public class FastqQualityControlOptions extends GaeaOptions implements
 	public int getReadType(){
 		return readType;
 	}
+	
+	public boolean isMapOnly() {
+		return mapOnly && adapter1 == null && adapter2 == null;
+	}
+	
+	public boolean isInterleaved() {
+		return interleaved;
+	}
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
 import org.bgi.flexlab.gaea.data.mapreduce.output.vcf.GaeaVCFOutputFormat;
 import org.bgi.flexlab.gaea.data.mapreduce.output.vcf.VCFHdfsWriter;
+import org.bgi.flexlab.gaea.data.mapreduce.partitioner.WindowsBasedLoadSampler;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.AlignmentBasicWritable;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.WindowsBasedWritable;
 import org.bgi.flexlab.gaea.data.structure.bam.filter.GenotyperFilter;
@@ -86,8 +87,13 @@ public class Genotyper extends ToolsRunner {
 
         FileInputFormat.setInputPaths(job, new Path(options.getInput()));
         FileOutputFormat.setOutputPath(job, new Path(options.getOutput()));
+        if (options.isBalancedPartition())
+            job.setBalancedPartitioner(new Path(options.getBAMHeaderOutput() + "/windowsSplitTable"),
+                    options.getDepthProfile(), WindowsBasedLoadSampler.DEFAULT_MAX_SPLITS,
+                    WindowsBasedLoadSampler.DEFAULT_RECORDS_PER_SPLIT);
 
         if (job.waitForCompletion(true)) {
+            job.reportPartitionLoad();
             return 0;
         }
 
@@ -167,6 +167,11 @@ public class GenotyperOptions extends GaeaOptions implements HadoopOptions {
      */
     private PairHMM.HMM_IMPLEMENTATION pairHmmImplementation = PairHMM.HMM_IMPLEMENTATION.ORIGINAL;
 
+    /**
+     * number of threads used to compute PairHMM likelihoods of the reads at one indel site
+     */
+    private int pairHmmThreads = 1;
+
     /**
      * The minimum phred-scaled Qscore threshold to separate high confidence from low confidence calls. Only genotypes with
      * confidence >= this threshold are emitted as called sites. A reasonable threshold is 30 for high-pass calling (this
@@ -226,11 +231,23 @@ public class GenotyperOptions extends GaeaOptions implements HadoopOptions {
      */
     private int reducerNumber = 30;
 
+    /**
+     * windows called concurrently in one reducer
+     */
+    private int reducerThreads = 1;
+
     /**
      * window size
      */
     private int windowSize = 10000;
 
+    /**
+     * balanced partition of windows
+     */
+    private boolean balancedPartition = false;
+
+    private String depthProfile = null;
+
     public GenotyperOptions() {
         addOption("i", "input", true, "Input file containing sequence data (BAM or CRAM)");
         addOption("I", "is_sam_input", false, "the input is in SAM format.");
@@ -251,7 +268,8 @@ public class GenotyperOptions extends GaeaOptions implements HadoopOptions {
         addOption("mmq", "min_mapping_quality_score", true, "Minimum mapping quality required to consider a read for calling.");
         addOption("minIndelCnt", "min_indel_count_for_genotyping", true, "Minimum number of consensus indels required to trigger genotyping run.");
         addOption("minIndelFrac", "min_indel_fraction_per_sample", true, "Minimum fraction of all reads at a locus that must contain an indel (of any allele) for that sample to contribute to the indel count for alleles.");
-        addOption("pairHMM", "pair_hmm_implementation", true, "The PairHMM implementation to use for -glm INDEL genotype likelihood calculations");
+        addOption("pairHMM", "pair_hmm_implementation", true, "The PairHMM implementation to use for -glm INDEL genotype likelihood calculations: EXACT, ORIGINAL, CACHING or LOGLESS_CACHING [ORIGINAL]");
+        addOption("pairHMMThreads", "pair_hmm_threads", true, "number of threads used to compute PairHMM likelihoods of the reads at one indel site [1]");
         addOption("pcrError", "pcr_error_rate", true, "The PCR error rate to be used for computing fragment-based likelihoods.");
         addOption("ploidy", "sample_ploidy", true, "Ploidy per sample. For pooled data, set to (Number of samples in each pool * Sample Ploidy).");
         addOption("standCallConf", "standardConfidenceForCalling", true, "standard confidence for calling");
@@ -267,7 +285,10 @@ public class GenotyperOptions extends GaeaOptions implements HadoopOptions {
         addOption("C", "noCapBaseQualsAtMappingQual", false, "do not cap base quality at mapping quality");
         addOption("numAlleleDis", "annotateNumberOfAllelesDiscovered", false, "annotate Number Of Alleles Discovered");
         addOption("R", "reducer", true, "reducer numbers");
+        addOption("reducerThreads", "reducer_threads", true, "number of windows called concurrently in each reducer [1]");
         addOption("W", "window_size", true, "window size that sharding the data.");
+        addOption("balancedPartition", "balanced_partition", false, "assign windows to reducers by sampled load instead of window hash.");
+        addOption("depthProfile", "depth_profile", true, "bedGraph depth profile (chr start end depth) of a previous run used for balanced partition instead of sampling the input.");
         addOption("h", "help", false, "print help information.");
 
         FormatHelpInfo(SOFTWARE_NAME, SOFTWARE_VERSION);
@@ -328,8 +349,12 @@ public class GenotyperOptions extends GaeaOptions implements HadoopOptions {
         maxNumPLValues = getOptionIntValue("maxNumPLValues", 100);
         singleSampleMode = getOptionBooleanValue("S", false);
         reducerNumber = getOptionIntValue("R", 30);
+        reducerThreads = getOptionIntValue("reducerThreads", 1);
         windowSize = getOptionIntValue("W", 100000);
         pcr_error = getOptionDoubleValue("pcrError", SNPGenotypeLikelihoodCalculator.DEFAULT_PCR_ERROR_RATE);
+        pairHmmThreads = getOptionIntValue("pairHMMThreads", 1);
+        depthProfile = getOptionValue("depthProfile", null);
+        balancedPartition = getOptionBooleanValue("balancedPartition", false) || depthProfile != null;
 
         try {
             gtlcalculators = GenotypeLikelihoodCalculator.Model.valueOf(getOptionValue("glm", "SNP"));
@@ -373,6 +398,10 @@ public class GenotyperOptions extends GaeaOptions implements HadoopOptions {
         if(reducerNumber <= 0 ) {
             throw new UserException.BadArgumentValueException("R", "reducer number can not be less than 1.");
         }
+
+        if(reducerThreads <= 0 ) {
+            throw new UserException.BadArgumentValueException("reducerThreads", "reducer thread number can not be less than 1.");
+        }
     }
 
     @Override
@@ -506,6 +535,10 @@ public class GenotyperOptions extends GaeaOptions implements HadoopOptions {
         return reducerNumber;
     }
 
+    public int getReducerThreads() {
+        return reducerThreads;
+    }
+
     public int getWindowSize() {
         return windowSize;
     }
@@ -537,5 +570,16 @@ public class GenotyperOptions extends GaeaOptions implements HadoopOptions {
     public PairHMM.HMM_IMPLEMENTATION getPairHmmImplementation() {
         return pairHmmImplementation;
     }
-}
 
+    public int getPairHmmThreads() {
+        return pairHmmThreads;
+    }
+
+    public boolean isBalancedPartition() {
+        return balancedPartition;
+    }
+
+    public String getDepthProfile() {
+        return depthProfile;
+    }
+}
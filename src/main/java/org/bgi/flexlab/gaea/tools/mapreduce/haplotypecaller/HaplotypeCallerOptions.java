@@ -382,6 +382,11 @@ public class HaplotypeCallerOptions extends GaeaOptions implements HadoopOptions
      */
     
     
+    /**
+     * windows called concurrently in one reducer
+     */
+    private int reducerThreads = 1;
+
     public HaplotypeCallerOptions() {
         addOption("i", "input", true, "Input file containing sequence data (BAM or CRAM)");
         addOption("I", "is_sam_input", false, "the input is in SAM format.");
@@ -437,6 +442,7 @@ public class HaplotypeCallerOptions extends GaeaOptions implements HadoopOptions
         addOption("numPruningSamples", "numPruningSamples", true, "Number of samples that must pass the minPruning threshold");
         addOption("out_mode", "output_mode", true, "Which type of calls we should output");
         addOption("pcrModel", "pcr_indel_model", true, "The PCR indel model to use");
+        addOption("pairHMM", "pair_hmm_implementation", true, "The PairHMM implementation to use: EXACT, ORIGINAL, CACHING or LOGLESS_CACHING [ORIGINAL]");
         addOption("globalMAPQ", "phredScaledGlobalReadMismappingRate", true, "The global assumed mismapping rate for reads");
         addOption("allowNonUniqueKmers", "allowNonUniqueKmersInRef", false, "Allow graphs that have non-unique kmers in the reference");
         addOption("allSitePLs", "allSitePLs", false, "Annotate all sites with PLs");
@@ -453,6 +459,7 @@ public class HaplotypeCallerOptions extends GaeaOptions implements HadoopOptions
         addOption("useFilteredReadsForAnnotations", "useFilteredReadsForAnnotations", false, "Use the contamination-filtered read maps for the purposes of annotating variants");
         addOption("S", "single_sample_mode", false, "will call genotype and variant for each sample separately");
         addOption("R", "reducer", true, "reducer numbers");
+        addOption("reducerThreads", "reducer_threads", true, "number of windows called concurrently in each reducer [1]");
         addOption("W", "window_size", true, "window size that sharding the data.");
         addOption("h", "help", false, "print help information.");
 
@@ -514,6 +521,7 @@ public class HaplotypeCallerOptions extends GaeaOptions implements HadoopOptions
         maxNumPLValues = getOptionIntValue("maxNumPLValues", 100);
         singleSampleMode = getOptionBooleanValue("S", false);
         reducerNumber = getOptionIntValue("R", 30);
+        reducerThreads = getOptionIntValue("reducerThreads", 1);
         windowSize = getOptionIntValue("W", 100000);
         pcr_error = getOptionDoubleValue("pcrError", SNPGenotypeLikelihoodCalculator.DEFAULT_PCR_ERROR_RATE);
 
@@ -559,6 +567,10 @@ public class HaplotypeCallerOptions extends GaeaOptions implements HadoopOptions
         if(reducerNumber <= 0 ) {
             throw new UserException.BadArgumentValueException("R", "reducer number can not be less than 1.");
         }
+
+        if(reducerThreads <= 0 ) {
+            throw new UserException.BadArgumentValueException("reducerThreads", "reducer thread number can not be less than 1.");
+        }
     }
 
     @Override
@@ -692,6 +704,10 @@ public class HaplotypeCallerOptions extends GaeaOptions implements HadoopOptions
         return reducerNumber;
     }
 
+    public int getReducerThreads() {
+        return reducerThreads;
+    }
+
     public int getWindowSize() {
         return windowSize;
     }
@@ -26,14 +26,20 @@ import org.bgi.flexlab.gaea.data.mapreduce.writable.AlignmentBasicWritable;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.WindowsBasedWritable;
 import org.bgi.flexlab.gaea.data.structure.alignment.AlignmentsBasic;
 import org.bgi.flexlab.gaea.data.structure.pileup.ReadsPool;
+import org.bgi.flexlab.gaea.data.structure.reference.ChromosomeInformationShare;
 import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.data.structure.variant.VariantCallContext;
+import org.bgi.flexlab.gaea.framework.tools.mapreduce.OrderedWindowsExecutor;
 import org.bgi.flexlab.gaea.tools.haplotypecaller.HaplotypeCallerEngine;
 import org.bgi.flexlab.gaea.util.Window;
 import org.seqdoop.hadoop_bam.VariantContextWritable;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 
 /**
  * Created by wangwl on 2017/5/18.
@@ -59,6 +65,16 @@ public class HaplotypeCallerReducer extends Reducer<WindowsBasedWritable, Alignm
      */
     private HaplotypeCallerEngine engine;
 
+    /**
+     * idle engines for concurrent reduce, one per thread
+     */
+    private BlockingQueue<HaplotypeCallerEngine> engines = null;
+
+    /**
+     * runs windows concurrently and emits results in window order
+     */
+    private OrderedWindowsExecutor<List<VariantCallContext>> executor = null;
+
     /**
      * output writable
      */
@@ -70,13 +86,30 @@ public class HaplotypeCallerReducer extends Reducer<WindowsBasedWritable, Alignm
     private RegionHdfsParser region = null;
 
     @Override
-    protected void setup(Context context) throws IOException {
+    protected void setup(final Context context) throws IOException {
         Configuration conf = context.getConfiguration();
         options.getOptionsFromHadoopConf(conf);
         header = SamHdfsFileHeader.getHeader(conf);
         genomeShare = new ReferenceShare();
         genomeShare.loadChromosomeList(options.getReference());
         engine = new HaplotypeCallerEngine(options, header);
+        if (options.getReducerThreads() > 1) {
+            /* engines are created here since their constructors touch shared static state */
+            engines = new ArrayBlockingQueue<>(options.getReducerThreads());
+            engines.add(engine);
+            for (int i = 1; i < options.getReducerThreads(); i++)
+                engines.add(new HaplotypeCallerEngine(options, header));
+            executor = new OrderedWindowsExecutor<>(options.getReducerThreads(), options.getReducerThreads() * 2,
+                    new OrderedWindowsExecutor.Emitter<List<VariantCallContext>>() {
+                        @Override
+                        public void emit(List<VariantCallContext> variantContexts) throws IOException, InterruptedException {
+                            for (VariantCallContext vc : variantContexts) {
+                                variantContextWritable.set(vc);
+                                context.write(NullWritable.get(), variantContextWritable);
+                            }
+                        }
+                    });
+        }
         variantContextWritable = new VariantContextWritable();
         AlignmentsBasic.initIdSampleHash(header.getReadGroups());
 
@@ -88,35 +121,64 @@ public class HaplotypeCallerReducer extends Reducer<WindowsBasedWritable, Alignm
 
     @Override
     public void reduce(WindowsBasedWritable key, Iterable<AlignmentBasicWritable> values, Context context) throws IOException, InterruptedException {
-        Window win = new Window(header, key.getChromosomeIndex(), key.getWindowsNumber(), options.getWindowSize());
-        ReadsPool readsPool = new ReadsPool(values.iterator());
-        engine.init(readsPool, win, genomeShare.getChromosomeInfo(header.getSequence(key.getChromosomeIndex()).getSequenceName()));
+        final Window win = new Window(header, key.getChromosomeIndex(), key.getWindowsNumber(), options.getWindowSize());
+        final ChromosomeInformationShare reference = genomeShare.getChromosomeInfo(header.getSequence(key.getChromosomeIndex()).getSequenceName());
+
+        if (executor == null) {
+            for (VariantCallContext vc : callWindow(engine, new ReadsPool(values.iterator()), win, reference)) {
+                variantContextWritable.set(vc);
+                context.write(NullWritable.get(), variantContextWritable);
+            }
+            return;
+        }
+
+        /* values are reused by the shuffle, keep the decoded alignments of this window */
+        final List<AlignmentBasicWritable> reads = new ArrayList<>();
+        for (AlignmentBasicWritable value : values) {
+            AlignmentBasicWritable read = new AlignmentBasicWritable();
+            read.setAlignment(value.getAlignment());
+            reads.add(read);
+        }
+        executor.submit(new Callable<List<VariantCallContext>>() {
+            @Override
+            public List<VariantCallContext> call() throws Exception {
+                HaplotypeCallerEngine windowEngine = engines.take();
+                try {
+                    return callWindow(windowEngine, new ReadsPool(reads.iterator()), win, reference);
+                } finally {
+                    engines.put(windowEngine);
+                }
+            }
+        });
+    }
+
+    private List<VariantCallContext> callWindow(HaplotypeCallerEngine engine, ReadsPool readsPool, Window win, ChromosomeInformationShare reference) {
+        List<VariantCallContext> results = new ArrayList<>();
+        engine.init(readsPool, win, reference);
 
-        //System.err.println("win:" + win.getContigName() + ":" + win.getStart() + "-" + win.getStop());
         List<VariantCallContext> variantContexts = engine.reduce();
         while(variantContexts != null) {
-            if(variantContexts.size() == 0) {
-                variantContexts = engine.reduce();
-                continue;
-            }
-            //System.err.println("output variant before filter.");
             for (VariantCallContext vc : variantContexts) {
                 if(vc.shouldEmit && vc.getStart() >= win.getStart() && vc.getStart() <= win.getStop()) {
                     if(region != null && !region.isPositionInRegion(vc.getContig(), vc.getStart() - 1)) {
                         continue;
                     }
-                    //System.err.println("output variant after filter.");
-                    variantContextWritable.set(vc);
-                    context.write(NullWritable.get(), variantContextWritable);
+                    results.add(vc);
                 }
             }
             variantContexts = engine.reduce();
         }
-        //System.err.println("finished all.");
+        return results;
     }
 
     @Override
-    protected void cleanup(Context context) {
-
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        if (executor != null)
+            executor.finish();
+        if (engines != null) {
+            for (HaplotypeCallerEngine windowEngine : engines)
+                windowEngine.close();
+        } else
+            engine.close();
     }
 }
@@ -44,6 +44,8 @@ public class MarkDuplicateOptions extends GaeaOptions implements HadoopOptions {
     private int reducerNum;
     private int windowSize;
     private int extendSize;
+    private boolean boundedMemory;
+    private int maxInMemoryReads;
     FileSystem fs;
 
     public MarkDuplicateOptions() {
@@ -56,6 +58,8 @@ public class MarkDuplicateOptions extends GaeaOptions implements HadoopOptions {
         addOption("R", "reducer", true, "reducer numbers [30]");
         addOption("W", "windowSize", true, "window size that sharding the data [100000]");
         addOption("E", "extendSize", true, "The extend size (must greater than read length) [100]");
+        addOption("b", "boundedMemory", false, "score clusters larger than maxInMemoryReads incrementally and spill their reads to local disk, instead of flagging the reads past it as duplicates [false]");
+        addOption("m", "maxInMemoryReads", true, "max reads of one duplicate cluster kept in memory [5000]");
         addOption("h", "help", false, "print help information.");
         FormatHelpInfo(SOFTWARE_NAME,SOFTWARE_VERSION);
 
@@ -89,6 +93,8 @@ public class MarkDuplicateOptions extends GaeaOptions implements HadoopOptions {
         reducerNum = getOptionIntValue("R", 30);
         windowSize = getOptionIntValue("W", 100000);
         extendSize = getOptionIntValue("E", 100);
+        boundedMemory = getOptionBooleanValue("b", false);
+        maxInMemoryReads = getOptionIntValue("m", 5000);
     }
 
     @Override
@@ -177,4 +183,12 @@ public class MarkDuplicateOptions extends GaeaOptions implements HadoopOptions {
     public int getExtendSize() {
         return extendSize;
     }
+
+    public boolean isBoundedMemory() {
+        return boundedMemory;
+    }
+
+    public int getMaxInMemoryReads() {
+        return maxInMemoryReads;
+    }
 }
@@ -9,18 +9,22 @@ import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.DuplicationKeyWritable;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
 import org.bgi.flexlab.gaea.tools.markduplicate.MarkDuplicatesFunc;
+import org.bgi.flexlab.gaea.tools.markduplicate.StreamingMarkDuplicates;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 
 public class MarkDuplicateReducer extends Reducer<DuplicationKeyWritable, SamRecordWritable, NullWritable, SamRecordWritable>{
     private MarkDuplicatesFunc mark = new MarkDuplicatesFunc();
     private SAMFileHeader samHeader;
+    private MarkDuplicateOptions options = new MarkDuplicateOptions();
 
     @Override
     public void setup(Context context){
         Configuration conf = context.getConfiguration();
         samHeader = SamHdfsFileHeader.getHeader(conf);
+        options.getOptionsFromHadoopConf(conf);
     }
 
     public void reduce(DuplicationKeyWritable key, Iterable<SamRecordWritable> values, Context context) throws IOException, InterruptedException {
@@ -40,13 +44,22 @@ public class MarkDuplicateReducer extends Reducer<DuplicationKeyWritable, SamRec
 
         //collect reads cluster and mark duplicate
         ArrayList<SAMRecord> sams = new ArrayList<>();
+        StreamingMarkDuplicates spill = null;
         int n = 0;
         for(SamRecordWritable s : values) {
             SAMRecord sam=s.get();
             int referenceIndex = sam.getReferenceIndex();
             sam.setHeader(samHeader);
             sam.setReferenceIndex(referenceIndex);
-            if (n>5000) {
+            if (spill != null) {
+                spill.add(sam);
+            } else if (n > options.getMaxInMemoryReads() && options.isBoundedMemory()) {
+                spill = new StreamingMarkDuplicates(samHeader);
+                for(SAMRecord buffered : sams)
+                    spill.add(buffered);
+                sams.clear();
+                spill.add(sam);
+            } else if (n > options.getMaxInMemoryReads()) {
                 sam.setDuplicateReadFlag(true);
                 SamRecordWritable w = new SamRecordWritable();
                 w.set(sam);
@@ -57,6 +70,16 @@ public class MarkDuplicateReducer extends Reducer<DuplicationKeyWritable, SamRec
             n++;
         }
 
+        if(spill != null) {
+            Iterator<SAMRecord> marked = spill.finish();
+            while(marked.hasNext()) {
+                SamRecordWritable w = new SamRecordWritable();
+                w.set(marked.next());
+                context.write(NullWritable.get(), w);
+            }
+            return;
+        }
+
         if(sams.size() > 1)
             mark.markDup(sams);
         for(SAMRecord sam : sams) {
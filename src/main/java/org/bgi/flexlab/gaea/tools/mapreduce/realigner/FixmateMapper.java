@@ -19,16 +19,25 @@ package org.bgi.flexlab.gaea.tools.mapreduce.realigner;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMRecord;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
 import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.PairEndAggregatorMapper;
 import org.bgi.flexlab.gaea.tools.recalibrator.report.RecalibratorReport;
+import org.seqdoop.hadoop_bam.FileVirtualSplit;
+
+import java.io.IOException;
 
 public class FixmateMapper extends PairEndAggregatorMapper {
+	public final static String RESOLVED_TAG = "resolved";
+
 	private final String DefaultReadGroup = "UK";
 	private String RG;
 	private SAMFileHeader header = null;
@@ -36,6 +45,7 @@ public class FixmateMapper extends PairEndAggregatorMapper {
 	private RealignerExtendOptions option = new RealignerExtendOptions();
 	private RecalibratorReport report = null;
 	private SamRecordWritable writable = new SamRecordWritable();
+	private MultipleOutputs<NullWritable, SamRecordWritable> mos = null;
 
 	@Override
 	public void setup(Context context) {
@@ -51,6 +61,35 @@ public class FixmateMapper extends PairEndAggregatorMapper {
 			report = new RecalibratorReport(input, header, 0,
 					bqsrOption.PRESERVE_QSCORES_LESS_THAN);
 		}
+
+		/* reads with mates already fixed in realigner windows skip the shuffle */
+		if (option.isFuseFixmate() && !isCrossWindowSplit(context.getInputSplit()))
+			mos = new MultipleOutputs<NullWritable, SamRecordWritable>(context);
+	}
+
+	private boolean isCrossWindowSplit(InputSplit split) {
+		Path path = null;
+		if (split instanceof FileVirtualSplit)
+			path = ((FileVirtualSplit) split).getPath();
+		else if (split instanceof FileSplit)
+			path = ((FileSplit) split).getPath();
+		return path == null || path.getName().startsWith(RecalibratorContextWriter.CROSS_WINDOW_TAG);
+	}
+
+	@Override
+	protected void map(Writable key, Writable value, Context context) throws IOException, InterruptedException {
+		if (mos == null) {
+			super.map(key, value, context);
+			return;
+		}
+
+		mos.write(RESOLVED_TAG, NullWritable.get(), (SamRecordWritable) getValue(value));
+	}
+
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		if (mos != null)
+			mos.close();
 	}
 
 	protected Writable getKey(Writable keyin, Writable valuein) {
@@ -32,12 +32,16 @@ public class FixmateReducer extends
 		Reducer<Text, SamRecordWritable, NullWritable, SamRecordWritable> {
 	private SAMFileHeader header = null;
 	private SamRecordWritable valueout = null;
+	private boolean fuseFixmate = false;
 
 	protected void setup(Context context) throws IOException,
 			InterruptedException {
 		Configuration conf = context.getConfiguration();
 		header = SamHdfsFileHeader.getHeader(conf);
 		valueout = new SamRecordWritable();
+		RealignerExtendOptions option = new RealignerExtendOptions();
+		option.getOptionsFromHadoopConf(conf);
+		fuseFixmate = option.isFuseFixmate();
 	}
 
 	@Override
@@ -45,6 +49,7 @@ public class FixmateReducer extends
 			Context context) throws IOException, InterruptedException {
 
 		GaeaSamRecord[] reads = new GaeaSamRecord[2];
+		boolean[] primary = new boolean[2];
 		reads[0] = null;
 		reads[1] = null;
 
@@ -54,6 +59,19 @@ public class FixmateReducer extends
 
 			reads[type] = reads[type] == null ? sam : getBetterRead(
 					reads[type], sam);
+			primary[type] |= isPrimary(sam);
+		}
+
+		/*
+		 * with fused fixmate, a non-primary record whose primary was already
+		 * resolved in a realigner window comes here alone and is dropped as
+		 * the primary would have been kept
+		 */
+		if (fuseFixmate) {
+			for (int i = 0; i < 2; i++) {
+				if (reads[i] != null && !primary[i])
+					reads[i] = null;
+			}
 		}
 
 		if (reads[0] == null || reads[1] == null) {
@@ -83,7 +101,11 @@ public class FixmateReducer extends
 		return last;
 	}
 
-	public boolean pairedReads(GaeaSamRecord rec1, GaeaSamRecord rec2) {
+	private boolean isPrimary(GaeaSamRecord read) {
+		return !read.getNotPrimaryAlignmentFlag() && !read.getSupplementaryAlignmentFlag();
+	}
+
+	public static boolean pairedReads(GaeaSamRecord rec1, GaeaSamRecord rec2) {
 		if (rec1.getMateReferenceIndex() != rec2.getReferenceIndex())
 			return false;
 		if (rec1.getMateAlignmentStart() != rec2.getAlignmentStart())
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.mapreduce.realigner;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMTag;
+import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
+import org.bgi.flexlab.gaea.tools.realigner.RealignerWriter;
+import org.bgi.flexlab.gaea.util.GaeaSamPairUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * buffers the reads of one realigner window and fixes mate information for
+ * read names whose records are all primary and complete in this window. All
+ * records of any other read name are written to the cross window output and
+ * are the only reads shuffled by the fixmate job, where FixmateReducer keeps
+ * one record per mate as without fusing.
+ */
+public class FixmateWindowWriter extends RealignerWriter {
+	private final static String DEFAULT_READ_GROUP = "UK";
+
+	private RecalibratorContextWriter writer = null;
+	private SAMFileHeader header = null;
+
+	private ArrayList<GaeaSamRecord> reads = new ArrayList<GaeaSamRecord>();
+	private HashMap<String, GaeaSamRecord[]> pairs = new HashMap<String, GaeaSamRecord[]>();
+
+	public FixmateWindowWriter(RecalibratorContextWriter writer, SAMFileHeader header) {
+		this.writer = writer;
+		this.header = header;
+	}
+
+	@Override
+	public void write(GaeaSamRecord read) {
+		reads.add(read);
+	}
+
+	private String readID(GaeaSamRecord read) {
+		String rg = (String) read.getAttribute("RG");
+		if (rg == null)
+			rg = DEFAULT_READ_GROUP;
+		return rg + ":" + read.getReadName();
+	}
+
+	/**
+	 * secondary and supplementary records, and primary records pointing to
+	 * supplementary alignments, take part in the per mate selection of
+	 * FixmateReducer and can not be resolved in one window
+	 */
+	private boolean isCandidate(GaeaSamRecord read) {
+		return !read.getNotPrimaryAlignmentFlag() && !read.getSupplementaryAlignmentFlag()
+				&& read.getAttribute(SAMTag.SA.name()) == null;
+	}
+
+	/**
+	 * same mate type as FixmateReducer, reads without pair flag are type 1
+	 */
+	private int mateType(GaeaSamRecord read) {
+		return read.getReadPairedFlag() && read.getFirstOfPairFlag() ? 0 : 1;
+	}
+
+	/**
+	 * pairs holds the records of a read name by mate type, or null when the
+	 * name has a record that is not a candidate or more than one record for
+	 * the same mate
+	 */
+	private void collectPairs() {
+		for (GaeaSamRecord read : reads) {
+			String key = readID(read);
+			GaeaSamRecord[] pair = pairs.get(key);
+			if (pair == null && !pairs.containsKey(key)) {
+				pair = new GaeaSamRecord[2];
+				pairs.put(key, pair);
+			}
+			if (pair == null)
+				continue;
+			int type = mateType(read);
+			if (!isCandidate(read) || pair[type] != null)
+				pairs.put(key, null);
+			else
+				pair[type] = read;
+		}
+	}
+
+	public void flush() {
+		collectPairs();
+
+		for (GaeaSamRecord read : reads) {
+			GaeaSamRecord[] pair = pairs.get(readID(read));
+			if (pair == null) {
+				writer.writeCrossWindow(read);
+				continue;
+			}
+
+			if (!read.getReadPairedFlag()) {
+				writer.write(read);
+				continue;
+			}
+
+			if (pair[0] == null || pair[1] == null) {
+				writer.writeCrossWindow(read);
+				continue;
+			}
+
+			/* mate info is fixed before whichever mate is written first */
+			if (!FixmateReducer.pairedReads(pair[0], pair[1]))
+				GaeaSamPairUtil.setMateInfo(pair[0], pair[1], header);
+			writer.write(read);
+		}
+
+		reads.clear();
+		pairs.clear();
+	}
+
+	@Override
+	public void close() {
+		flush();
+	}
+}
@@ -26,7 +26,7 @@ import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
-import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.bgi.flexlab.gaea.data.exception.FileNotExistException;
 import org.bgi.flexlab.gaea.data.mapreduce.input.header.SamHdfsFileHeader;
 import org.bgi.flexlab.gaea.data.mapreduce.output.bam.GaeaBamOutputFormat;
@@ -37,6 +37,7 @@ import org.bgi.flexlab.gaea.framework.tools.mapreduce.BioJob;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.ToolsRunner;
 import org.bgi.flexlab.gaea.framework.tools.mapreduce.WindowsBasedSamRecordMapper;
 import org.bgi.flexlab.gaea.tools.recalibrator.report.RecalibratorReportTableEngine;
+import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorFlatTable;
 import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorTableCombiner.NonRecalibratorPathFilter;
 import org.seqdoop.hadoop_bam.SAMFormat;
 
@@ -92,7 +93,11 @@ public class Realigner extends ToolsRunner {
 
 		if (options.isRecalibration())
 			MultipleOutputs.addNamedOutput(job, RecalibratorContextWriter.RECALIBRATOR_TABLE_TAG,
-					TextOutputFormat.class, NullWritable.class, Text.class);
+					SequenceFileOutputFormat.class, NullWritable.class, RecalibratorFlatTable.class);
+
+		if (options.isFuseFixmate())
+			MultipleOutputs.addNamedOutput(job, RecalibratorContextWriter.CROSS_WINDOW_TAG, GaeaBamOutputFormat.class,
+					NullWritable.class, SamRecordWritable.class);
 
 		if (job.waitForCompletion(true)) {
 			if (options.isRecalibration())
@@ -135,6 +140,10 @@ public class Realigner extends ToolsRunner {
 		job.setMapperClass(FixmateMapper.class);
 		job.setReducerClass(FixmateReducer.class);
 
+		if (options.isFuseFixmate())
+			MultipleOutputs.addNamedOutput(job, FixmateMapper.RESOLVED_TAG, GaeaBamOutputFormat.class,
+					NullWritable.class, SamRecordWritable.class);
+
 		if (!options.isRealignment()) {
 			job.setNumReduceTasks(0);
 			job.setOutputKeyValue(NullWritable.class, SamRecordWritable.class, NullWritable.class,
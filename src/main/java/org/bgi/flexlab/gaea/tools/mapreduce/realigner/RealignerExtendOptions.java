@@ -42,6 +42,7 @@ public class RealignerExtendOptions extends GaeaOptions implements HadoopOptions
 
 	private boolean realignment;
 	private boolean recalibration;
+	private boolean fuseFixmate;
 	
 	private String commonOutput = null;
 
@@ -49,6 +50,7 @@ public class RealignerExtendOptions extends GaeaOptions implements HadoopOptions
 		addOption("q", "recalibrator", false, "only run base recalibrator");
 		addOption("R", "realigment", false, "only run realiger");
 		addOption("u", "algoBoth", false, "run realiger and recalibrator");
+		addOption("x", "fuseFixmate", false, "fix mates inside realigner windows, only shuffle cross window pairs in fixmate");
 
 		initialize();
 		FormatHelpInfo(SOFTWARE_NAME, SOFTWARE_VERSION);
@@ -105,6 +107,8 @@ public class RealignerExtendOptions extends GaeaOptions implements HadoopOptions
 				realignment = true;
 		}
 		
+		fuseFixmate = realignment && cmdLine.hasOption("x");
+		
 		if(cmdLine.hasOption("o"))
 			this.commonOutput = cmdLine.getOptionValue("o");
 		
@@ -150,6 +154,10 @@ public class RealignerExtendOptions extends GaeaOptions implements HadoopOptions
 		return this.recalibration;
 	}
 
+	public boolean isFuseFixmate() {
+		return this.fuseFixmate;
+	}
+
 	public RealignerOptions getRealignerOptions() {
 		return this.realignerOptions;
 	}
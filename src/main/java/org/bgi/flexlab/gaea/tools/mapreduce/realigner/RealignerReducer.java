@@ -36,8 +36,9 @@ import org.bgi.flexlab.gaea.data.structure.reference.ReferenceShare;
 import org.bgi.flexlab.gaea.data.structure.reference.index.VcfIndex;
 import org.bgi.flexlab.gaea.data.structure.vcf.VCFLocalLoader;
 import org.bgi.flexlab.gaea.tools.realigner.RealignerEngine;
+import org.bgi.flexlab.gaea.tools.realigner.RealignerWriter;
 import org.bgi.flexlab.gaea.tools.recalibrator.RecalibratorEngine;
-import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorTable;
+import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorFlatTable;
 import org.bgi.flexlab.gaea.util.SamRecordUtils;
 import org.bgi.flexlab.gaea.util.Window;
 
@@ -55,6 +56,8 @@ public class RealignerReducer
 	private VCFLocalLoader loader = null;
 	private RealignerEngine engine = null;
 	private RecalibratorContextWriter writer = null;
+	private RealignerWriter readWriter = null;
+	private FixmateWindowWriter fixmateWriter = null;
 
 	private RecalibratorEngine recalEngine = null;
 	private RealignerExtendOptions extendOption = new RealignerExtendOptions();
@@ -80,12 +83,17 @@ public class RealignerReducer
 		loader = new VCFLocalLoader(option.getKnowVariant());
 
 		writer = new RecalibratorContextWriter(context, true);
+		readWriter = writer;
+		if (extendOption.isFuseFixmate()) {
+			fixmateWriter = new FixmateWindowWriter(writer, mHeader);
+			readWriter = fixmateWriter;
+		}
 
-		engine = new RealignerEngine(option, genomeShare, dbsnpShare, loader, mHeader, writer);
+		engine = new RealignerEngine(option, genomeShare, dbsnpShare, loader, mHeader, readWriter);
 
 		if (extendOption.isRecalibration()) {
 			recalEngine = new RecalibratorEngine(extendOption.getBqsrOptions(), genomeShare, mHeader,
-					extendOption.isRealignment(), writer);
+					extendOption.isRealignment(), readWriter);
 		}
 	}
 
@@ -118,14 +126,7 @@ public class RealignerReducer
 
 			if (SamRecordUtils.isUnmapped(sam)) {
 				context.getCounter("ERROR", "unexpect unmapped reads").increment(1);
-				try {
-					samWritable.get().setHeader(mHeader);
-					context.write(NullWritable.get(), samWritable);
-				} catch (IOException e) {
-					throw new RuntimeException(e.toString());
-				} catch (InterruptedException e) {
-					throw new RuntimeException(e.toString());
-				}
+				readWriter.write(sam);
 				continue;
 			}
 
@@ -145,6 +146,8 @@ public class RealignerReducer
 	}
 
 	private void clear() {
+		if (fixmateWriter != null)
+			fixmateWriter.flush();
 		records.clear();
 		filteredRecords.clear();
 	}
@@ -159,7 +162,7 @@ public class RealignerReducer
 		if (unmapped) {
 			for (SamRecordWritable value : values) {
 				GaeaSamRecord record = new GaeaSamRecord(mHeader,value.get(),true);
-				writer.write(record);
+				readWriter.write(record);
 			}
 			clear();
 			return;
@@ -175,13 +178,13 @@ public class RealignerReducer
 				}
 
 				for (GaeaSamRecord sam : records) {
-					writer.writeRead(sam);
+					readWriter.writeRead(sam);
 				}
 
 				for (SamRecordWritable samw : values) {
 					int readWinNum = samw.get().getAlignmentStart() / option.getWindowsSize();
 					GaeaSamRecord sam = new GaeaSamRecord(mHeader, samw.get(), readWinNum == winNum);
-					writer.writeRead(sam);
+					readWriter.writeRead(sam);
 				}
 			} else {
 				engine.set(win, records, filteredRecords);
@@ -200,7 +203,7 @@ public class RealignerReducer
 	@Override
 	protected void cleanup(Context context) throws IOException, InterruptedException {
 		if (extendOption.isRecalibration()) {
-			RecalibratorTable table = recalEngine.getTables();
+			RecalibratorFlatTable table = recalEngine.getTables();
 			writer.write(table);
 		}
 		writer.close();
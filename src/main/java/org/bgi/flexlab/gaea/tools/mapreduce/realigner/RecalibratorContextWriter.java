@@ -17,29 +17,30 @@
 package org.bgi.flexlab.gaea.tools.mapreduce.realigner;
 
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Reducer.Context;
 import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 import org.bgi.flexlab.gaea.data.mapreduce.writable.SamRecordWritable;
 import org.bgi.flexlab.gaea.data.structure.bam.GaeaSamRecord;
 import org.bgi.flexlab.gaea.tools.realigner.RealignerWriter;
 import org.bgi.flexlab.gaea.tools.recalibrator.RecalibratorWriter;
-import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorTable;
+import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorFlatTable;
 
 import java.io.IOException;
 
 public class RecalibratorContextWriter extends RealignerWriter implements RecalibratorWriter {
 	public final static String RECALIBRATOR_TABLE_TAG = "bqsr";
+	public final static String CROSS_WINDOW_TAG = "crosswindow";
 	
 	@SuppressWarnings("rawtypes")
 	private Context context = null;
-	private MultipleOutputs<NullWritable, Text> mos = null;
+	private MultipleOutputs<NullWritable, Writable> mos = null;
 	private SamRecordWritable value = null;
 
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public RecalibratorContextWriter(Context ctx,boolean multiple) {
 		if(multiple)
-			mos = new MultipleOutputs<NullWritable, Text>(ctx);
+			mos = new MultipleOutputs<NullWritable, Writable>(ctx);
 		this.context = ctx;
 		value = new SamRecordWritable();
 	}
@@ -50,19 +51,17 @@ public class RecalibratorContextWriter extends RealignerWriter implements Recali
 
 	@SuppressWarnings("unchecked")
 	@Override
-	public void write(RecalibratorTable table) {
-		for (String str : table.valueStrings()) {
-			try {
-				if(mos == null){
-					context.write(NullWritable.get(), new Text(str));
-				}else{
-					mos.write(RECALIBRATOR_TABLE_TAG, NullWritable.get(), new Text(str));
-				}
-			} catch (IOException e) {
-				throw new RuntimeException(e.toString());
-			} catch (InterruptedException e) {
-				throw new RuntimeException(e.toString());
+	public void write(RecalibratorFlatTable table) {
+		try {
+			if(mos == null){
+				context.write(NullWritable.get(), table);
+			}else{
+				mos.write(RECALIBRATOR_TABLE_TAG, NullWritable.get(), table);
 			}
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString());
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e.toString());
 		}
 	}
 
@@ -91,6 +90,18 @@ public class RecalibratorContextWriter extends RealignerWriter implements Recali
 		}
 	}
 	
+	/**
+	 * reads whose mate was not resolved in the realigner window
+	 */
+	public void writeCrossWindow(GaeaSamRecord read) {
+		value.set(read);
+		try {
+			mos.write(CROSS_WINDOW_TAG, NullWritable.get(), value);
+		} catch (IOException | InterruptedException e) {
+			throw new RuntimeException(e.toString());
+		}
+	}
+
 	@SuppressWarnings("rawtypes")
 	public Context getContext(){
 		return this.context;
@@ -28,7 +28,6 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
@@ -45,6 +44,7 @@ import org.bgi.flexlab.gaea.tools.mapreduce.vcfqualitycontrol.variantrecalibrati
 import org.bgi.flexlab.gaea.tools.mapreduce.vcfqualitycontrol.variantrecalibratioin.VariantRecalibrationReducer;
 import org.bgi.flexlab.gaea.tools.vcfqualitycontrol.HardFilter;
 import org.bgi.flexlab.gaea.tools.vcfqualitycontrol.variantrecalibratioin.VCFRecalibrator;
+import org.bgi.flexlab.gaea.tools.vcfqualitycontrol.variantrecalibratioin.traindata.VariantDatumWritable;
 import org.seqdoop.hadoop_bam.KeyIgnoringVCFOutputFormat;
 import org.seqdoop.hadoop_bam.VariantContextWritable;
 
@@ -87,7 +87,7 @@ public class VCFQualityControl extends ToolsRunner{
 			job.setJarByClass(VCFQualityControl.class);
 			job.setMapperClass(VariantRecalibrationMapper.class);
 			job.setReducerClass(VariantRecalibrationReducer.class);
-			job.setOutputKeyValue(IntWritable.class, Text.class, 
+			job.setOutputKeyValue(IntWritable.class, VariantDatumWritable.class, 
 					NullWritable.class, VariantContextWritable.class);
 			job.setNumReduceTasks(vcfHeaders.getFileNum());
 			
@@ -58,6 +58,7 @@ public class VCFQualityControlOptions extends GaeaOptions implements HadoopOptio
 				+ "for recalibrating both snps and indels simultaneously.");
 		addOption("g", "maxGaussians", true, "VQSR:The maximum number of Gaussians to try during variational Bayes algorithm");
 		addOption("C", "maxIterations", true, "VQSR:The maximum number of VBEM iterations to be performed in variational Bayes algorithm. Procedure will normally end when convergence is detected.");
+		addOption("n", "emThreads", true, "VQSR:The number of threads used by the expectation-maximization steps of the Gaussian mixture model training.");
 		addOption("k", "numKMeans", true, "VQSR:The number of k-means iterations to perform in order to initialize the means of the Gaussians in the Gaussian mixture model.");
 		addOption("s", "stdThreshold", true, "VQSR:If a variant has annotations more than -std standard deviations away from mean then don't use it for building the Gaussian mixture model.");
 		addOption("q", "qualThreshold", true, "VQSR:If a known variant has raw QUAL value less than -qual then don't use it for building the Gaussian mixture model.");
@@ -162,6 +163,11 @@ public class VCFQualityControlOptions extends GaeaOptions implements HadoopOptio
 	 */
 	private int numKMeansIterations;
 	 
+	/**
+	 * The number of threads used by the expectation-maximization steps of the Gaussian mixture model training.
+	 */
+	private int emThreads;
+	 
 	/**
 	 * If a variant has annotations more than -std standard deviations away from mean then don't use it for building the Gaussian mixture model.
 	 */
@@ -301,6 +307,8 @@ public class VCFQualityControlOptions extends GaeaOptions implements HadoopOptio
 				
 				numKMeansIterations = getOptionIntValue("k", 30);
 				
+				emThreads = getOptionIntValue("n", 1);
+				
 				stdThreshold = getOptionDoubleValue("s", 14.0);
 				
 				qualThreshold = getOptionDoubleValue("q", 80.0);
@@ -650,6 +658,13 @@ public class VCFQualityControlOptions extends GaeaOptions implements HadoopOptio
 		this.percentBadVariants = percentBadVariants;
 	}
 
+	/**
+	 * @return the emThreads
+	 */
+	public int getEMThreads() {
+		return emThreads;
+	}
+
 	/**
 	 * @return the minNumBadVariants
 	 */
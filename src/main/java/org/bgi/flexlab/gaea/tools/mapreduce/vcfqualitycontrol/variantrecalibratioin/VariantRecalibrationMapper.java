@@ -20,7 +20,6 @@ import htsjdk.samtools.reference.FastaSequenceFile;
 import htsjdk.variant.variantcontext.VariantContext;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.bgi.flexlab.gaea.data.exception.UserException;
 import org.bgi.flexlab.gaea.data.structure.location.GenomeLocationParser;
@@ -31,7 +30,7 @@ import org.seqdoop.hadoop_bam.VariantContextWritable;
 import java.io.File;
 import java.io.IOException;
 
-public class VariantRecalibrationMapper extends Mapper<LongWritable, VariantContextWritable, IntWritable, Text>{
+public class VariantRecalibrationMapper extends Mapper<LongWritable, VariantContextWritable, IntWritable, VariantDatumWritable>{
 
 	private VCFQualityControlOptions options;
 	
@@ -39,6 +38,10 @@ public class VariantRecalibrationMapper extends Mapper<LongWritable, VariantCont
 	
 	private GenomeLocationParser genomeLocParser;
 	
+	private IntWritable fileId = new IntWritable();
+	
+	private VariantDatumWritable datumWritable = new VariantDatumWritable();
+	
 	/**
 	 * 任务初始化设置
 	 */
@@ -84,7 +87,9 @@ public class VariantRecalibrationMapper extends Mapper<LongWritable, VariantCont
 														 .setPrior()
 														 .build();
 		if(datum != null) {
-			context.write(new IntWritable((int)key.get()), new Text(datum.toString()));
+			fileId.set((int)key.get());
+			datumWritable.set(datum);
+			context.write(fileId, datumWritable);
 		}
 	}
 
@@ -28,7 +28,6 @@ import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Reducer;
 import org.bgi.flexlab.gaea.data.mapreduce.util.HdfsFileManager;
 import org.bgi.flexlab.gaea.data.structure.header.GaeaVCFHeader;
@@ -37,7 +36,7 @@ import org.bgi.flexlab.gaea.data.structure.location.GenomeLocationParser;
 import org.bgi.flexlab.gaea.data.structure.vcf.report.ReportDatum;
 import org.bgi.flexlab.gaea.tools.mapreduce.vcfqualitycontrol.VCFQualityControlOptions;
 import org.bgi.flexlab.gaea.tools.vcfqualitycontrol.variantrecalibratioin.VCFRecalibrator;
-import org.bgi.flexlab.gaea.tools.vcfqualitycontrol.variantrecalibratioin.traindata.VariantDatumMessenger;
+import org.bgi.flexlab.gaea.tools.vcfqualitycontrol.variantrecalibratioin.traindata.VariantDatumWritable;
 import org.seqdoop.hadoop_bam.VariantContextWritable;
 
 import java.io.File;
@@ -45,7 +44,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 
-public class VariantRecalibrationReducer extends Reducer<IntWritable, Text, NullWritable, VariantContextWritable>{
+public class VariantRecalibrationReducer extends Reducer<IntWritable, VariantDatumWritable, NullWritable, VariantContextWritable>{
 	private VCFRecalibrator recal;
 	private VCFQualityControlOptions options;
 	private int fileId;
@@ -65,12 +64,10 @@ public class VariantRecalibrationReducer extends Reducer<IntWritable, Text, Null
     }
 	
     @Override
-	public void reduce(IntWritable key, Iterable<Text> values,Context context) throws IOException, InterruptedException {
+	public void reduce(IntWritable key, Iterable<VariantDatumWritable> values,Context context) throws IOException, InterruptedException {
     	fileId = key.get();
-    	for(Text value : values) {
-	    	VariantDatumMessenger msg = new VariantDatumMessenger.Builder().
-	    							buildFrom(value.toString(), genomeLocParser);
-	    	recal.addData(msg);
+    	for(VariantDatumWritable value : values) {
+	    	recal.addData(value.get(genomeLocParser));
     	}
     	recal.recalVCF(fileId, context);
     	
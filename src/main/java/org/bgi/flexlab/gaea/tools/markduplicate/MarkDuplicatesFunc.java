@@ -102,7 +102,7 @@ public class MarkDuplicatesFunc {
      * @param rec
      * @param ends
      */
-    private void buildReadEnds(SAMRecord rec, ReadEnds ends) {
+    void buildReadEnds(SAMRecord rec, ReadEnds ends) {
         if(ends.read1SequenceIndex == -1) {
             ends.read1SequenceIndex = rec.getReferenceIndex();
             ends.read1Coordinate = rec.getReadNegativeStrandFlag() ? rec.getUnclippedEnd() : rec.getUnclippedStart();;
@@ -171,7 +171,7 @@ public class MarkDuplicatesFunc {
      * @author zy1905
      *
      */
-    private class ClusterIndex implements Comparable<ClusterIndex>{
+    static class ClusterIndex implements Comparable<ClusterIndex>{
         private byte orientation;
         private int read1SequenceIndex=-1;
         private int read1Coordinate   = -1;
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.markduplicate;
+
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import org.bgi.flexlab.gaea.util.RandomUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * mark duplicate for clusters too large to keep in memory. Reads are scored
+ * as they arrive and written to a local spill file in BAM record encoding,
+ * only read ends of pairs still waiting for their mate and the best read
+ * name per end-pair are kept in memory.
+ */
+public class StreamingMarkDuplicates {
+    private final MarkDuplicatesFunc func = new MarkDuplicatesFunc();
+
+    private final SAMFileHeader header;
+
+    private final File spillFile;
+
+    private final BAMRecordCodec codec;
+
+    private final OutputStream spillOut;
+
+    /**
+     * read name -> ends of pairs whose mate is not seen yet
+     */
+    private final Map<String, ReadEnds> pending = new HashMap<>();
+
+    /**
+     * end-pair -> best scoring read ends in this cluster
+     */
+    private final Map<MarkDuplicatesFunc.ClusterIndex, BestEnds> best = new HashMap<>();
+
+    private long recordCount = 0;
+
+    private static class BestEnds {
+        private short score;
+        private String readName;
+        /* number of reads seen with the best score */
+        private int ties = 1;
+
+        BestEnds(short score, String readName) {
+            this.score = score;
+            this.readName = readName;
+        }
+    }
+
+    public StreamingMarkDuplicates(SAMFileHeader header) throws IOException {
+        this.header = header;
+        spillFile = File.createTempFile("markdup", ".spill");
+        spillFile.deleteOnExit();
+        codec = new BAMRecordCodec(header);
+        spillOut = new BufferedOutputStream(new FileOutputStream(spillFile), 1 << 20);
+        codec.setOutputStream(spillOut);
+    }
+
+    /**
+     * score and spill one read
+     */
+    public void add(SAMRecord sam) {
+        codec.encode(sam);
+        recordCount++;
+
+        String readName = sam.getReadName();
+        ReadEnds ends = pending.remove(readName);
+        boolean first = ends == null;
+        if (first)
+            ends = new ReadEnds();
+        func.buildReadEnds(sam, ends);
+
+        if (first && sam.getReadPairedFlag() && !sam.getMateUnmappedFlag()) {
+            pending.put(readName, ends);
+            return;
+        }
+        fold(readName, ends);
+    }
+
+    private void fold(String readName, ReadEnds ends) {
+        MarkDuplicatesFunc.ClusterIndex index = new MarkDuplicatesFunc.ClusterIndex(ends);
+        BestEnds current = best.get(index);
+        if (current == null) {
+            best.put(index, new BestEnds(ends.score, readName));
+        } else if (ends.score > current.score) {
+            current.score = ends.score;
+            current.readName = readName;
+            current.ties = 1;
+        } else if (ends.score == current.score) {
+            //keep one of the equally scored reads at random like MarkDuplicatesFunc
+            current.ties++;
+            if (RandomUtils.getRandomGenerator().nextInt(current.ties) == 0)
+                current.readName = readName;
+        }
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return spilled reads with duplicate flag set, the spill file is removed
+     * once the iterator is exhausted
+     */
+    public Iterator<SAMRecord> finish() throws IOException {
+        for (Map.Entry<String, ReadEnds> entry : pending.entrySet())
+            fold(entry.getKey(), entry.getValue());
+        pending.clear();
+
+        final Set<String> keep = new HashSet<>();
+        for (BestEnds ends : best.values())
+            keep.add(ends.readName);
+        best.clear();
+
+        spillOut.close();
+        final InputStream spillIn = new BufferedInputStream(new FileInputStream(spillFile), 1 << 20);
+        final BAMRecordCodec reader = new BAMRecordCodec(header);
+        reader.setInputStream(spillIn);
+
+        return new Iterator<SAMRecord>() {
+            private SAMRecord next = advance();
+
+            private SAMRecord advance() {
+                SAMRecord sam = reader.decode();
+                if (sam == null) {
+                    try {
+                        spillIn.close();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e.toString());
+                    }
+                    spillFile.delete();
+                    return null;
+                }
+                sam.setDuplicateReadFlag(!keep.contains(sam.getReadName()));
+                return sam;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public SAMRecord next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                SAMRecord sam = next;
+                next = advance();
+                return sam;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -185,10 +185,10 @@ public class IdentifyRegionsCreator {
 
 		while (pileups != null) {
 			int currPosition = mpileup.getPosition()+1;
-			for (String key : pileups.keySet()) {
+			for (Pileup pileup : pileups.values()) {
 				VariantState state = new VariantState();
 				state.filterVariant(knowIndels, currPosition);
-				Event event = getEvent(state,chrIndex, pileups.get(key), currPosition);
+				Event event = getEvent(state,chrIndex, pileup, currPosition);
 				setEventPair(pair, event);
 			}
 			pileups = mpileup.getNextPosPileup();
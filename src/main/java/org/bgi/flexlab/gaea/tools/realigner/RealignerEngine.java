@@ -112,6 +112,10 @@ public class RealignerEngine {
 		end = (win.getStop() + WINDOWS_EXTEND) < mHeader.getSequence(referenceName).getSequenceLength()
 				? (win.getStop() + WINDOWS_EXTEND) : mHeader.getSequence(referenceName).getSequenceLength();
 
+		knowIndels = dbsnpShare.query(referenceName, start, end);
+		if (knowIndels != null)
+			return;
+
 		long startPosition = dbsnpShare.getStartPosition(referenceName, start / VcfIndex.WINDOW_SIZE, end / VcfIndex.WINDOW_SIZE,
 				VcfIndex.WINDOW_SIZE);
 
@@ -44,96 +44,101 @@ package org.bgi.flexlab.gaea.tools.recalibrator;
 
 import org.bgi.flexlab.gaea.util.EventType;
 
+import java.util.Arrays;
+
+/**
+ * covariate keys of one read in a flat array laid out as [event][offset][covariate].
+ * One instance is kept per task and reset for every read, the backing array
+ * only grows when a longer read shows up.
+ */
 public class ReadCovariates {
-	private int[][][] mkeys = null;
+	private int[] mkeys = null;
 	private boolean largeKeys = false;
 	private int currCovIndex = 0;
+	private int events;
+	private int numberOfCovariates;
+	private int readLength;
+	private int[] keySet;
 	
 	public ReadCovariates(int readLength, int numberOfCovariates,boolean largeKeys) {
 		this.largeKeys = largeKeys;
-		int length = 1;
-		if(largeKeys)
-			length = EventType.values().length;
-		initialize(length,readLength,numberOfCovariates);
+		this.events = largeKeys ? EventType.values().length : 1;
+		this.numberOfCovariates = numberOfCovariates;
+		this.keySet = new int[numberOfCovariates];
+		reset(readLength);
 	}
 	
 	public ReadCovariates(int readLength, int numberOfCovariates) {
 		this(readLength,numberOfCovariates,false);
 	}
 	
-	private void initialize(int length,final int readLength, final int numberOfCovariates) {
-		mkeys = new int[length][readLength][numberOfCovariates];
+	/**
+	 * prepare for a read of readLength bases
+	 */
+	public void reset(final int readLength) {
+		this.readLength = readLength;
+		int size = events * readLength * numberOfCovariates;
+		if (mkeys == null || mkeys.length < size)
+			mkeys = new int[size];
+		else
+			Arrays.fill(mkeys, 0, size, 0);
+		currCovIndex = 0;
+	}
+
+	public int getReadLength() {
+		return readLength;
 	}
 
 	public void setCovariateIndex(final int index) {
 		currCovIndex = index;
 	}
 
-	private void setCovariate(final int readOffset, final int... keys) {
-		int len = keys.length;
-		for (int i = 0; i < len; i++) {
-			mkeys[i][readOffset][currCovIndex] = keys[i];
-		}
+	private int index(final int event, final int readOffset) {
+		return (event * readLength + readOffset) * numberOfCovariates;
 	}
 
 	public void addCovariate(final int mismatch, final int insertion, final int deletion, final int readOffset) {
-		if (!largeKeys)
-			setCovariate(readOffset, mismatch);
-		else {
-			setCovariate(readOffset, mismatch, insertion, deletion);
+		mkeys[index(EventType.SNP.index, readOffset) + currCovIndex] = mismatch;
+		if (largeKeys) {
+			mkeys[index(EventType.Insertion.index, readOffset) + currCovIndex] = insertion;
+			mkeys[index(EventType.Deletion.index, readOffset) + currCovIndex] = deletion;
 		}
 	}
 
+	public int getKey(final int readPosition, final EventType errorModel, final int covariateIndex) {
+		return mkeys[index(eventIndex(errorModel), readPosition) + covariateIndex];
+	}
+
+	/**
+	 * the returned array is reused by the next call
+	 */
 	public int[] getKeySet(final int readPosition, final EventType errorModel) {
-		if (largeKeys)
-			return mkeys[errorModel.index][readPosition];
-		if (errorModel.index != EventType.SNP.index)
-			throw new RuntimeException("model not match");
-		return mkeys[0][readPosition];
+		System.arraycopy(mkeys, index(eventIndex(errorModel), readPosition), keySet, 0, numberOfCovariates);
+		return keySet;
 	}
 
-	public int[][] getKeySet(final EventType errorModel) {
+	private int eventIndex(final EventType errorModel) {
 		if (largeKeys)
-			return mkeys[errorModel.index];
+			return errorModel.index;
 		if (errorModel.index != EventType.SNP.index)
 			throw new RuntimeException("model not match");
-		return mkeys[0];
+		return 0;
 	}
 
 	public int[] getMismatchesKeySet(final int readPosition) {
-		return mkeys[0][readPosition];
+		return getKeySet(readPosition, EventType.SNP);
 	}
 
 	public int[] getInsertionsKeySet(final int readPosition) {
 		if (!largeKeys)
 			throw new RuntimeException("insertion model not match");
-		return mkeys[EventType.Insertion.index][readPosition];
+		return getKeySet(readPosition, EventType.Insertion);
 	}
 
 	public int[] getDeletionsKeySet(final int readPosition) {
 		if (!largeKeys)
 			throw new RuntimeException("deletetion model not match");
-		return mkeys[EventType.Deletion.index][readPosition];
-	}
-
-	public int[][] getMismatchesKeySet() {
-		return mkeys[0];
-	}
-
-	public int[][] getInsertionsKeySet() {
-		if (!largeKeys)
-			throw new RuntimeException("insertion model not match");
-		return mkeys[EventType.Insertion.index];
-	}
-
-	public int[][] getDeletionsKeySet() {
-		if (!largeKeys)
-			throw new RuntimeException("deletetion model not match");
-		return mkeys[EventType.Deletion.index];
-	}
-	
-	public int[][][] getMKeys(){
-		return mkeys;
+		return getKeySet(readPosition, EventType.Deletion);
 	}
 
 	public void clear() {
@@ -54,11 +54,11 @@ import org.bgi.flexlab.gaea.tools.recalibrator.RecalibratorUtil.Consistent;
 import org.bgi.flexlab.gaea.tools.recalibrator.RecalibratorUtil.SolidRecallMode;
 import org.bgi.flexlab.gaea.tools.recalibrator.covariate.Covariate;
 import org.bgi.flexlab.gaea.tools.recalibrator.covariate.CovariateUtil;
-import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorTable;
+import org.bgi.flexlab.gaea.tools.recalibrator.report.RecalibratorReport;
+import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorFlatTable;
 import org.bgi.flexlab.gaea.util.AlignmentUtil;
 import org.bgi.flexlab.gaea.util.BaseUtils;
 import org.bgi.flexlab.gaea.util.EventType;
-import org.bgi.flexlab.gaea.util.NestedObjectArray;
 
 import java.util.ArrayList;
 
@@ -69,9 +69,10 @@ public class RecalibratorEngine {
 	private BaseAndSNPInformation information = null;
 	private BaseRecalibrationFilter filter = null;
 	private Covariate[] covariates = null;
-	private RecalibratorTable recalibratorTables = null;
+	private RecalibratorFlatTable recalibratorTables = null;
 	private RealignerWriter writer = null;
 	private boolean isRealigment = false;
+	private ReadCovariates readCovariates = null;
 
 	public RecalibratorEngine(RecalibratorOptions option, ReferenceShare chrInfo, SAMFileHeader mHeader,boolean isRealigment,RealignerWriter writer) {
 		this.option = option;
@@ -80,7 +81,8 @@ public class RecalibratorEngine {
 		information = new BaseAndSNPInformation();
 		filter = new BaseRecalibrationFilter();
 		this.covariates = CovariateUtil.initializeCovariates(option, mHeader);
-		recalibratorTables = new RecalibratorTable(this.covariates, mHeader.getReadGroups().size());
+		readCovariates = new ReadCovariates(RecalibratorReport.MAXIMUM_RECALIBRATED_READ_LENGTH, covariates.length);
+		recalibratorTables = new RecalibratorFlatTable(this.covariates, mHeader.getReadGroups().size());
 		this.isRealigment = isRealigment;
 		this.writer = writer;
 	}
@@ -139,7 +141,8 @@ public class RecalibratorEngine {
 					if (!consistent.isColorSpaceConsistent()) {
 						return;
 					}
-					rcovariate = RecalibratorUtil.computeCovariates(read, covariates);
+					RecalibratorUtil.computeCovariates(read, covariates, readCovariates);
+					rcovariate = readCovariates;
 				}
 				if (qpos < 0 || quals[qpos] < option.PRESERVE_QSCORES_LESS_THAN || rcovariate == null
 						|| !consistent.isColorSpaceConsistent(qpos, read.getReadNegativeStrandFlag())) {
@@ -155,36 +158,7 @@ public class RecalibratorEngine {
 		final boolean isError = !BaseUtils.basesAreEqual(base, refBase);
 		final EventType eventType = EventType.SNP;
 		final int[] keys = readCovariates.getKeySet(offset, eventType);
-		final int eventIndex = eventType.index;
-
-		final NestedObjectArray<RecalibratorDatum> rgRecalTable = recalibratorTables
-				.getTable(RecalibratorTable.Type.READ_GROUP_TABLE);
-
-		final RecalibratorDatum rgPreviousDatum = rgRecalTable.get(keys[0], eventIndex);
-		final RecalibratorDatum rgThisDatum = RecalibratorDatum.build(quality, isError);
-		if (rgPreviousDatum == null)
-			rgRecalTable.put(rgThisDatum, keys[0], eventIndex);
-		else
-			rgPreviousDatum.combine(rgThisDatum);
-
-		final NestedObjectArray<RecalibratorDatum> qualRecalTable = recalibratorTables
-				.getTable(RecalibratorTable.Type.QUALITY_SCORE_TABLE);
-		final RecalibratorDatum qualPreviousDatum = qualRecalTable.get(keys[0], keys[1], eventIndex);
-		if (qualPreviousDatum == null)
-			qualRecalTable.put(RecalibratorDatum.build(quality, isError), keys[0], keys[1], eventIndex);
-		else
-			qualPreviousDatum.increment(isError);
-
-		for (int i = 2; i < covariates.length; i++) {
-			if (keys[i] < 0)
-				continue;
-			final NestedObjectArray<RecalibratorDatum> covRecalTable = recalibratorTables.getTable(i);
-			final RecalibratorDatum covPreviousDatum = covRecalTable.get(keys[0], keys[1], keys[i], eventIndex);
-			if (covPreviousDatum == null)
-				covRecalTable.put(RecalibratorDatum.build(quality, isError), keys[0], keys[1], keys[i], eventIndex);
-			else
-				covPreviousDatum.increment(isError);
-		}
+		recalibratorTables.update(keys, eventType.index, quality, isError);
 		
 		return isError;
 	}
@@ -197,7 +171,7 @@ public class RecalibratorEngine {
 		}
 	}
 
-	public RecalibratorTable getTables() {
+	public RecalibratorFlatTable getTables() {
 		return this.recalibratorTables;
 	}
 }
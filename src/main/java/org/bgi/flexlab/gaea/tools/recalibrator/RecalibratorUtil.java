@@ -259,6 +259,7 @@ public class RecalibratorUtil {
 
 	public static void computeCovariates(final GaeaSamRecord read, final Covariate[] covariates,
 			ReadCovariates readCovariates) {
+		readCovariates.reset(read.getReadLength());
 		for (int i = 0; i < covariates.length; i++) {
 			readCovariates.setCovariateIndex(i);
 			covariates[i].recordValues(read, readCovariates);
@@ -16,10 +16,10 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.tools.recalibrator;
 
-import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorTable;
+import org.bgi.flexlab.gaea.tools.recalibrator.table.RecalibratorFlatTable;
 
 public interface RecalibratorWriter {
-	public void write(RecalibratorTable table);
+	public void write(RecalibratorFlatTable table);
 	
 	public void close();
 }
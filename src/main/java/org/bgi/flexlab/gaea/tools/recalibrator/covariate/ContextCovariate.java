@@ -51,7 +51,6 @@ import org.bgi.flexlab.gaea.tools.mapreduce.realigner.RecalibratorOptions;
 import org.bgi.flexlab.gaea.tools.recalibrator.ReadCovariates;
 import org.bgi.flexlab.gaea.util.BaseUtils;
 
-import java.util.ArrayList;
 
 public class ContextCovariate implements OptionalCovariate {
 	private static final int LENGTH_BITS = 4;
@@ -66,6 +65,10 @@ public class ContextCovariate implements OptionalCovariate {
 	private byte lowQuality;
 	private ReadClippingAlgorithm algorithm;
 
+	/* per read key buffers, reused across reads */
+	private int[] mismatchKeys = null;
+	private int[] indelKeys = null;
+
 	@Override
 	public void initialize(RecalibratorOptions option) {
 		mContextSize = option.MISMATCHES_CONTEXT_SIZE;
@@ -94,20 +97,29 @@ public class ContextCovariate implements OptionalCovariate {
 		return mask << LENGTH_BITS;
 	}
 
-	private ArrayList<Integer> contextWith(byte[] bases, int size, int mask) {
+	private int[] ensureCapacity(int[] keys, int readLength) {
+		if (keys == null || keys.length < readLength)
+			return new int[readLength];
+		return keys;
+	}
+
+	/**
+	 * fills keys[0, bases.length) with the context key ending at each base
+	 */
+	private void contextWith(byte[] bases, int size, int mask, int[] keys) {
 		final int readLength = bases.length;
-		final ArrayList<Integer> keys = new ArrayList<Integer>(readLength);
+		int n = 0;
 
 		for (int i = 1; i < size && i <= readLength; i++)
-			keys.add(-1);
+			keys[n++] = -1;
 
 		if (readLength < size)
-			return keys;
+			return;
 
 		final int newBaseOffset = 2 * (size - 1) + LENGTH_BITS;
 
 		int currentKey = keyFromContext(bases, 0, size);
-		keys.add(currentKey);
+		keys[n++] = currentKey;
 
 		int currentNPenalty = 0;
 		if (currentKey == -1) {
@@ -134,14 +146,12 @@ public class ContextCovariate implements OptionalCovariate {
 			}
 
 			if (currentNPenalty == 0) {
-				keys.add(currentKey);
+				keys[n++] = currentKey;
 			} else {
 				currentNPenalty--;
-				keys.add(-1);
+				keys[n++] = -1;
 			}
 		}
-
-		return keys;
 	}
 
 	@Override
@@ -155,18 +165,17 @@ public class ContextCovariate implements OptionalCovariate {
 		if (negativeStrand)
 			bases = BaseUtils.simpleReverseComplement(bases);
 
-		ArrayList<Integer> mismatchKeys = contextWith(bases, mContextSize, mismatchesMask);
-		ArrayList<Integer> indelKeys = contextWith(bases, iContextSize, indelsMask);
-
 		final int readLength = bases.length;
+		mismatchKeys = ensureCapacity(mismatchKeys, readLength);
+		indelKeys = ensureCapacity(indelKeys, readLength);
+		contextWith(bases, mContextSize, mismatchesMask, mismatchKeys);
+		contextWith(bases, iContextSize, indelsMask, indelKeys);
+
 		for (int i = 0; i < readLength; i++) {
-			int indelKey = indelKeys.get(i);
-			values.addCovariate(mismatchKeys.get(i), indelKey, indelKey, (negativeStrand ? readLength - i - 1 : i));
+			int indelKey = indelKeys[i];
+			values.addCovariate(mismatchKeys[i], indelKey, indelKey, (negativeStrand ? readLength - i - 1 : i));
 		}
 
-		mismatchKeys.clear();
-		indelKeys.clear();
-
 		read.setReadBases(originalBases);
 	}
 
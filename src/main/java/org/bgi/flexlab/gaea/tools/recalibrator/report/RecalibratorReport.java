@@ -264,7 +264,6 @@ public class RecalibratorReport {
 			}
 
 			final byte[] qualities = read.getBaseQualities(errorModel);
-			final int[][] fullReadKeySet = readCovariates.getKeySet(errorModel);
 
 			final int readLength = read.getReadLength();
 			for (int offset = 0; offset < readLength; offset++) {
@@ -272,7 +271,7 @@ public class RecalibratorReport {
 				final byte originalQualityScore = qualities[offset];
 
 				if (originalQualityScore >= this.preserveQualityLessThan) {
-					final int[] keySet = fullReadKeySet[offset];
+					final int[] keySet = readCovariates.getKeySet(offset, errorModel);
 					final byte recalibratedQualityScore = performSequentialQualityCalculation(keySet, errorModel);
 					qualities[offset] = recalibratedQualityScore;
 				}
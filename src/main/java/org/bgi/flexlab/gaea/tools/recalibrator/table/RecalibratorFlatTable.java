@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.recalibrator.table;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.bgi.flexlab.gaea.tools.recalibrator.RecalibratorDatum;
+import org.bgi.flexlab.gaea.tools.recalibrator.covariate.Covariate;
+import org.bgi.flexlab.gaea.util.EventType;
+import org.bgi.flexlab.gaea.util.NestedObjectArray;
+import org.bgi.flexlab.gaea.util.QualityUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * primitive form of RecalibratorTable used while counting bases.
+ * Each covariate table is a flat array of cells indexed by
+ * ((readGroup * quality + qual) * covariate + cov) * event + event,
+ * tables larger than DENSE_LIMIT cells are addressed through an open hash.
+ */
+public class RecalibratorFlatTable implements Writable {
+	private final static int DENSE_LIMIT = 1 << 20;
+	private final static double[] ERROR_PROBABILITY = new double[256];
+
+	static {
+		for (int i = 0; i < ERROR_PROBABILITY.length; i++)
+			ERROR_PROBABILITY[i] = QualityUtils.qualityToErrorProbability(i);
+	}
+
+	private int readGroupNumber;
+	private int qualitySize;
+	private int eventSize;
+	private int[] covariateSizes;
+	private Cells[] tables;
+
+	public RecalibratorFlatTable() {
+	}
+
+	public RecalibratorFlatTable(final Covariate[] covariates, int readGroupNumber) {
+		int[] sizes = new int[covariates.length];
+		for (int i = RecalibratorTable.Type.OPTIONAL_COVARIATE_TABLES_START.index; i < covariates.length; i++)
+			sizes[i] = covariates[i].maximumKeyValue() + 1;
+		init(readGroupNumber, covariates[RecalibratorTable.Type.QUALITY_SCORE_TABLE.index].maximumKeyValue() + 1,
+				EventType.values().length, sizes);
+	}
+
+	private void init(int readGroupNumber, int qualitySize, int eventSize, int[] covariateSizes) {
+		this.readGroupNumber = readGroupNumber;
+		this.qualitySize = qualitySize;
+		this.eventSize = eventSize;
+		this.covariateSizes = covariateSizes;
+		tables = new Cells[covariateSizes.length];
+		for (int i = 0; i < tables.length; i++)
+			tables[i] = new Cells(tableSize(i));
+	}
+
+	private long tableSize(int index) {
+		long size = (long) readGroupNumber * eventSize;
+		if (index >= RecalibratorTable.Type.QUALITY_SCORE_TABLE.index)
+			size *= qualitySize;
+		if (index >= RecalibratorTable.Type.OPTIONAL_COVARIATE_TABLES_START.index)
+			size *= covariateSizes[index];
+		return size;
+	}
+
+	/**
+	 * keys are the covariate keys of one base, negative optional keys are skipped
+	 */
+	public void update(final int[] keys, final int eventIndex, final byte quality, final boolean isError) {
+		final int mismatch = isError ? 1 : 0;
+		final double error = ERROR_PROBABILITY[quality & 0xff];
+
+		tables[RecalibratorTable.Type.READ_GROUP_TABLE.index].add((long) keys[0] * eventSize + eventIndex, 1,
+				mismatch, error);
+
+		final long qualKey = (long) keys[0] * qualitySize + keys[1];
+		tables[RecalibratorTable.Type.QUALITY_SCORE_TABLE.index].add(qualKey * eventSize + eventIndex, 1, mismatch,
+				error);
+
+		for (int i = RecalibratorTable.Type.OPTIONAL_COVARIATE_TABLES_START.index; i < tables.length; i++) {
+			if (keys[i] < 0)
+				continue;
+			tables[i].add((qualKey * covariateSizes[i] + keys[i]) * eventSize + eventIndex, 1, mismatch, error);
+		}
+	}
+
+	/**
+	 * element-wise sum, both tables must come from the same covariates
+	 */
+	public void merge(RecalibratorFlatTable other) {
+		if (other.tables.length != tables.length || other.readGroupNumber != readGroupNumber
+				|| other.qualitySize != qualitySize)
+			throw new RuntimeException("recalibrator tables have different covariates");
+		for (int i = 0; i < tables.length; i++) {
+			Cells from = other.tables[i];
+			for (int slot = 0; slot < from.capacity(); slot++) {
+				if (from.bases[slot] != 0)
+					tables[i].add(from.keyOf(slot), from.bases[slot], from.mismatches[slot], from.errors[slot]);
+			}
+		}
+	}
+
+	/**
+	 * object table used by report building
+	 */
+	public RecalibratorTable toRecalibratorTable(final Covariate[] covariates) {
+		RecalibratorTable table = new RecalibratorTable(covariates, readGroupNumber);
+		for (int i = 0; i < tables.length; i++) {
+			NestedObjectArray<RecalibratorDatum> nested = table.getTable(i);
+			Cells cells = tables[i];
+			for (int slot = 0; slot < cells.capacity(); slot++) {
+				if (cells.bases[slot] != 0)
+					put(nested, i, cells.keyOf(slot), cells.bases[slot], cells.mismatches[slot], cells.errors[slot]);
+			}
+		}
+		return table;
+	}
+
+	private void put(NestedObjectArray<RecalibratorDatum> nested, int index, long key, long bases, long mismatches,
+			double errors) {
+		int event = (int) (key % eventSize);
+		key /= eventSize;
+		if (index == RecalibratorTable.Type.READ_GROUP_TABLE.index) {
+			nested.put(new RecalibratorDatum(bases, mismatches, -10 * Math.log10(errors / bases)), (int) key, event);
+			return;
+		}
+		int cov = -1;
+		if (index >= RecalibratorTable.Type.OPTIONAL_COVARIATE_TABLES_START.index) {
+			cov = (int) (key % covariateSizes[index]);
+			key /= covariateSizes[index];
+		}
+		int qual = (int) (key % qualitySize);
+		int readGroup = (int) (key / qualitySize);
+		RecalibratorDatum datum = new RecalibratorDatum(bases, mismatches, qual);
+		if (cov < 0)
+			nested.put(datum, readGroup, qual, event);
+		else
+			nested.put(datum, readGroup, qual, cov, event);
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, readGroupNumber);
+		WritableUtils.writeVInt(out, qualitySize);
+		WritableUtils.writeVInt(out, eventSize);
+		WritableUtils.writeVInt(out, covariateSizes.length);
+		for (int size : covariateSizes)
+			WritableUtils.writeVInt(out, size);
+
+		for (Cells cells : tables) {
+			WritableUtils.writeVInt(out, cells.count);
+			for (int slot = 0; slot < cells.capacity(); slot++) {
+				if (cells.bases[slot] == 0)
+					continue;
+				WritableUtils.writeVLong(out, cells.keyOf(slot));
+				WritableUtils.writeVLong(out, cells.bases[slot]);
+				WritableUtils.writeVLong(out, cells.mismatches[slot]);
+				out.writeDouble(cells.errors[slot]);
+			}
+		}
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		int readGroup = WritableUtils.readVInt(in);
+		int quality = WritableUtils.readVInt(in);
+		int event = WritableUtils.readVInt(in);
+		int[] sizes = new int[WritableUtils.readVInt(in)];
+		for (int i = 0; i < sizes.length; i++)
+			sizes[i] = WritableUtils.readVInt(in);
+		init(readGroup, quality, event, sizes);
+
+		for (Cells cells : tables) {
+			int count = WritableUtils.readVInt(in);
+			for (int i = 0; i < count; i++) {
+				long key = WritableUtils.readVLong(in);
+				long bases = WritableUtils.readVLong(in);
+				long mismatches = WritableUtils.readVLong(in);
+				cells.add(key, bases, mismatches, in.readDouble());
+			}
+		}
+	}
+
+	/**
+	 * dense cells are indexed by key directly, sparse cells keep the key of
+	 * every slot and probe linearly.
+	 */
+	private static class Cells {
+		private final boolean dense;
+		private long[] keys;
+		private long[] bases;
+		private long[] mismatches;
+		private double[] errors;
+		private int count = 0;
+
+		Cells(long size) {
+			dense = size <= DENSE_LIMIT;
+			allocate(dense ? (int) size : 1024);
+		}
+
+		private void allocate(int capacity) {
+			bases = new long[capacity];
+			mismatches = new long[capacity];
+			errors = new double[capacity];
+			if (!dense) {
+				keys = new long[capacity];
+				Arrays.fill(keys, -1);
+			}
+		}
+
+		int capacity() {
+			return bases.length;
+		}
+
+		long keyOf(int slot) {
+			return dense ? slot : keys[slot];
+		}
+
+		void add(long key, long base, long mismatch, double error) {
+			int slot = dense ? (int) key : slot(key);
+			if (bases[slot] == 0)
+				count++;
+			bases[slot] += base;
+			mismatches[slot] += mismatch;
+			errors[slot] += error;
+		}
+
+		private int slot(long key) {
+			if ((count + 1) * 2 > keys.length)
+				resize();
+			int mask = keys.length - 1;
+			int slot = (int) (mix(key) & mask);
+			while (keys[slot] != -1 && keys[slot] != key)
+				slot = (slot + 1) & mask;
+			keys[slot] = key;
+			return slot;
+		}
+
+		private void resize() {
+			long[] oldKeys = keys;
+			long[] oldBases = bases;
+			long[] oldMismatches = mismatches;
+			double[] oldErrors = errors;
+			allocate(oldKeys.length << 1);
+			count = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != -1 && oldBases[i] != 0)
+					add(oldKeys[i], oldBases[i], oldMismatches[i], oldErrors[i]);
+			}
+		}
+
+		private static long mix(long key) {
+			key *= 0x9E3779B97F4A7C15L;
+			return key ^ (key >>> 32);
+		}
+	}
+}
@@ -43,18 +43,22 @@
 package org.bgi.flexlab.gaea.tools.recalibrator.table;
 
 import htsjdk.samtools.SAMFileHeader;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
-import org.bgi.flexlab.gaea.data.mapreduce.util.HdfsFilesReader;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.bgi.flexlab.gaea.data.mapreduce.util.HdfsFileManager;
 import org.bgi.flexlab.gaea.tools.mapreduce.realigner.RecalibratorContextWriter;
 import org.bgi.flexlab.gaea.tools.mapreduce.realigner.RecalibratorOptions;
-import org.bgi.flexlab.gaea.tools.recalibrator.RecalibratorDatum;
 import org.bgi.flexlab.gaea.tools.recalibrator.covariate.Covariate;
 import org.bgi.flexlab.gaea.tools.recalibrator.covariate.CovariateUtil;
-import org.bgi.flexlab.gaea.util.NestedObjectArray;
+
+import java.io.IOException;
 
 public class RecalibratorTableCombiner {
-	private HdfsFilesReader reader = null;
 	private RecalibratorTable tables = null;
 	private Covariate[] covariates = null;
 
@@ -84,56 +88,38 @@ public class RecalibratorTableCombiner {
 	}
 
 	public void combineTable(String path) {
-		reader = new HdfsFilesReader();
-		reader.traversal(path,new RecalibratorPathFilter());
+		Configuration conf = new Configuration();
+		Path input = new Path(path);
+		FileSystem fs = HdfsFileManager.getFileSystem(input, conf);
 
-		String line = null;
-		while (reader.hasNext()) {
-			line = reader.next();
-			tableLineParser(line.split("\t"));
+		RecalibratorFlatTable combined = null;
+		try {
+			for (FileStatus status : fs.listStatus(input, new RecalibratorPathFilter())) {
+				SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(status.getPath()));
+				NullWritable key = NullWritable.get();
+				RecalibratorFlatTable table = new RecalibratorFlatTable();
+				while (reader.next(key, table)) {
+					if (combined == null) {
+						combined = table;
+						table = new RecalibratorFlatTable();
+					} else
+						combined.merge(table);
+				}
+				reader.close();
+				fs.delete(status.getPath(), false);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString());
 		}
-		
-		reader.delete();
-		reader.clear();
-	}
-
-	private void tableLineParser(String[] array) {
-		int[] keys = null;
-		int length = 2;
-		int index = Integer.parseInt(array[0]);
-		if (index < 2)
-			length += index;
-		else
-			length = 4;
-		keys = new int[length];
 
-		int i;
-		for (i = 0; i < length; i++)
-			keys[i] = Integer.parseInt(array[i + 1]);
-
-		RecalibratorDatum datum = new RecalibratorDatum(Long.parseLong(array[length + 1]),
-				Long.parseLong(array[length + 2]), Double.parseDouble(array[length + 3]));
-		
-		updateTable(index,keys,datum);
+		if (combined != null)
+			tables = combined.toRecalibratorTable(covariates);
 	}
-	
+
 	public Covariate[] getCovariates(){
 		return this.covariates;
 	}
 
-	private void updateTable(int index, int[] keys, RecalibratorDatum datum) {
-		final NestedObjectArray<RecalibratorDatum> table = tables.getTable(index);
-		final RecalibratorDatum currDatum = table.get(keys);
-		if (currDatum == null)
-			table.put(datum, keys);
-		else {
-			if (index == 0)
-				currDatum.combine(datum);
-			else
-				currDatum.increment(datum);
-		}
-	}
-	
 	public RecalibratorTable getRecalibratorTable(){
 		return this.tables;
 	}
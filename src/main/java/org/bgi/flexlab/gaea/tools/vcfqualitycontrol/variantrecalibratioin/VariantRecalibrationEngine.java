@@ -67,7 +67,7 @@ public class VariantRecalibrationEngine {
     }
 
     public GaussianMixtureModel generateModel( final List<VariantDatum> data ) {
-        final GaussianMixtureModel model = new GaussianMixtureModel( options.getMaxGaussians(), data.get(0).annotations.length, options.getShrinkage(), options.getDirichletParamenter(), options.getPriorCounts() );
+        final GaussianMixtureModel model = new GaussianMixtureModel( options.getMaxGaussians(), data.get(0).annotations.length, options.getShrinkage(), options.getDirichletParamenter(), options.getPriorCounts(), options.getEMThreads() );
         variationalBayesExpectationMaximization( model, data );
         return model;
     }
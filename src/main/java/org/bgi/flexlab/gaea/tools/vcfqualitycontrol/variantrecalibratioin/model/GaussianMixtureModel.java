@@ -51,8 +51,14 @@ import org.bgi.flexlab.gaea.util.RandomUtils;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class GaussianMixtureModel {
+    // data is split in chunks by size only, so partial sums are added in the same order for any number of threads
+    private static final int MIN_CHUNK_SIZE = 1024;
+    private static final int MAX_CHUNKS = 256;
+
 	private final ArrayList<MultipleVariateGaussian> gaussians;
     private final double shrinkage;
     private final double dirichletParameter;
@@ -62,8 +68,25 @@ public class GaussianMixtureModel {
     public boolean isModelReadyForEvaluation;
     public boolean failedToConverge = false;
 
+    private final int numThreads;
+    private ForkJoinPool pool = null;
+
+    // training data, numData x numAnnotations annotations and numData x numGaussians responsibilities, row major
+    private List<VariantDatum> packedData = null;
+    private double[] annotations = null;
+    private double[] pVarInGaussian = null;
+    private int numData = 0;
+    private int chunkSize = MIN_CHUNK_SIZE;
+
     public GaussianMixtureModel( final int numGaussians, final int numAnnotations,
                                  final double shrinkage, final double dirichletParameter, final double priorCounts ) {
+        this( numGaussians, numAnnotations, shrinkage, dirichletParameter, priorCounts, 1 );
+    }
+
+    public GaussianMixtureModel( final int numGaussians, final int numAnnotations,
+                                 final double shrinkage, final double dirichletParameter, final double priorCounts,
+                                 final int numThreads ) {
+        this.numThreads = numThreads;
 
         gaussians = new ArrayList<MultipleVariateGaussian>( numGaussians );
         for( int iii = 0; iii < numGaussians; iii++ ) {
@@ -140,30 +163,183 @@ public class GaussianMixtureModel {
         }
     }
 
-    public void expectationStep( final List<VariantDatum> data ) {
+    private interface ChunkOperation {
+        void apply( int chunk, int from, int to );
+    }
 
-        for( final MultipleVariateGaussian gaussian : gaussians ) {
-            gaussian.precomputeDenominatorForVariationalBayes( getSumHyperParameterLambda() );
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 4217740155347924117L;
+
+        private final ChunkOperation operation;
+        private final int start;
+        private final int end;
+
+        ChunkTask( final ChunkOperation operation, final int start, final int end ) {
+            this.operation = operation;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if( end - start == 1 ) {
+                operation.apply( start, start * chunkSize, Math.min(numData, (start + 1) * chunkSize) );
+                return;
+            }
+
+            final int middle = (start + end) >>> 1;
+            invokeAll(new ChunkTask(operation, start, middle), new ChunkTask(operation, middle, end));
+        }
+    }
+
+    private int numChunks() {
+        return (numData + chunkSize - 1) / chunkSize;
+    }
+
+    private void runChunks( final ChunkOperation operation ) {
+        final int numChunks = numChunks();
+        if( numThreads <= 1 || numChunks <= 1 ) {
+            for( int chunk = 0; chunk < numChunks; chunk++ ) {
+                operation.apply( chunk, chunk * chunkSize, Math.min(numData, (chunk + 1) * chunkSize) );
+            }
+            return;
         }
 
+        if( pool == null ) {
+            pool = new ForkJoinPool( numThreads );
+        }
+        pool.invoke( new ChunkTask(operation, 0, numChunks) );
+    }
+
+    private void packAnnotations( final List<VariantDatum> data ) {
+        if( data == packedData && data.size() == numData ) {
+            return;
+        }
+
+        final int numAnnotations = empiricalMu.length;
+        numData = data.size();
+        chunkSize = Math.max( MIN_CHUNK_SIZE, (numData + MAX_CHUNKS - 1) / MAX_CHUNKS );
+        annotations = new double[numData * numAnnotations];
+        pVarInGaussian = new double[numData * gaussians.size()];
+        int datumIndex = 0;
         for( final VariantDatum datum : data ) {
-            final double[] pVarInGaussianLog10 = new double[gaussians.size()];
-            int gaussianIndex = 0;
-            for( final MultipleVariateGaussian gaussian : gaussians ) {
-                final double pVarLog10 = gaussian.evaluateDatumLog10( datum );
-                pVarInGaussianLog10[gaussianIndex++] = pVarLog10;
+            System.arraycopy( datum.annotations, 0, annotations, datumIndex++ * numAnnotations, numAnnotations );
+        }
+        packedData = data;
+    }
+
+    /**
+     * adds the per chunk partial sums in chunk order
+     */
+    private double[] reduceChunks( final double[] partial, final int width ) {
+        final double[] sums = new double[width];
+        for( int offset = 0; offset < partial.length; offset += width ) {
+            for( int iii = 0; iii < width; iii++ ) {
+                sums[iii] += partial[offset + iii];
             }
-            final double[] pVarInGaussianNormalized = MathUtils.normalizeFromLog10( pVarInGaussianLog10, false );
-            gaussianIndex = 0;
-            for( final MultipleVariateGaussian gaussian : gaussians ) {
-                gaussian.assignPVarInGaussian( pVarInGaussianNormalized[gaussianIndex++] );
+        }
+        return sums;
+    }
+
+    /**
+     * Sum(p) and Sum(p * x) of every gaussian, gaussian kkk at kkk * (numAnnotations + 1)
+     */
+    private double[] sumWeightedAnnotations() {
+        final int numGaussians = gaussians.size();
+        final int numAnnotations = empiricalMu.length;
+        final int width = numGaussians * (numAnnotations + 1);
+        final double[] partial = new double[numChunks() * width];
+
+        runChunks( (chunk, from, to) -> {
+            final int base = chunk * width;
+            for( int iii = from; iii < to; iii++ ) {
+                for( int kkk = 0; kkk < numGaussians; kkk++ ) {
+                    final double prob = pVarInGaussian[iii * numGaussians + kkk];
+                    final int offset = base + kkk * (numAnnotations + 1);
+                    partial[offset] += prob;
+                    for( int jjj = 0; jjj < numAnnotations; jjj++ ) {
+                        partial[offset + 1 + jjj] += prob * annotations[iii * numAnnotations + jjj];
+                    }
+                }
             }
+        } );
+
+        return reduceChunks( partial, width );
+    }
+
+    /**
+     * Sum(p * (x - mu) * (x - mu)') of every gaussian around its current mu, gaussian kkk at kkk * numAnnotations^2
+     */
+    private double[] sumWeightedScatter() {
+        final int numGaussians = gaussians.size();
+        final int numAnnotations = empiricalMu.length;
+        final int matrixSize = numAnnotations * numAnnotations;
+        final int width = numGaussians * matrixSize;
+        final double[] partial = new double[numChunks() * width];
+
+        runChunks( (chunk, from, to) -> {
+            final double[] diff = new double[numAnnotations];
+            final int base = chunk * width;
+            for( int iii = from; iii < to; iii++ ) {
+                for( int kkk = 0; kkk < numGaussians; kkk++ ) {
+                    final double prob = pVarInGaussian[iii * numGaussians + kkk];
+                    final double[] mu = gaussians.get(kkk).mu;
+                    for( int jjj = 0; jjj < numAnnotations; jjj++ ) {
+                        diff[jjj] = annotations[iii * numAnnotations + jjj] - mu[jjj];
+                    }
+                    final int offset = base + kkk * matrixSize;
+                    for( int aaa = 0; aaa < numAnnotations; aaa++ ) {
+                        for( int bbb = 0; bbb < numAnnotations; bbb++ ) {
+                            partial[offset + aaa * numAnnotations + bbb] += prob * diff[aaa] * diff[bbb];
+                        }
+                    }
+                }
+            }
+        } );
+
+        return reduceChunks( partial, width );
+    }
+
+    private void setWeightedMeans( final double priorSumProb ) {
+        final int numAnnotations = empiricalMu.length;
+        final double[] sums = sumWeightedAnnotations();
+        int gaussianIndex = 0;
+        for( final MultipleVariateGaussian gaussian : gaussians ) {
+            final int offset = gaussianIndex++ * (numAnnotations + 1);
+            gaussian.setWeightedMean( priorSumProb + sums[offset], sums, offset + 1 );
         }
     }
 
+    public void expectationStep( final List<VariantDatum> data ) {
+
+        for( final MultipleVariateGaussian gaussian : gaussians ) {
+            gaussian.precomputeDenominatorForVariationalBayes( getSumHyperParameterLambda() );
+        }
+
+        packAnnotations( data );
+        final int numGaussians = gaussians.size();
+        final int numAnnotations = empiricalMu.length;
+        runChunks( (chunk, from, to) -> {
+            final double[] pVarInGaussianLog10 = new double[numGaussians];
+            for( int iii = from; iii < to; iii++ ) {
+                for( int kkk = 0; kkk < numGaussians; kkk++ ) {
+                    pVarInGaussianLog10[kkk] = gaussians.get(kkk).evaluateDatumLog10( annotations, iii * numAnnotations );
+                }
+                final double[] pVarInGaussianNormalized = MathUtils.normalizeFromLog10( pVarInGaussianLog10, false );
+                System.arraycopy( pVarInGaussianNormalized, 0, pVarInGaussian, iii * numGaussians, numGaussians );
+            }
+        } );
+    }
+
     public void maximizationStep( final List<VariantDatum> data ) {
+        packAnnotations( data );
+        setWeightedMeans( 1E-10 );
+
+        final int matrixSize = empiricalMu.length * empiricalMu.length;
+        final double[] scatter = sumWeightedScatter();
+        int gaussianIndex = 0;
         for( final MultipleVariateGaussian gaussian : gaussians ) {
-            gaussian.maximizeGaussian( data, empiricalMu, empiricalSigma, shrinkage, dirichletParameter, priorCounts);
+            gaussian.maximizeGaussian( scatter, gaussianIndex++ * matrixSize, empiricalMu, empiricalSigma, shrinkage, dirichletParameter, priorCounts );
         }
     }
 
@@ -176,10 +352,26 @@ public class GaussianMixtureModel {
     }
 
     public void evaluateFinalModelParameters( final List<VariantDatum> data ) {
+        packAnnotations( data );
+        setWeightedMeans( 0.0 );
+
+        final int matrixSize = empiricalMu.length * empiricalMu.length;
+        final double[] scatter = sumWeightedScatter();
+        int gaussianIndex = 0;
         for( final MultipleVariateGaussian gaussian : gaussians ) {
-            gaussian.evaluateFinalModelParameters(data);
+            gaussian.evaluateFinalModelParameters( scatter, gaussianIndex++ * matrixSize );
         }
         normalizePMixtureLog10();
+
+        // training is over, release the packed data and worker threads
+        packedData = null;
+        annotations = null;
+        pVarInGaussian = null;
+        numData = 0;
+        if( pool != null ) {
+            pool.shutdown();
+            pool = null;
+        }
     }
 
     public double normalizePMixtureLog10() {
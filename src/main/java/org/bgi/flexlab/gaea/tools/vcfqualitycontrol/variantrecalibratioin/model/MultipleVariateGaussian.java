@@ -46,11 +46,9 @@ import Jama.Matrix;
 import org.apache.commons.math3.special.Gamma;
 import org.bgi.flexlab.gaea.data.exception.UserException;
 import org.bgi.flexlab.gaea.tools.vcfqualitycontrol.variantrecalibratioin.traindata.VariantDatum;
-import org.bgi.flexlab.gaea.util.ExpandingArrayList;
 import org.bgi.flexlab.gaea.util.MathUtils;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Random;
 
 public class MultipleVariateGaussian {
@@ -63,12 +61,11 @@ public class MultipleVariateGaussian {
     public double hyperParameter_lambda;
     private double cachedDenomLog10;
     private Matrix cachedSigmaInverse;
-    final private ExpandingArrayList<Double> pVarInGaussian;
+    private double[] cachedSigmaInverseArray; // row packed copy of cachedSigmaInverse
 
     public MultipleVariateGaussian( final int numAnnotations ) {
         mu = new double[numAnnotations];
         sigma = new Matrix(numAnnotations, numAnnotations);
-        pVarInGaussian = new ExpandingArrayList<Double>();
     }
 
     public void zeroOutMu() {
@@ -137,6 +134,7 @@ public class MultipleVariateGaussian {
 
     public void precomputeDenominatorForEvaluation() {
         precomputeInverse();
+        cachedSigmaInverseArray = cachedSigmaInverse.getRowPackedCopy();
         cachedDenomLog10 = Math.log10(Math.pow(2.0 * Math.PI, -1.0 * ((double) mu.length) / 2.0)) + Math.log10(Math.pow(sigma.det(), -0.5)) ;
     }
 
@@ -145,6 +143,7 @@ public class MultipleVariateGaussian {
         // Variational Bayes calculations from Bishop
         precomputeInverse();
         cachedSigmaInverse.timesEquals( hyperParameter_a );
+        cachedSigmaInverseArray = cachedSigmaInverse.getRowPackedCopy();
         double sum = 0.0;
         for(int jjj = 1; jjj <= mu.length; jjj++) {
             sum += Gamma.digamma( (hyperParameter_a + 1.0 - jjj) / 2.0 );
@@ -158,44 +157,49 @@ public class MultipleVariateGaussian {
     }
 
     public double evaluateDatumLog10( final VariantDatum datum ) {
+        return evaluateDatumLog10( datum.annotations, 0 );
+    }
+
+    /**
+     * same as evaluateDatumLog10(datum) for the annotations stored at offset, thread safe and allocation free
+     */
+    public double evaluateDatumLog10( final double[] annotations, final int offset ) {
         double sumKernel = 0.0;
-        final double[] crossProdTmp = new double[mu.length];
-        Arrays.fill(crossProdTmp, 0.0);
         for( int iii = 0; iii < mu.length; iii++ ) {
+            double crossProd = 0.0;
             for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                crossProdTmp[iii] += (datum.annotations[jjj] - mu[jjj]) * cachedSigmaInverse.get(jjj, iii);
+                crossProd += (annotations[offset + jjj] - mu[jjj]) * cachedSigmaInverseArray[jjj * mu.length + iii];
             }
-        }
-        for( int iii = 0; iii < mu.length; iii++ ) {
-            sumKernel += crossProdTmp[iii] * (datum.annotations[iii] - mu[iii]);
+            sumKernel += crossProd * (annotations[offset + iii] - mu[iii]);
         }
         
         return (( -0.5 * sumKernel ) / Math.log(10.0)) + cachedDenomLog10; // This is the definition of a Gaussian PDF Log10
     }
 
-    public void assignPVarInGaussian( final double pVar ) {
-        pVarInGaussian.add( pVar );
+    /**
+     * mu from the responsibility weighted sums of the annotations, sums[offset + jjj] = Sum(p * x_jjj)
+     */
+    public void setWeightedMean( final double sumProb, final double[] sums, final int offset ) {
+        this.sumProb = sumProb;
+        for( int jjj = 0; jjj < mu.length; jjj++ ) {
+            mu[jjj] = sums[offset + jjj] / sumProb;
+        }
     }
 
-    public void resetPVarInGaussian() {
-        pVarInGaussian.clear();
+    private void setSigma( final double[] scatter, final int offset ) {
+        for( int iii = 0; iii < mu.length; iii++ ) {
+            for( int jjj = 0; jjj < mu.length; jjj++ ) {
+                sigma.set(iii, jjj, scatter[offset + iii * mu.length + jjj]);
+            }
+        }
     }
 
-    public void maximizeGaussian( final List<VariantDatum> data, final double[] empiricalMu, final Matrix empiricalSigma,
+    /**
+     * scatter holds Sum(p * (x - mu) * (x - mu)') around the mean set by setWeightedMean, row packed from offset
+     */
+    public void maximizeGaussian( final double[] scatter, final int offset, final double[] empiricalMu, final Matrix empiricalSigma,
                                   final double SHRINKAGE, final double DIRICHLET_PARAMETER, final double DEGREES_OF_FREEDOM ) {
-        sumProb = 1E-10;
         final Matrix wishart = new Matrix(mu.length, mu.length);
-        zeroOutMu();
-        zeroOutSigma();
-        
-        int datumIndex = 0;
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian.get(datumIndex++);
-            sumProb += prob;
-            incrementMu( datum, prob );
-        }
-        divideEqualsMu( sumProb );
-
         final double shrinkageFactor = (SHRINKAGE * sumProb) / (SHRINKAGE + sumProb);
         for( int iii = 0; iii < mu.length; iii++ ) {
             for( int jjj = 0; jjj < mu.length; jjj++ ) {
@@ -203,18 +207,7 @@ public class MultipleVariateGaussian {
             }
         }
 
-        datumIndex = 0;
-        final Matrix pVarSigma = new Matrix(mu.length, mu.length);
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian.get(datumIndex++);
-            for( int iii = 0; iii < mu.length; iii++ ) {
-                for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                    pVarSigma.set(iii, jjj, prob * (datum.annotations[iii]-mu[iii]) * (datum.annotations[jjj]-mu[jjj]));
-                }
-            }
-            sigma.plusEquals( pVarSigma );
-        }
-
+        setSigma( scatter, offset );
         sigma.plusEquals( empiricalSigma );
         sigma.plusEquals( wishart );
 
@@ -225,36 +218,10 @@ public class MultipleVariateGaussian {
         hyperParameter_a = sumProb + DEGREES_OF_FREEDOM;
         hyperParameter_b = sumProb + SHRINKAGE;
         hyperParameter_lambda = sumProb + DIRICHLET_PARAMETER;
-
-        resetPVarInGaussian(); // clean up some memory
     }
 
-    public void evaluateFinalModelParameters( final List<VariantDatum> data ) {
-        sumProb = 0.0;
-        zeroOutMu();
-        zeroOutSigma();
-
-        int datumIndex = 0;
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian.get(datumIndex++);
-            sumProb += prob;
-            incrementMu( datum, prob );
-        }
-        divideEqualsMu( sumProb );
-
-        datumIndex = 0;
-        final Matrix pVarSigma = new Matrix(mu.length, mu.length);
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian.get(datumIndex++);
-            for( int iii = 0; iii < mu.length; iii++ ) {
-                for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                    pVarSigma.set(iii, jjj, prob * (datum.annotations[iii]-mu[iii]) * (datum.annotations[jjj]-mu[jjj]));
-                }
-            }
-            sigma.plusEquals( pVarSigma );
-        }
+    public void evaluateFinalModelParameters( final double[] scatter, final int offset ) {
+        setSigma( scatter, offset );
         sigma.timesEquals( 1.0 / sumProb );
-
-        resetPVarInGaussian(); // clean up some memory
     }
 }
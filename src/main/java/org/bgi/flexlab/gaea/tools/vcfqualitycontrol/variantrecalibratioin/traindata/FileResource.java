@@ -72,6 +72,10 @@ public class FileResource implements ResourceType{
 	@Override
 	public ArrayList<VariantContext> get(GenomeLocation loc) {
 		// TODO Auto-generated method stub
+		ArrayList<VariantContext> sites = snpShare.query(loc.getContig(), loc.getStart(), loc.getStop());
+		if (sites != null)
+			return sites;
+
 		ChromosomeDbsnpShare share = snpShare.getChromosomeDbsnp(loc.getContig());
 		int winNum = loc.getStart() / VcfIndex.WINDOW_SIZE;
 		long start = share.getStartPosition(winNum);
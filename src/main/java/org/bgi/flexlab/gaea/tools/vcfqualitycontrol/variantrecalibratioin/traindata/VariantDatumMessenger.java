@@ -52,6 +52,7 @@ import org.bgi.flexlab.gaea.util.QualityUtils;
 import org.bgi.flexlab.gaea.util.RandomUtils;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 public class VariantDatumMessenger{
 
@@ -320,6 +321,22 @@ public class VariantDatumMessenger{
 			return new VariantDatumMessenger(this);
 		}
 	    
+		public VariantDatumMessenger buildFrom(VariantDatumWritable writable, GenomeLocationParser genomeLocParser) {
+			int annoSize = writable.getAnnotationSize();
+			this.isNull = Arrays.copyOf(writable.getIsNull(), annoSize);
+			this.annotations = Arrays.copyOf(writable.getAnnotations(), annoSize);
+			this.lod = writable.getLod();
+			this.flag = writable.getFlag();
+			this.originalQual = writable.getOriginalQual();
+			this.prior = writable.getPrior();
+			this.consensusCount = writable.getConsensusCount();
+			this.loc = genomeLocParser.createGenomeLocation(
+					genomeLocParser.getContigInfo(writable.getContigIndex()).getSequenceName(),
+					writable.getContigIndex(), writable.getStart(), writable.getStop());
+			this.worstAnnotation = writable.getWorstAnnotation();
+			return new VariantDatumMessenger(this);
+		}
+	    
 		public VariantDatumMessenger build() {
 			return new VariantDatumMessenger(this);
 		}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.tools.vcfqualitycontrol.variantrecalibratioin.traindata;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.bgi.flexlab.gaea.data.structure.location.GenomeLocation;
+import org.bgi.flexlab.gaea.data.structure.location.GenomeLocationParser;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * binary form of VariantDatumMessenger for the vqsr shuffle. Location is
+ * kept as contig index and positions, null annotations are a bit mask and
+ * only present annotations are written.
+ */
+public class VariantDatumWritable implements Writable {
+	private int annotationSize = 0;
+	private double[] annotations = new double[0];
+	private boolean[] isNull = new boolean[0];
+	private double lod;
+	private byte flag;
+	private double originalQual;
+	private double prior;
+	private int consensusCount;
+	private int contigIndex;
+	private int start;
+	private int stop;
+	private int worstAnnotation;
+
+	private void ensureCapacity(int size) {
+		annotationSize = size;
+		if (annotations.length < size) {
+			annotations = new double[size];
+			isNull = new boolean[size];
+		}
+	}
+
+	public void set(VariantDatumMessenger messenger) {
+		ensureCapacity(messenger.getAnnotations().length);
+		System.arraycopy(messenger.getAnnotations(), 0, annotations, 0, annotationSize);
+		System.arraycopy(messenger.getIsNull(), 0, isNull, 0, annotationSize);
+		lod = messenger.getLod();
+		flag = messenger.getFlag();
+		originalQual = messenger.getOriginalQual();
+		prior = messenger.getPrior();
+		consensusCount = messenger.getConsensusCount();
+		GenomeLocation loc = messenger.getLoc();
+		contigIndex = loc.getContigIndex();
+		start = loc.getStart();
+		stop = loc.getStop();
+		worstAnnotation = messenger.getWorstAnnotation();
+	}
+
+	public VariantDatumMessenger get(GenomeLocationParser genomeLocParser) {
+		return new VariantDatumMessenger.Builder().buildFrom(this, genomeLocParser);
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, annotationSize);
+		for (int i = 0; i < annotationSize; i += Byte.SIZE) {
+			int mask = 0;
+			for (int j = i; j < Math.min(annotationSize, i + Byte.SIZE); j++) {
+				if (isNull[j])
+					mask |= 1 << (j - i);
+			}
+			out.writeByte(mask);
+		}
+		for (int i = 0; i < annotationSize; i++) {
+			if (!isNull[i])
+				out.writeDouble(annotations[i]);
+		}
+		out.writeDouble(lod);
+		out.writeByte(flag);
+		out.writeDouble(originalQual);
+		out.writeDouble(prior);
+		WritableUtils.writeVInt(out, consensusCount);
+		WritableUtils.writeVInt(out, contigIndex);
+		WritableUtils.writeVInt(out, start);
+		WritableUtils.writeVInt(out, stop);
+		WritableUtils.writeVInt(out, worstAnnotation);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		ensureCapacity(WritableUtils.readVInt(in));
+		for (int i = 0; i < annotationSize; i += Byte.SIZE) {
+			int mask = in.readByte();
+			for (int j = i; j < Math.min(annotationSize, i + Byte.SIZE); j++)
+				isNull[j] = (mask & (1 << (j - i))) != 0;
+		}
+		for (int i = 0; i < annotationSize; i++)
+			annotations[i] = isNull[i] ? 0 : in.readDouble();
+		lod = in.readDouble();
+		flag = in.readByte();
+		originalQual = in.readDouble();
+		prior = in.readDouble();
+		consensusCount = WritableUtils.readVInt(in);
+		contigIndex = WritableUtils.readVInt(in);
+		start = WritableUtils.readVInt(in);
+		stop = WritableUtils.readVInt(in);
+		worstAnnotation = WritableUtils.readVInt(in);
+	}
+
+	public int getAnnotationSize() {
+		return annotationSize;
+	}
+
+	public double[] getAnnotations() {
+		return annotations;
+	}
+
+	public boolean[] getIsNull() {
+		return isNull;
+	}
+
+	public double getLod() {
+		return lod;
+	}
+
+	public byte getFlag() {
+		return flag;
+	}
+
+	public double getOriginalQual() {
+		return originalQual;
+	}
+
+	public double getPrior() {
+		return prior;
+	}
+
+	public int getConsensusCount() {
+		return consensusCount;
+	}
+
+	public int getContigIndex() {
+		return contigIndex;
+	}
+
+	public int getStart() {
+		return start;
+	}
+
+	public int getStop() {
+		return stop;
+	}
+
+	public int getWorstAnnotation() {
+		return worstAnnotation;
+	}
+}
@@ -74,6 +74,14 @@ public class QualityUtils {
 		return QUALITY_PROB_LOG10[(int)qual & 0xff]; // Map: 127 -> 127; -128 -> 128; -1 -> 255; etc.
 	}
 
+	static public double qualToProb(byte qual) {
+		return 1.0 - qualToErrorProb(qual);
+	}
+
+	static public double qualToErrorProb(byte qual) {
+		return qualityToErrorProbabilityCache[(int)qual & 0xff];
+	}
+
 	public static double qualityToErrorProbability(final double qual) {
 		return Math.pow(10.0, qual / -10.0);
 	}
@@ -16,9 +16,13 @@
  *******************************************************************************/
 package org.bgi.flexlab.gaea.util;
 
+import htsjdk.samtools.SAMRecord;
 import org.bgi.flexlab.gaea.data.structure.bam.ParseSAMBasic;
 import org.bgi.flexlab.gaea.data.structure.bam.SAMInformationBasic;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 
 
 /**
@@ -194,4 +198,40 @@ public class SamRecordDatum extends SAMInformationBasic {
 		lenValue = ParseSAMBasic.parseCigar(position, cigarState);
 		return true;
 	}
+
+	/**
+	 * same fields as parseBamQC(String), soft clipped bases and qualities
+	 * are removed and qualities are phred+33
+	 */
+	public boolean parseBamQC(SAMRecord record, int bestHitCount, int rgIndex, boolean repeat) {
+		position = record.getAlignmentStart() - 1;
+		if(position < 0) {
+			return false;
+		}
+		flag = record.getFlags();
+		insertSize = record.getInferredInsertSize();
+		cigarString = record.getCigarString();
+		cigarState = new CigarState();
+		cigarState.parseCigar(cigarString);
+		
+		int softClipStart = ParseSAMBasic.getStartSoftClipLength(cigarState.getCigar());
+		int softClipEnd = ParseSAMBasic.getEndSoftClipLength(cigarState.getCigar());
+		byte[] bases = record.getReadBases();
+		bases = Arrays.copyOfRange(bases, softClipStart, bases.length - softClipEnd);
+		byte[] qualities = record.getBaseQualities();
+		if(qualities.length > 0) {
+			qualities = Arrays.copyOfRange(qualities, softClipStart, qualities.length - softClipEnd);
+			for(int i = 0; i < qualities.length; i++)
+				qualities[i] += 33;
+		}
+		readSequence = new String(bases, StandardCharsets.ISO_8859_1);
+		qualityString = new String(qualities, StandardCharsets.ISO_8859_1);
+		
+		this.bestHitCount = bestHitCount;
+		isrepeat = repeat;
+		mappingQual = (short) record.getMappingQuality();
+		this.rgIndex = rgIndex;
+		lenValue = ParseSAMBasic.parseCigar(position, cigarState);
+		return true;
+	}
 }
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ * This file incorporates work covered by the following copyright and 
+ * Permission notices:
+ *
+ * Copyright (c) 2009-2012 The Broad Institute
+ *  
+ *     Permission is hereby granted, free of charge, to any person
+ *     obtaining a copy of this software and associated documentation
+ *     files (the "Software"), to deal in the Software without
+ *     restriction, including without limitation the rights to use,
+ *     copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *     copies of the Software, and to permit persons to whom the
+ *     Software is furnished to do so, subject to the following
+ *     conditions:
+ *  
+ *     The above copyright notice and this permission notice shall be
+ *     included in all copies or substantial portions of the Software.
+ *  
+ *     THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *     EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *     OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *     NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *     HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *     WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *     FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *     OTHER DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.util.pairhmm;
+
+import org.bgi.flexlab.gaea.util.MathUtils;
+import org.bgi.flexlab.gaea.util.QualityUtils;
+
+/**
+ * from GATK
+ */
+public class CachingPairHMM extends OriginalPairHMM {
+
+    protected double[][] constantMatrix = null; // per-read transition probabilities, row indexed by read position
+    protected double[][] distanceMatrix = null; // per read x haplotype emission probabilities
+
+    protected static final double[] firstRowConstantMatrix = {
+            QualityUtils.qualToProbLog10((byte) (DEFAULT_GOP + DEFAULT_GOP)),
+            QualityUtils.qualToProbLog10(DEFAULT_GCP),
+            QualityUtils.qualToErrorProbLog10(DEFAULT_GOP),
+            QualityUtils.qualToErrorProbLog10(DEFAULT_GCP),
+            0.0,
+            0.0
+    };
+
+    @Override
+    public void initialize( final int READ_MAX_LENGTH, final int HAPLOTYPE_MAX_LENGTH ) {
+        super.initialize(READ_MAX_LENGTH, HAPLOTYPE_MAX_LENGTH);
+
+        final int X_METRIC_LENGTH = READ_MAX_LENGTH + 2;
+        final int Y_METRIC_LENGTH = HAPLOTYPE_MAX_LENGTH + 2;
+
+        constantMatrix = new double[X_METRIC_LENGTH][6];
+        distanceMatrix = new double[X_METRIC_LENGTH][Y_METRIC_LENGTH];
+
+        // the first row does not depend on the read or haplotype, so fill it once here
+        for( int jjj = 2; jjj < Y_METRIC_LENGTH; jjj++ ) {
+            updateCell(1, jjj, 0.0, firstRowConstantMatrix, matchMetricArray, XMetricArray, YMetricArray);
+        }
+    }
+
+    @Override
+    public double computeReadLikelihoodGivenHaplotypeLog10( final byte[] haplotypeBases,
+                                                            final byte[] readBases,
+                                                            final byte[] readQuals,
+                                                            final byte[] insertionGOP,
+                                                            final byte[] deletionGOP,
+                                                            final byte[] overallGCP,
+                                                            final int hapStartIndex,
+                                                            final boolean recacheReadValues ) {
+
+        if( recacheReadValues ) {
+            capReadQualities(readQuals);
+            initializeConstants( insertionGOP, deletionGOP, overallGCP );
+        }
+        initializeDistanceMatrix( haplotypeBases, readBases, readQuals, hapStartIndex );
+
+        // M, X, and Y arrays are of size read and haplotype + 1 because of an extra column for initial conditions and + 1 to consider the final base in a non-global alignment
+        final int X_METRIC_LENGTH = readBases.length + 2;
+        final int Y_METRIC_LENGTH = haplotypeBases.length + 2;
+
+        for( int iii = 2; iii < X_METRIC_LENGTH; iii++ ) {
+            for( int jjj = hapStartIndex + 1; jjj < Y_METRIC_LENGTH; jjj++ ) {
+                updateCell(iii, jjj, distanceMatrix[iii][jjj], constantMatrix[iii], matchMetricArray, XMetricArray, YMetricArray);
+            }
+        }
+
+        // final probability is the log10 sum of the last element in all three state arrays
+        final int endI = X_METRIC_LENGTH - 1;
+        final int endJ = Y_METRIC_LENGTH - 1;
+        return MathUtils.approximateLog10SumLog10(matchMetricArray[endI][endJ], XMetricArray[endI][endJ], YMetricArray[endI][endJ]);
+    }
+
+    /**
+     * ensure that all the qual scores have valid values
+     */
+    protected static void capReadQualities( final byte[] readQuals ) {
+        for( int iii = 0; iii < readQuals.length; iii++ ) {
+            readQuals[iii] = ( readQuals[iii] < QualityUtils.MINIMUM_USABLE_QUALITY_SCORE ? QualityUtils.MINIMUM_USABLE_QUALITY_SCORE : (readQuals[iii] > MAX_CACHED_QUAL ? MAX_CACHED_QUAL : readQuals[iii]) );
+        }
+    }
+
+    /**
+     * initialize the emission matrix for all combinations of read x haplotype bases,
+     * columns before hapStartIndex are shared with the previous haplotype and kept
+     */
+    protected void initializeDistanceMatrix( final byte[] haplotypeBases, final byte[] readBases, final byte[] readQuals, final int hapStartIndex ) {
+        // rows and columns below 2 are left at 0.0 (log10(1.0))
+        for( int iii = 0; iii < readBases.length; iii++ ) {
+            final byte x = readBases[iii];
+            final byte qual = readQuals[iii];
+            final double[] distance = distanceMatrix[iii + 2];
+            for( int jjj = hapStartIndex; jjj < haplotypeBases.length; jjj++ ) {
+                final byte y = haplotypeBases[jjj];
+                distance[jjj + 2] = ( x == y || x == (byte) 'N' || y == (byte) 'N' ?
+                        QualityUtils.qualToProbLog10(qual) : QualityUtils.qualToErrorProbLog10(qual) );
+            }
+        }
+    }
+
+    /**
+     * initialize the per-read transition probabilities, only depends on the read so it is reused for all haplotypes
+     */
+    protected void initializeConstants( final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP ) {
+        final int l = insertionGOP.length;
+        System.arraycopy(firstRowConstantMatrix, 0, constantMatrix[1], 0, firstRowConstantMatrix.length);
+        for( int iii = 0; iii < l; iii++ ) {
+            final int qualIndexGOP = Math.min(insertionGOP[iii] + deletionGOP[iii], MAX_CACHED_QUAL);
+            final double[] constants = constantMatrix[iii + 2];
+            constants[0] = QualityUtils.qualToProbLog10((byte) qualIndexGOP);
+            constants[1] = QualityUtils.qualToProbLog10(overallGCP[iii]);
+            constants[2] = QualityUtils.qualToErrorProbLog10(insertionGOP[iii]);
+            constants[3] = QualityUtils.qualToErrorProbLog10(overallGCP[iii]);
+            constants[4] = QualityUtils.qualToErrorProbLog10(deletionGOP[iii]);
+            constants[5] = QualityUtils.qualToErrorProbLog10(overallGCP[iii]);
+        }
+        // no deletion penalty on the right flank, to allow a local alignment within the haplotype
+        constantMatrix[l + 1][4] = 0.0;
+        constantMatrix[l + 1][5] = 0.0;
+    }
+
+    private void updateCell( final int indI, final int indJ, final double prior, final double[] constants,
+                             final double[][] matchMetricArray, final double[][] XMetricArray, final double[][] YMetricArray ) {
+
+        matchMetricArray[indI][indJ] = prior +
+                MathUtils.approximateLog10SumLog10( matchMetricArray[indI - 1][indJ - 1] + constants[0],
+                        XMetricArray[indI - 1][indJ - 1] + constants[1],
+                        YMetricArray[indI - 1][indJ - 1] + constants[1] );
+        XMetricArray[indI][indJ] = MathUtils.approximateLog10SumLog10( matchMetricArray[indI - 1][indJ] + constants[2],
+                XMetricArray[indI - 1][indJ] + constants[3] );
+        YMetricArray[indI][indJ] = MathUtils.approximateLog10SumLog10( matchMetricArray[indI][indJ - 1] + constants[4],
+                YMetricArray[indI][indJ - 1] + constants[5] );
+    }
+}
@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ * This file incorporates work covered by the following copyright and 
+ * Permission notices:
+ *
+ * Copyright (c) 2009-2012 The Broad Institute
+ *  
+ *     Permission is hereby granted, free of charge, to any person
+ *     obtaining a copy of this software and associated documentation
+ *     files (the "Software"), to deal in the Software without
+ *     restriction, including without limitation the rights to use,
+ *     copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *     copies of the Software, and to permit persons to whom the
+ *     Software is furnished to do so, subject to the following
+ *     conditions:
+ *  
+ *     The above copyright notice and this permission notice shall be
+ *     included in all copies or substantial portions of the Software.
+ *  
+ *     THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *     EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *     OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *     NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *     HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *     WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *     FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *     OTHER DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.util.pairhmm;
+
+import org.bgi.flexlab.gaea.util.QualityUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * from GATK
+ */
+public class LoglessCachingPairHMM extends CachingPairHMM {
+
+    // all state values are kept in real space scaled by 10^SCALE_FACTOR_LOG10 to avoid underflow
+    protected static final double SCALE_FACTOR_LOG10 = 300.0;
+
+    // batch mode first runs in float with states scaled by 2^120, and falls back to double when the result underflows
+    private static final float FLOAT_INITIAL_VALUE = (float) Math.pow(2.0, 120);
+    private static final double FLOAT_INITIAL_VALUE_LOG10 = 120 * Math.log10(2.0);
+    private static final float FLOAT_MIN_ACCEPTED = 1e-28f;
+
+    private float[][] floatMatchMetricArray = null;
+    private float[][] floatXMetricArray = null;
+    private float[][] floatYMetricArray = null;
+    private float[][] floatConstantMatrix = null;
+    private float[][] floatDistanceMatrix = null;
+
+    protected static final double[] firstRowConstantMatrix = {
+            QualityUtils.qualToProb((byte) (DEFAULT_GOP + DEFAULT_GOP)),
+            QualityUtils.qualToProb(DEFAULT_GCP),
+            QualityUtils.qualToErrorProb(DEFAULT_GOP),
+            QualityUtils.qualToErrorProb(DEFAULT_GCP),
+            1.0,
+            1.0
+    };
+
+    @Override
+    public void initialize( final int READ_MAX_LENGTH, final int HAPLOTYPE_MAX_LENGTH ) {
+
+        // M, X, and Y arrays are of size read and haplotype + 1 because of an extra column for initial conditions and + 1 to consider the final base in a non-global alignment
+        final int X_METRIC_LENGTH = READ_MAX_LENGTH + 2;
+        final int Y_METRIC_LENGTH = HAPLOTYPE_MAX_LENGTH + 2;
+
+        matchMetricArray = new double[X_METRIC_LENGTH][Y_METRIC_LENGTH];
+        XMetricArray = new double[X_METRIC_LENGTH][Y_METRIC_LENGTH];
+        YMetricArray = new double[X_METRIC_LENGTH][Y_METRIC_LENGTH];
+
+        for( int iii=0; iii < X_METRIC_LENGTH; iii++ ) {
+            Arrays.fill(matchMetricArray[iii], 0.0);
+            Arrays.fill(XMetricArray[iii], 0.0);
+            Arrays.fill(YMetricArray[iii], 0.0);
+        }
+
+        // the initial condition
+        matchMetricArray[1][1] = Math.pow(10.0, SCALE_FACTOR_LOG10);
+
+        constantMatrix = new double[X_METRIC_LENGTH][6];
+        distanceMatrix = new double[X_METRIC_LENGTH][Y_METRIC_LENGTH];
+
+        // the first row does not depend on the read or haplotype, so fill it once here
+        for( int jjj = 2; jjj < Y_METRIC_LENGTH; jjj++ ) {
+            updateCell(1, jjj, 1.0, firstRowConstantMatrix, matchMetricArray, XMetricArray, YMetricArray);
+        }
+    }
+
+    @Override
+    public double computeReadLikelihoodGivenHaplotypeLog10( final byte[] haplotypeBases,
+                                                            final byte[] readBases,
+                                                            final byte[] readQuals,
+                                                            final byte[] insertionGOP,
+                                                            final byte[] deletionGOP,
+                                                            final byte[] overallGCP,
+                                                            final int hapStartIndex,
+                                                            final boolean recacheReadValues ) {
+
+        if( recacheReadValues ) {
+            capReadQualities(readQuals);
+            initializeConstants( insertionGOP, deletionGOP, overallGCP );
+        }
+        initializeDistanceMatrix( haplotypeBases, readBases, readQuals, hapStartIndex );
+
+        final int X_METRIC_LENGTH = readBases.length + 2;
+        final int Y_METRIC_LENGTH = haplotypeBases.length + 2;
+
+        for( int iii = 2; iii < X_METRIC_LENGTH; iii++ ) {
+            for( int jjj = hapStartIndex + 1; jjj < Y_METRIC_LENGTH; jjj++ ) {
+                updateCell(iii, jjj, distanceMatrix[iii][jjj], constantMatrix[iii], matchMetricArray, XMetricArray, YMetricArray);
+            }
+        }
+
+        // final probability is the sum of the last element in all three state arrays, moved back to unscaled log10 space
+        final int endI = X_METRIC_LENGTH - 1;
+        final int endJ = Y_METRIC_LENGTH - 1;
+        return Math.log10( matchMetricArray[endI][endJ] + XMetricArray[endI][endJ] + YMetricArray[endI][endJ] ) - SCALE_FACTOR_LOG10;
+    }
+
+    @Override
+    protected void initializeDistanceMatrix( final byte[] haplotypeBases, final byte[] readBases, final byte[] readQuals, final int hapStartIndex ) {
+        for( int iii = 0; iii < readBases.length; iii++ ) {
+            final byte x = readBases[iii];
+            final byte qual = readQuals[iii];
+            final double[] distance = distanceMatrix[iii + 2];
+            for( int jjj = hapStartIndex; jjj < haplotypeBases.length; jjj++ ) {
+                final byte y = haplotypeBases[jjj];
+                distance[jjj + 2] = ( x == y || x == (byte) 'N' || y == (byte) 'N' ?
+                        QualityUtils.qualToProb(qual) : QualityUtils.qualToErrorProb(qual) );
+            }
+        }
+    }
+
+    @Override
+    protected void initializeConstants( final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP ) {
+        final int l = insertionGOP.length;
+        System.arraycopy(firstRowConstantMatrix, 0, constantMatrix[1], 0, firstRowConstantMatrix.length);
+        for( int iii = 0; iii < l; iii++ ) {
+            final int qualIndexGOP = Math.min(insertionGOP[iii] + deletionGOP[iii], MAX_CACHED_QUAL);
+            final double[] constants = constantMatrix[iii + 2];
+            constants[0] = QualityUtils.qualToProb((byte) qualIndexGOP);
+            constants[1] = QualityUtils.qualToProb(overallGCP[iii]);
+            constants[2] = QualityUtils.qualToErrorProb(insertionGOP[iii]);
+            constants[3] = QualityUtils.qualToErrorProb(overallGCP[iii]);
+            constants[4] = QualityUtils.qualToErrorProb(deletionGOP[iii]);
+            constants[5] = QualityUtils.qualToErrorProb(overallGCP[iii]);
+        }
+        // no deletion penalty on the right flank, to allow a local alignment within the haplotype
+        constantMatrix[l + 1][4] = 1.0;
+        constantMatrix[l + 1][5] = 1.0;
+    }
+
+    private void updateCell( final int indI, final int indJ, final double prior, final double[] constants,
+                             final double[][] matchMetricArray, final double[][] XMetricArray, final double[][] YMetricArray ) {
+
+        matchMetricArray[indI][indJ] = prior * ( matchMetricArray[indI - 1][indJ - 1] * constants[0] +
+                XMetricArray[indI - 1][indJ - 1] * constants[1] +
+                YMetricArray[indI - 1][indJ - 1] * constants[1] );
+        XMetricArray[indI][indJ] = matchMetricArray[indI - 1][indJ] * constants[2] + XMetricArray[indI - 1][indJ] * constants[3];
+        YMetricArray[indI][indJ] = matchMetricArray[indI][indJ - 1] * constants[4] + YMetricArray[indI][indJ - 1] * constants[5];
+    }
+
+    /**
+     * float-first evaluation of one read against all its haplotypes, a haplotype whose float result
+     * is too small to be trusted is recomputed from scratch in double precision
+     */
+    @Override
+    public double[] computeReadLikelihoodsLog10( final PairHMMReadData read ) {
+        final List<byte[]> haplotypes = read.getHaplotypeBases();
+        final double[] likelihoods = new double[haplotypes.size()];
+        final byte[] readBases = read.getReadBases();
+        final byte[] readQuals = read.getReadQuals();
+        final int maxHaplotypeLength = read.getMaxHaplotypeLength();
+
+        ensureFloatCapacity(readBases.length, maxHaplotypeLength);
+        capReadQualities(readQuals);
+        initializeFloatConstants(read.getInsertionGOP(), read.getDeletionGOP(), read.getOverallGCP());
+
+        final int X_METRIC_LENGTH = readBases.length + 2;
+        byte[] previousHaplotype = null;
+        for( int h = 0; h < haplotypes.size(); h++ ) {
+            final byte[] haplotypeBases = haplotypes.get(h);
+            final int hapStartIndex = previousHaplotype == null ? 0 : computeFirstDifferingPosition(haplotypeBases, previousHaplotype);
+            final int Y_METRIC_LENGTH = haplotypeBases.length + 2;
+
+            initializeFloatDistanceMatrix(haplotypeBases, readBases, readQuals, hapStartIndex);
+            for( int iii = 2; iii < X_METRIC_LENGTH; iii++ ) {
+                for( int jjj = hapStartIndex + 1; jjj < Y_METRIC_LENGTH; jjj++ ) {
+                    updateFloatCell(iii, jjj, floatDistanceMatrix[iii][jjj], floatConstantMatrix[iii]);
+                }
+            }
+
+            final int endI = X_METRIC_LENGTH - 1;
+            final int endJ = Y_METRIC_LENGTH - 1;
+            final float result = floatMatchMetricArray[endI][endJ] + floatXMetricArray[endI][endJ] + floatYMetricArray[endI][endJ];
+            if( result < FLOAT_MIN_ACCEPTED ) {
+                ensureCapacity(readBases.length, maxHaplotypeLength);
+                likelihoods[h] = computeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals,
+                        read.getInsertionGOP(), read.getDeletionGOP(), read.getOverallGCP(), 0, true);
+            } else {
+                likelihoods[h] = Math.log10(result) - FLOAT_INITIAL_VALUE_LOG10;
+            }
+            previousHaplotype = haplotypeBases;
+        }
+
+        return likelihoods;
+    }
+
+    private void ensureFloatCapacity( final int readLength, final int haplotypeLength ) {
+        final int X_METRIC_LENGTH = readLength + 2;
+        final int Y_METRIC_LENGTH = haplotypeLength + 2;
+        if( floatMatchMetricArray != null && X_METRIC_LENGTH <= floatMatchMetricArray.length && Y_METRIC_LENGTH <= floatMatchMetricArray[0].length )
+            return;
+
+        floatMatchMetricArray = new float[X_METRIC_LENGTH][Y_METRIC_LENGTH];
+        floatXMetricArray = new float[X_METRIC_LENGTH][Y_METRIC_LENGTH];
+        floatYMetricArray = new float[X_METRIC_LENGTH][Y_METRIC_LENGTH];
+        floatConstantMatrix = new float[X_METRIC_LENGTH][6];
+        floatDistanceMatrix = new float[X_METRIC_LENGTH][Y_METRIC_LENGTH];
+
+        // the initial condition
+        floatMatchMetricArray[1][1] = FLOAT_INITIAL_VALUE;
+
+        for( int kkk = 0; kkk < firstRowConstantMatrix.length; kkk++ )
+            floatConstantMatrix[1][kkk] = (float) firstRowConstantMatrix[kkk];
+        for( int jjj = 2; jjj < Y_METRIC_LENGTH; jjj++ ) {
+            updateFloatCell(1, jjj, 1.0f, floatConstantMatrix[1]);
+        }
+    }
+
+    private void initializeFloatDistanceMatrix( final byte[] haplotypeBases, final byte[] readBases, final byte[] readQuals, final int hapStartIndex ) {
+        for( int iii = 0; iii < readBases.length; iii++ ) {
+            final byte x = readBases[iii];
+            final float match = (float) QualityUtils.qualToProb(readQuals[iii]);
+            final float mismatch = (float) QualityUtils.qualToErrorProb(readQuals[iii]);
+            final float[] distance = floatDistanceMatrix[iii + 2];
+            for( int jjj = hapStartIndex; jjj < haplotypeBases.length; jjj++ ) {
+                final byte y = haplotypeBases[jjj];
+                distance[jjj + 2] = ( x == y || x == (byte) 'N' || y == (byte) 'N' ? match : mismatch );
+            }
+        }
+    }
+
+    private void initializeFloatConstants( final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP ) {
+        final int l = insertionGOP.length;
+        for( int iii = 0; iii < l; iii++ ) {
+            final int qualIndexGOP = Math.min(insertionGOP[iii] + deletionGOP[iii], MAX_CACHED_QUAL);
+            final float[] constants = floatConstantMatrix[iii + 2];
+            constants[0] = (float) QualityUtils.qualToProb((byte) qualIndexGOP);
+            constants[1] = (float) QualityUtils.qualToProb(overallGCP[iii]);
+            constants[2] = (float) QualityUtils.qualToErrorProb(insertionGOP[iii]);
+            constants[3] = (float) QualityUtils.qualToErrorProb(overallGCP[iii]);
+            constants[4] = (float) QualityUtils.qualToErrorProb(deletionGOP[iii]);
+            constants[5] = (float) QualityUtils.qualToErrorProb(overallGCP[iii]);
+        }
+        if( l > 0 ) {
+            floatConstantMatrix[l + 1][4] = 1.0f;
+            floatConstantMatrix[l + 1][5] = 1.0f;
+        }
+    }
+
+    private void updateFloatCell( final int indI, final int indJ, final float prior, final float[] constants ) {
+        floatMatchMetricArray[indI][indJ] = prior * ( floatMatchMetricArray[indI - 1][indJ - 1] * constants[0] +
+                floatXMetricArray[indI - 1][indJ - 1] * constants[1] +
+                floatYMetricArray[indI - 1][indJ - 1] * constants[1] );
+        floatXMetricArray[indI][indJ] = floatMatchMetricArray[indI - 1][indJ] * constants[2] + floatXMetricArray[indI - 1][indJ] * constants[3];
+        floatYMetricArray[indI][indJ] = floatMatchMetricArray[indI][indJ - 1] * constants[4] + floatYMetricArray[indI][indJ - 1] * constants[5];
+    }
+}
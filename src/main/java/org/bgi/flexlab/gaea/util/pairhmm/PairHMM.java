@@ -45,6 +45,10 @@ package org.bgi.flexlab.gaea.util.pairhmm;
 //import com.google.java.contract.Ensures;
 //import com.google.java.contract.Requires;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 
 /**
  * from GATK
@@ -71,6 +75,12 @@ public abstract class PairHMM {
 
     public abstract void initialize( final int READ_MAX_LENGTH, final int HAPLOTYPE_MAX_LENGTH );
 
+    /* reads evaluated by one fork-join leaf task in batch mode */
+    private static final int BATCH_READS_PER_TASK = 4;
+
+    private ForkJoinPool batchPool = null;
+    private ThreadLocal<PairHMM> workerHMM = null;
+
  //   @Requires({"readBases.length == readQuals.length", "readBases.length == insertionGOP.length", "readBases.length == deletionGOP.length",
  //              "readBases.length == overallGCP.length", "matchMetricArray!=null", "XMetricArray!=null", "YMetricArray!=null"})
  //   @Ensures({"!Double.isInfinite(result)", "!Double.isNaN(result)"}) // Result should be a proper log10 likelihood
@@ -82,4 +92,126 @@ public abstract class PairHMM {
                                                                      final byte[] overallGCP,
                                                                      final int hapStartIndex,
                                                                      final boolean recacheReadValues );
+
+    /**
+     * compute log10 likelihoods of all reads against their haplotypes for one site.
+     * reads are split over a bounded fork-join pool of numThreads workers, each worker
+     * owns its own PairHMM so matrices are reused across reads on the same thread.
+     *
+     * @return likelihoods[read][haplotype]
+     */
+    public double[][] computeReadLikelihoodsLog10( final List<PairHMMReadData> reads, final int numThreads ) {
+        final double[][] likelihoods = new double[reads.size()][];
+
+        if ( numThreads <= 1 || reads.size() <= BATCH_READS_PER_TASK ) {
+            for ( int i = 0; i < reads.size(); i++ )
+                likelihoods[i] = computeReadLikelihoodsLog10(reads.get(i));
+            return likelihoods;
+        }
+
+        getBatchPool(numThreads).invoke(new BatchTask(reads, likelihoods, 0, reads.size()));
+        return likelihoods;
+    }
+
+    /**
+     * compute log10 likelihoods of one read against all of its haplotypes, sharing per-read
+     * values and the common haplotype prefix between consecutive haplotypes
+     */
+    public double[] computeReadLikelihoodsLog10( final PairHMMReadData read ) {
+        final List<byte[]> haplotypes = read.getHaplotypeBases();
+        final double[] likelihoods = new double[haplotypes.size()];
+
+        ensureCapacity(read.getReadLength(), read.getMaxHaplotypeLength());
+
+        byte[] previousHaplotype = null;
+        for ( int h = 0; h < haplotypes.size(); h++ ) {
+            final byte[] haplotypeBases = haplotypes.get(h);
+            final int hapStartIndex = previousHaplotype == null ? 0 : computeFirstDifferingPosition(haplotypeBases, previousHaplotype);
+            likelihoods[h] = computeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, read.getReadBases(), read.getReadQuals(),
+                    read.getInsertionGOP(), read.getDeletionGOP(), read.getOverallGCP(), hapStartIndex, previousHaplotype == null);
+            previousHaplotype = haplotypeBases;
+        }
+
+        return likelihoods;
+    }
+
+    /**
+     * only reallocate the state matrices when the read or haplotype does not fit
+     */
+    protected void ensureCapacity( final int readLength, final int haplotypeLength ) {
+        if ( matchMetricArray == null || readLength + 2 > matchMetricArray.length || haplotypeLength + 2 > matchMetricArray[0].length )
+            initialize(readLength, haplotypeLength);
+    }
+
+    protected static int computeFirstDifferingPosition( final byte[] b1, final byte[] b2 ) {
+        if ( b1.length != b2.length )
+            return 0;
+
+        for ( int i = 0; i < b1.length; i++ ) {
+            if ( b1[i] != b2[i] )
+                return i;
+        }
+        return b1.length;
+    }
+
+    /**
+     * new engine of the same implementation, used by the batch worker threads
+     */
+    protected PairHMM newInstance() {
+        try {
+            return getClass().getDeclaredConstructor().newInstance();
+        } catch ( ReflectiveOperationException e ) {
+            throw new RuntimeException(e.toString());
+        }
+    }
+
+    private synchronized ForkJoinPool getBatchPool( final int numThreads ) {
+        if ( batchPool == null || batchPool.getParallelism() != numThreads ) {
+            if ( batchPool != null )
+                batchPool.shutdown();
+            batchPool = new ForkJoinPool(numThreads);
+            workerHMM = ThreadLocal.withInitial(this::newInstance);
+        }
+        return batchPool;
+    }
+
+    /**
+     * shut down the batch worker pool, if one was started
+     */
+    public synchronized void close() {
+        if ( batchPool != null ) {
+            batchPool.shutdown();
+            batchPool = null;
+            workerHMM = null;
+        }
+    }
+
+    private class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = -2613521398431523791L;
+
+        private final List<PairHMMReadData> reads;
+        private final double[][] likelihoods;
+        private final int start;
+        private final int end;
+
+        BatchTask( final List<PairHMMReadData> reads, final double[][] likelihoods, final int start, final int end ) {
+            this.reads = reads;
+            this.likelihoods = likelihoods;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if ( end - start <= BATCH_READS_PER_TASK ) {
+                final PairHMM hmm = workerHMM.get();
+                for ( int i = start; i < end; i++ )
+                    likelihoods[i] = hmm.computeReadLikelihoodsLog10(reads.get(i));
+                return;
+            }
+
+            final int middle = (start + end) >>> 1;
+            invokeAll(new BatchTask(reads, likelihoods, start, middle), new BatchTask(reads, likelihoods, middle, end));
+        }
+    }
 }
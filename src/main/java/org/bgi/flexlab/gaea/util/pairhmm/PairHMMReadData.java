@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2017, BGI-Shenzhen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *******************************************************************************/
+package org.bgi.flexlab.gaea.util.pairhmm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * one read and the haplotype bases it is scored against in a PairHMM batch
+ */
+public class PairHMMReadData {
+    private final byte[] readBases;
+    private final byte[] readQuals;
+    private final byte[] insertionGOP;
+    private final byte[] deletionGOP;
+    private final byte[] overallGCP;
+    private final List<byte[]> haplotypeBases = new ArrayList<byte[]>();
+
+    public PairHMMReadData(final byte[] readBases, final byte[] readQuals, final byte[] insertionGOP,
+                           final byte[] deletionGOP, final byte[] overallGCP) {
+        this.readBases = readBases;
+        this.readQuals = readQuals;
+        this.insertionGOP = insertionGOP;
+        this.deletionGOP = deletionGOP;
+        this.overallGCP = overallGCP;
+    }
+
+    public void addHaplotype(final byte[] bases) {
+        haplotypeBases.add(bases);
+    }
+
+    public List<byte[]> getHaplotypeBases() {
+        return haplotypeBases;
+    }
+
+    public int getMaxHaplotypeLength() {
+        int max = 0;
+        for (byte[] bases : haplotypeBases)
+            max = Math.max(max, bases.length);
+        return max;
+    }
+
+    public int getReadLength() {
+        return readBases.length;
+    }
+
+    public byte[] getReadBases() {
+        return readBases;
+    }
+
+    public byte[] getReadQuals() {
+        return readQuals;
+    }
+
+    public byte[] getInsertionGOP() {
+        return insertionGOP;
+    }
+
+    public byte[] getDeletionGOP() {
+        return deletionGOP;
+    }
+
+    public byte[] getOverallGCP() {
+        return overallGCP;
+    }
+}